@@ -0,0 +1,123 @@
+package com.springvuegradle.seng302team600.Utilities;
+
+import com.springvuegradle.seng302team600.enumeration.UnitType;
+import com.springvuegradle.seng302team600.model.Activity;
+import com.springvuegradle.seng302team600.model.ActivityType;
+import com.springvuegradle.seng302team600.model.Outcome;
+import com.springvuegradle.seng302team600.model.Result;
+import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
+import com.springvuegradle.seng302team600.service.ActivityTypeRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the validation done by each request that creates or edits a user, activity, outcome or result, with the
+ * compiled rule sets against the validators they replaced (kept verbatim in the legacy package), which compiled
+ * every regular expression on every call.  Registering validates a password as well as the user.
+ * The activity types are mocked in both, so neither pays for a lookup.  Run with ./gradlew jmh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private static final String PASSWORD = "password123";
+
+    private UserValidator userValidator;
+    private com.springvuegradle.seng302team600.Utilities.legacy.UserValidator legacyUserValidator;
+    private User user;
+    private Activity activity;
+    private Outcome outcome;
+    private Result result;
+
+    @Setup
+    public void setUp() {
+        List<ActivityType> activityTypes = Arrays.asList(new ActivityType("Hike"), new ActivityType("Run"),
+                new ActivityType("Climb"));
+        ActivityTypeRegistry activityTypeRegistry = Mockito.mock(ActivityTypeRegistry.class);
+        Mockito.when(activityTypeRegistry.getActivityTypes()).thenReturn(activityTypes);
+        ActivityTypeRepository activityTypeRepository = Mockito.mock(ActivityTypeRepository.class);
+        Mockito.when(activityTypeRepository.findAll()).thenReturn(activityTypes);
+        userValidator = new UserValidator(activityTypeRegistry);
+        legacyUserValidator = new com.springvuegradle.seng302team600.Utilities.legacy.UserValidator(activityTypeRepository);
+
+        user = new User();
+        user.setFirstName("Maria");
+        user.setMiddleName("Jose");
+        user.setLastName("de la Cruz");
+        user.setNickName("MJ");
+        user.setDateOfBirth(new GregorianCalendar(1990, Calendar.JUNE, 1).getTime());
+        user.setBio("Runner and climber");
+        user.setPrimaryEmail("maria@email.com");
+        user.setAdditionalEmails(Arrays.asList("mj@email.com", "maria.cruz@work.co.nz"));
+        user.setFitnessLevel(2);
+        user.setPassports(Arrays.asList("New Zealand", "Spain"));
+        user.setActivityTypes(new HashSet<>(activityTypes.subList(0, 2)));
+
+        activity = new Activity();
+        activity.setName("Tongariro Crossing");
+        activity.setDescription("A day walk across the alpine crossing, starting from the Mangatepopo car park");
+        activity.setActivityTypes(new HashSet<>(activityTypes.subList(0, 1)));
+        activity.setContinuous(false);
+        activity.setStartTime(new GregorianCalendar(2020, Calendar.DECEMBER, 5, 7, 0).getTime());
+        activity.setEndTime(new GregorianCalendar(2020, Calendar.DECEMBER, 5, 16, 0).getTime());
+
+        outcome = new Outcome();
+        outcome.setTitle("Time to the Red Crater");
+        outcome.setActivityId(1L);
+        outcome.setUnitType(UnitType.NUMBER);
+        outcome.setUnitName("Minutes");
+
+        result = new Result();
+        result.setComment("Stopped for lunch on the way");
+        result.setValue("185");
+    }
+
+    @Benchmark
+    public boolean registration() {
+        return PasswordValidator.validate(PASSWORD) && userValidator.validate(user);
+    }
+
+    @Benchmark
+    public boolean legacyRegistration() {
+        return com.springvuegradle.seng302team600.Utilities.legacy.PasswordValidator.validate(PASSWORD)
+                && legacyUserValidator.validate(user);
+    }
+
+    @Benchmark
+    public boolean activity() {
+        return ActivityValidator.validate(activity);
+    }
+
+    @Benchmark
+    public boolean legacyActivity() {
+        return com.springvuegradle.seng302team600.Utilities.legacy.ActivityValidator.validate(activity);
+    }
+
+    @Benchmark
+    public boolean outcome() {
+        return OutcomeValidator.validate(outcome);
+    }
+
+    @Benchmark
+    public boolean legacyOutcome() {
+        return com.springvuegradle.seng302team600.Utilities.legacy.OutcomeValidator.validate(outcome);
+    }
+
+    @Benchmark
+    public boolean result() {
+        return ResultValidator.validate(result, outcome);
+    }
+
+    @Benchmark
+    public boolean legacyResult() {
+        return com.springvuegradle.seng302team600.Utilities.legacy.ResultValidator.validate(result, outcome);
+    }
+}
@@ -0,0 +1,89 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.Application;
+import com.springvuegradle.seng302team600.model.Session;
+import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.payload.LoginResponse;
+import com.springvuegradle.seng302team600.payload.UserRegisterRequest;
+import com.springvuegradle.seng302team600.repository.EmailRepository;
+import com.springvuegradle.seng302team600.repository.SessionRepository;
+import com.springvuegradle.seng302team600.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+
+import java.util.Calendar;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares logging in through the credential projection against loading the Email entity (and with it
+ * the whole User), the way login used to.  Runs against the local profile's in-memory H2 database.
+ * Passwords are checked with a no-op encoder, since BCrypt would otherwise hide the cost of the queries.
+ * Run with ./gradlew jmh, add -PjmhThreads=8 (or similar) to measure under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// The local profile's login throttle would otherwise turn most of the logins away
+@Fork(value = 1, jvmArgsAppend = "-Dspring.security.login-throttle.enabled=false")
+public class LoginBenchmark {
+
+    private static final String EMAIL = "login.benchmark@email.com";
+    private static final String PASSWORD = "password123";
+
+    private ConfigurableApplicationContext context;
+    private UserAuthenticationService userService;
+    private EmailRepository emailRepository;
+    private SessionRepository sessionRepository;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .profiles("local")
+                .web(WebApplicationType.NONE)
+                .properties("spring.config.location=classpath:/,classpath:/activity_types.yml",
+                        "logging.level.root=WARN")
+                .run();
+        User.setPasswordEncoder(NoOpPasswordEncoder.getInstance());
+        userService = context.getBean(UserAuthenticationService.class);
+        emailRepository = context.getBean(EmailRepository.class);
+        sessionRepository = context.getBean(SessionRepository.class);
+
+        UserRegisterRequest userData = new UserRegisterRequest();
+        userData.setFirstName("Bench");
+        userData.setLastName("Mark");
+        userData.setPrimaryEmail(EMAIL);
+        userData.setPassword(PASSWORD);
+        userData.setDateOfBirth(new Calendar.Builder().setDate(1990, 1, 1).build().getTime());
+        userData.setGender(User.Gender.FEMALE);
+        context.getBean(UserRepository.class).save(new User(userData));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /** Loads the user's id, password hash and role in one query, then starts a session */
+    @Benchmark
+    public LoginResponse credentialProjection() {
+        return userService.login(EMAIL, PASSWORD);
+    }
+
+    /** Loads the Email entity, which eagerly loads its User, then starts a session */
+    @Benchmark
+    public LoginResponse emailEntity() {
+        User user = emailRepository.findByEmail(EMAIL).getUser();
+        if (!user.checkPassword(PASSWORD)) {
+            throw new IllegalStateException("Password did not match");
+        }
+        String token = UUID.randomUUID().toString();
+        sessionRepository.save(new Session(token, user));
+        return new LoginResponse(token, user.getUserId());
+    }
+}
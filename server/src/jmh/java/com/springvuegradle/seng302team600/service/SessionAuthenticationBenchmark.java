@@ -0,0 +1,86 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.Application;
+import com.springvuegradle.seng302team600.model.Session;
+import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.model.UserPrincipal;
+import com.springvuegradle.seng302team600.payload.UserRegisterRequest;
+import com.springvuegradle.seng302team600.repository.SessionRepository;
+import com.springvuegradle.seng302team600.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of authenticating a request with a session token (on a cache miss and a cache hit)
+ * against verifying a signed token.  Runs against the local profile's in-memory H2 database.
+ * Run with ./gradlew jmh, add -PjmhThreads=8 (or similar) to measure under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionAuthenticationBenchmark {
+
+    private static final String STORED_TOKEN = "benchmarkToken";
+
+    private ConfigurableApplicationContext context;
+    private UserAuthenticationService userService;
+    private SessionCache sessionCache;
+    private SignedTokenService signedTokenService;
+    private String signedToken;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .profiles("local")
+                .web(WebApplicationType.NONE)
+                .properties("spring.config.location=classpath:/,classpath:/activity_types.yml",
+                        "logging.level.root=WARN")
+                .run();
+        userService = context.getBean(UserAuthenticationService.class);
+        sessionCache = context.getBean(SessionCache.class);
+        signedTokenService = context.getBean(SignedTokenService.class);
+
+        UserRegisterRequest userData = new UserRegisterRequest();
+        userData.setFirstName("Bench");
+        userData.setLastName("Mark");
+        userData.setPrimaryEmail("benchmark@email.com");
+        userData.setPassword("password123");
+        userData.setDateOfBirth(new Calendar.Builder().setDate(1990, 1, 1).build().getTime());
+        userData.setGender(User.Gender.FEMALE);
+        User user = context.getBean(UserRepository.class).save(new User(userData));
+        context.getBean(SessionRepository.class).save(new Session(STORED_TOKEN, user));
+        signedToken = signedTokenService.issue(new UserPrincipal(user.getUserId(), user.getRole()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /** Session token, its session row looked up in the database every time */
+    @Benchmark
+    public UserPrincipal storedTokenCacheMiss() {
+        sessionCache.invalidate(STORED_TOKEN);
+        return userService.authenticate(STORED_TOKEN);
+    }
+
+    /** Session token, found in the session cache */
+    @Benchmark
+    public UserPrincipal storedTokenCacheHit() {
+        return userService.authenticate(STORED_TOKEN);
+    }
+
+    /** Signed token, verified in memory (the work authenticate does with spring.security.session.mode=signed) */
+    @Benchmark
+    public UserPrincipal signedToken() {
+        return signedTokenService.verify(signedToken);
+    }
+}
@@ -0,0 +1,49 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the TokenGenerator, with and without its per-thread pools, against building a new SecureRandom
+ * and appending a character at a time for every token, the way login used to.
+ * Run with ./gradlew jmh -PjmhThreads=8 (or similar) to measure under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenGeneratorBenchmark {
+
+    private static final String CHAR_LIST =
+            "1234567890abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    private final TokenGenerator pooled = new TokenGenerator(24, 1024);
+    private final TokenGenerator unpooled = new TokenGenerator(24, 0);
+
+    /** Slices tokens from bytes each thread takes from the shared DRBG in bulk */
+    @Benchmark
+    public String pooledDrbg() {
+        return pooled.generate();
+    }
+
+    /** Takes each token's bytes from the shared DRBG */
+    @Benchmark
+    public String sharedDrbg() {
+        return unpooled.generate();
+    }
+
+    /** A new SecureRandom and a character at a time for every token */
+    @Benchmark
+    public String newSecureRandomPerToken() {
+        int length = 30;
+        StringBuffer strBuffer = new StringBuffer(length);
+        SecureRandom secureRandom = new SecureRandom();
+        for (int i = 0; i < length; i++)
+            strBuffer.append(CHAR_LIST.charAt(secureRandom.nextInt(CHAR_LIST.length())));
+        return strBuffer.toString();
+    }
+}
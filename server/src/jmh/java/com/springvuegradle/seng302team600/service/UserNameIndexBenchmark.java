@@ -0,0 +1,61 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures name search latency (see the p0.99 percentile) over a million users with generated names.
+ * Run with ./gradlew jmh, add -PjmhThreads=8 (or similar) to measure under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserNameIndexBenchmark {
+
+    private static final String[] FIRST_NAMES = {"Anna", "Ben", "Chloe", "Daniel", "Emma", "Finn", "Grace",
+            "Hamish", "Isla", "Jack", "Kate", "Liam", "Mia", "Noah", "Olivia", "Pita", "Quinn", "Ruby", "Sam",
+            "Tane", "Una", "Vivian", "William", "Xavier", "Yvonne", "Zoe"};
+    private static final String[] SYLLABLES = {"ka", "ro", "mi", "son", "ter", "ell", "an", "wood", "ford",
+            "ham", "lee", "ma", "ri", "to", "ngu", "ber", "gar", "lin", "ston", "vic"};
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"an", "emm", "ford", "grace wood", "zzq"})
+    private String query;
+
+    private UserNameIndex index;
+
+    private static String lastName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int syllables = 2 + random.nextInt(2);
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    @Setup
+    public void setUp() {
+        index = new UserNameIndex(Mockito.mock(JdbcTemplate.class));
+        Random random = new Random(42);
+        for (long userId = 1; userId <= users; userId++) {
+            String nickName = random.nextInt(4) == 0 ? lastName(random) : null;
+            index.update(userId, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], lastName(random), nickName);
+        }
+    }
+
+    /** The first page of results, as the typeahead box asks for */
+    @Benchmark
+    public UserNameIndex.Page search() {
+        return index.search(query, 0, 20);
+    }
+}
@@ -19,23 +19,31 @@ public class OutcomeValidator {
     private static final int TITLE_LENGTH = 75;
     private static final int UNIT_LENGTH = 15;
 
+    private static final TextRule TITLE = TextRule.required("Title must be filled in")
+            .notBlank("Title must be filled in")
+            .maxLength(TITLE_LENGTH, "Title must be less than 45 characters long")
+            .build();
+    private static final TextRule UNIT_NAME = TextRule.required("Unit name must be set")
+            .notBlank("Unit name must be set")
+            .maxLength(UNIT_LENGTH, "Unit name must be less than 15 characters long")
+            .build();
+
+    private static final RuleSet<Outcome> RULES = RuleSet.<Outcome>builder()
+            .text(Outcome::getTitle, TITLE)
+            .rule(outcome -> outcome.getActivityId() != null, "ActivityId must be set")
+            .rule(outcome -> outcome.getUnitType() != null, "Unit must have a unit type set")
+            .text(Outcome::getUnitName, UNIT_NAME)
+            .build();
+
     public static boolean validate(Outcome outcome) {
-        validateTitle(outcome.getTitle());
-        validateActivityId(outcome.getActivityId());
-        validateUnit(outcome.getUnitType(), outcome.getUnitName());
-        return true;
+        return RULES.validate(outcome);
     }
 
     /**
      * @param title must be 1 >= x <= 75 chars long
      */
     public static void validateTitle(String title) {
-        if (title == null || title.isBlank()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Title must be filled in");
-        }
-        if (title.length() > TITLE_LENGTH) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Title must be less than 45 characters long");
-        }
+        throwIfInvalid(TITLE.check(title));
     }
 
     /**
@@ -56,12 +64,12 @@ public class OutcomeValidator {
         if (unitType == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unit must have a unit type set");
         }
-        if (unitName == null || unitName.isBlank()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unit name must be set");
-        } else {
-            if (unitName.length() > UNIT_LENGTH) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unit name must be less than 15 characters long");
-            }
+        throwIfInvalid(UNIT_NAME.check(unitName));
+    }
+
+    private static void throwIfInvalid(String error) {
+        if (error != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
         }
     }
 }
@@ -6,6 +6,13 @@ import org.springframework.web.server.ResponseStatusException;
 public class PasswordValidator {
 
     private static final String PASSWORD_RULES_REGEX = "(?=.*[0-9])(?=.*[a-zA-Z])(?=\\S+$).{8,}";
+    private static final String PASSWORD_RULES_ERROR = "Password does not follow password rules";
+    private static final int MIN_PASSWORD_LEN = 8;
+
+    private static final TextRule PASSWORD = TextRule.required(PASSWORD_RULES_ERROR)
+            .minLength(MIN_PASSWORD_LEN, PASSWORD_RULES_ERROR)
+            .matches(PASSWORD_RULES_REGEX, PASSWORD_RULES_ERROR)
+            .build();
 
     /**
      * Checks the given password against the password rules. If invalid throws ResponseStatusException
@@ -41,8 +48,9 @@ public class PasswordValidator {
      * @param password the password to check
      */
     private static void validateRegEx(String password) {
-        if (!password.matches(PASSWORD_RULES_REGEX)) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Password does not follow password rules");
+        String error = PASSWORD.check(password);
+        if (error != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
         }
     }
 
@@ -6,6 +6,9 @@ import com.springvuegradle.seng302team600.model.Result;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * Validator for Result and the Value objects it contains.
  */
@@ -16,6 +19,26 @@ public class ResultValidator {
     final static private String NUMBER_REGEX = "\\d+";
     final static private String BOOLEAN_REGEX = "(true|false)";
 
+    private static final TextRule COMMENT = TextRule.optional()
+            .maxLength(COMMENT_LEN, "Result comment length is too long")
+            .build();
+
+    /** The rule for a value of each unit type, DATE, TIME and DATE_AND_TIME values are only checked for length */
+    private static final Map<UnitType, TextRule> VALUE_RULES = new EnumMap<>(UnitType.class);
+
+    static {
+        for (UnitType unitType : UnitType.values()) {
+            TextRule.Builder rule = TextRule.optional()
+                    .maxLength(VALUE_LEN, "At least one input value is too large");
+            if (unitType == UnitType.NUMBER) {
+                rule.matches(NUMBER_REGEX, "Value does not convert to an integer");
+            } else if (unitType == UnitType.BOOLEAN) {
+                rule.matches(BOOLEAN_REGEX, "Value does not convert to a boolean");
+            }
+            VALUE_RULES.put(unitType, rule.build());
+        }
+    }
+
     /**
      * Validates the given Result and the Value objects it contains.
      * @param result the Result to be validated
@@ -24,59 +47,14 @@ public class ResultValidator {
      */
     public static boolean validate(Result result, Outcome outcome) {
         result.setOutcome(null);
-        validateComment(result.getComment());
-        validateValue(result.getValue(), outcome.getUnitType());
+        throwIfInvalid(COMMENT.check(result.getComment()));
+        throwIfInvalid(VALUE_RULES.get(outcome.getUnitType()).check(result.getValue()));
         return true;
     }
 
-    /**
-     * Validates the comment.
-     * @param comment the Result's comment
-     */
-    private static void validateComment(String comment) {
-        if (comment == null) return;
-        if (comment.length() > COMMENT_LEN) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    "Result comment length is too long");
-        }
-    }
-
-    /**
-     * Validates a single Value.
-     * @param value the value to be validated
-     * @param unitType the unit type the value should follow
-     */
-    private static void validateValue(String value, UnitType unitType) {
-        if (value == null) return;
-        if (value.length() > VALUE_LEN) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    "At least one input value is too large");
-        }
-        switch (unitType) {
-            case TEXT:
-                // Will always be a String
-                break;
-            case NUMBER:
-                if (!value.matches(NUMBER_REGEX)) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                            "Value does not convert to an integer");
-                }
-                break;
-            case BOOLEAN:
-                if (!value.matches(BOOLEAN_REGEX)) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                            "Value does not convert to a boolean");
-                }
-                break;
-            case DATE:
-                // TODO implement when doing feature to use different unit data types
-                break;
-            case TIME:
-                // TODO implement when doing feature to use different unit data types
-                break;
-            case DATE_AND_TIME:
-                // TODO implement when doing feature to use different unit data types
-                break;
+    private static void throwIfInvalid(String error) {
+        if (error != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
         }
     }
 }
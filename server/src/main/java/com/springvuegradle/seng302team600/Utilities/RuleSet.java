@@ -0,0 +1,116 @@
+package com.springvuegradle.seng302team600.Utilities;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The validation rules for one type, built once (usually into a constant) and reused for every object validated.
+ * Objects are validated failing fast on the first broken rule, as the validators have always done.
+ * @param <T> the type validated
+ */
+public final class RuleSet<T> {
+
+    /**
+     * A single rule.
+     * @param <T> the type checked
+     */
+    @FunctionalInterface
+    public interface Rule<T> {
+        /**
+         * @param target the object to check
+         * @return the error message, or null if the object follows the rule
+         */
+        String check(T target);
+    }
+
+    private final Rule<T>[] rules;
+
+    private RuleSet(List<Rule<T>> rules) {
+        @SuppressWarnings("unchecked")
+        Rule<T>[] array = rules.toArray(new Rule[0]);
+        this.rules = array;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Validates an object, stopping at the first broken rule.
+     * @param target the object to validate
+     * @return true if valid, otherwise throw ResponseStatusException with BAD_REQUEST (400)
+     */
+    public boolean validate(T target) {
+        for (Rule<T> rule : rules) {
+            String error = rule.check(target);
+            if (error != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+            }
+        }
+        return true;
+    }
+
+    public static class Builder<T> {
+        private final List<Rule<T>> rules = new ArrayList<>();
+
+        private Builder() {}
+
+        public Builder<T> rule(Rule<T> rule) {
+            rules.add(rule);
+            return this;
+        }
+
+        public Builder<T> rule(Predicate<T> valid, String message) {
+            rules.add(target -> valid.test(target) ? null : message);
+            return this;
+        }
+
+        /**
+         * Adds a rule checking a text field of the object.
+         */
+        public Builder<T> text(Function<T, String> field, TextRule rule) {
+            rules.add(target -> rule.check(field.apply(target)));
+            return this;
+        }
+
+        /**
+         * Adds a rule checking every value of a text collection of the object, the collection may be null.
+         * Only the first bad value of the collection is reported.
+         */
+        public Builder<T> eachText(Function<T, ? extends Collection<String>> field, TextRule rule) {
+            rules.add(target -> {
+                Collection<String> values = field.apply(target);
+                if (values != null) {
+                    for (String value : values) {
+                        String error = rule.check(value);
+                        if (error != null) {
+                            return error;
+                        }
+                    }
+                }
+                return null;
+            });
+            return this;
+        }
+
+        /**
+         * Adds the rules of another rule set, only checked when a condition holds.
+         */
+        public Builder<T> when(Predicate<T> condition, RuleSet<T> ruleSet) {
+            for (Rule<T> rule : ruleSet.rules) {
+                rules.add(target -> condition.test(target) ? rule.check(target) : null);
+            }
+            return this;
+        }
+
+        public RuleSet<T> build() {
+            return new RuleSet<>(rules);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.springvuegradle.seng302team600.Utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The checks for one text field, built once and reused for every value checked.
+ * Regular expressions are compiled when the rule is built, and are always checked after the length and blank
+ * checks, so a value that is too long is turned away before any regular expression sees it.  Otherwise checks
+ * run in the order they were added.
+ * A message containing %s has the value checked formatted into it.
+ */
+public final class TextRule {
+
+    private final String nullMessage;
+    private final boolean emptyMatchesPatterns;
+    private final Check[] checks;
+    private final Check[] patternChecks;
+
+    private TextRule(Builder builder) {
+        this.nullMessage = builder.nullMessage;
+        this.emptyMatchesPatterns = builder.emptyMatchesPatterns;
+        this.checks = builder.checks.toArray(new Check[0]);
+        this.patternChecks = builder.patternChecks.toArray(new Check[0]);
+    }
+
+    /**
+     * Starts a rule for a field that may be null, a null value passes every check.
+     * @return the rule builder
+     */
+    public static Builder optional() {
+        return new Builder(null);
+    }
+
+    /**
+     * Starts a rule for a field that must be set.
+     * @param message the error if the value is null
+     * @return the rule builder
+     */
+    public static Builder required(String message) {
+        return new Builder(message);
+    }
+
+    /**
+     * Checks a value.
+     * @param value the value to check
+     * @return the error message of the first check the value fails, or null if it passes
+     */
+    public String check(String value) {
+        if (value == null) {
+            return nullMessage;
+        }
+        for (Check check : checks) {
+            if (!check.test.test(value)) {
+                return check.message(value);
+            }
+        }
+        if (emptyMatchesPatterns && value.isEmpty()) {
+            return null;
+        }
+        for (Check check : patternChecks) {
+            if (!check.test.test(value)) {
+                return check.message(value);
+            }
+        }
+        return null;
+    }
+
+    private static class Check {
+        private final Predicate<String> test;
+        private final String message;
+        private final boolean formatted;
+
+        private Check(Predicate<String> test, String message) {
+            this.test = test;
+            this.message = message;
+            this.formatted = message.contains("%s");
+        }
+
+        private String message(String value) {
+            return formatted ? String.format(message, value) : message;
+        }
+    }
+
+    public static class Builder {
+        private final String nullMessage;
+        private boolean emptyMatchesPatterns;
+        private final List<Check> checks = new ArrayList<>();
+        private final List<Check> patternChecks = new ArrayList<>();
+
+        private Builder(String nullMessage) {
+            this.nullMessage = nullMessage;
+        }
+
+        public Builder maxLength(int length, String message) {
+            checks.add(new Check(value -> value.length() <= length, message));
+            return this;
+        }
+
+        public Builder minLength(int length, String message) {
+            checks.add(new Check(value -> value.length() >= length, message));
+            return this;
+        }
+
+        public Builder notBlank(String message) {
+            checks.add(new Check(value -> !value.isBlank(), message));
+            return this;
+        }
+
+        /**
+         * Adds a regular expression the whole value has to match, as String.matches does.
+         */
+        public Builder matches(String regex, String message) {
+            Pattern pattern = Pattern.compile(regex);
+            patternChecks.add(new Check(value -> pattern.matcher(value).matches(), message));
+            return this;
+        }
+
+        /**
+         * Lets an empty value pass the regular expressions, it still has to pass the other checks.
+         */
+        public Builder emptyMatchesPatterns() {
+            emptyMatchesPatterns = true;
+            return this;
+        }
+
+        public TextRule build() {
+            return new TextRule(this);
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.springvuegradle.seng302team600.Utilities;
 
 import com.springvuegradle.seng302team600.model.ActivityType;
-import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
+import com.springvuegradle.seng302team600.service.ActivityTypeRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -26,11 +26,63 @@ public class UserValidator {
     final static public int MAX_FITNESS_LEVEL = 4;
     final static public int MAX_PASSPORT_LEN = 255;
 
+    private static final TextRule FIRST_NAME = nameRule("first");
+    private static final TextRule LAST_NAME = nameRule("last");
+    private static final TextRule MIDDLE_NAME = TextRule.optional()
+            .maxLength(MAX_NAME_LEN, "Invalid middle name. Name is too long")
+            .emptyMatchesPatterns()
+            .matches(nameRegex, "Invalid middle name. " + NAME_ERROR)
+            .build();
+    private static final TextRule NICK_NAME = TextRule.optional()
+            .maxLength(MAX_NAME_LEN, "Invalid nick name. Name is too long")
+            .build();
+    private static final TextRule BIO = TextRule.optional()
+            .maxLength(MAX_BIO_LEN, "Bio exceeds maximum length")
+            .build();
+    private static final TextRule EMAIL = TextRule.required("Invalid email: 'null'")
+            .maxLength(MAX_EMAIL_LEN, "Email exceeds maximum length: '%s'")
+            .matches(emailRegex, "Invalid email: '%s'")
+            .build();
+    private static final TextRule PASSPORT = TextRule.optional()
+            .maxLength(MAX_PASSPORT_LEN, "Maximum character limit exceeded for passport country")
+            .minLength(1, "Blank/empty passport country string is not valid")
+            .build();
+
+    /** Every check on a user's own fields, activity types are checked against the repository separately */
+    private static final RuleSet<User> USER_RULES = RuleSet.<User>builder()
+            .text(User::getFirstName, FIRST_NAME)
+            .text(User::getLastName, LAST_NAME)
+            .text(User::getMiddleName, MIDDLE_NAME)
+            .text(User::getNickName, NICK_NAME)
+            .rule(user -> ageError(user.getDateOfBirth(), MIN_AGE, true))
+            .rule(user -> ageError(user.getDateOfBirth(), MAX_AGE, false))
+            .text(User::getBio, BIO)
+            .rule(user -> {
+                for (Email emailObj : user.getEmails()) {
+                    String error = EMAIL.check(emailObj.getEmail());
+                    if (error != null) {
+                        return error;
+                    }
+                }
+                return null;
+            })
+            .rule(user -> user.getFitnessLevel() >= MIN_FITNESS_LEVEL && user.getFitnessLevel() <= MAX_FITNESS_LEVEL,
+                    "Invalid fitness level received")
+            .eachText(User::getPassports, PASSPORT)
+            .build();
+
+    private static TextRule nameRule(String part) {
+        return TextRule.required("Invalid " + part + " name. " + NAME_ERROR)
+                .maxLength(MAX_NAME_LEN, "Invalid " + part + " name. Name is too long")
+                .matches(nameRegex, "Invalid " + part + " name. " + NAME_ERROR)
+                .build();
+    }
+
     @Autowired
-    private final ActivityTypeRepository activityTypeRepository;
+    private final ActivityTypeRegistry activityTypeRegistry;
 
-    public UserValidator(ActivityTypeRepository activityTypeRepository) {
-        this.activityTypeRepository = activityTypeRepository;
+    public UserValidator(ActivityTypeRegistry activityTypeRegistry) {
+        this.activityTypeRegistry = activityTypeRegistry;
     }
 
     /**
@@ -41,34 +93,21 @@ public class UserValidator {
      * @param user the user to be validated
      * @return true if valid user, otherwise throw ResponseStatusException
      */
-
     public boolean validate(User user) throws ResponseStatusException {
-//
-        validateName(user.getFirstName(), "first");
-        validateName(user.getLastName(), "last");
-        validateName(user.getMiddleName(), "middle");
-        validateName(user.getNickName(), "nick");
-        validateAge(user.getDateOfBirth(), MIN_AGE, true);
-        validateAge(user.getDateOfBirth(), MAX_AGE, false);
-        validateBio(user.getBio());
-        for (Email emailObj : user.getEmails()) {
-            validateEmail(emailObj.getEmail());
-        }
-        validateFitnessLevel(user.getFitnessLevel());
-        List<String> userPassports = user.getPassports();
-        if (userPassports != null) {
-            for (String passport : userPassports) {
-                validatePassport(passport);
-            }
-        }
-        Set<ActivityType> activityTypes = new HashSet<>(activityTypeRepository.findAll());
+        USER_RULES.validate(user);
+        validateActivityTypes(user);
+        return true;
+    }
+
+    private void validateActivityTypes(User user) {
         Set<ActivityType> userActivityTypes = user.getActivityTypes();
-        if (userActivityTypes != null) {
+        // Only look the activity types up if there are any to check
+        if (userActivityTypes != null && !userActivityTypes.isEmpty()) {
+            Set<ActivityType> activityTypes = new HashSet<>(activityTypeRegistry.getActivityTypes());
             for (ActivityType activityType : userActivityTypes) {
                 validateActivityType(activityType, activityTypes);
             }
         }
-        return true;
     }
 
     /**
@@ -81,26 +120,24 @@ public class UserValidator {
      * @throws ResponseStatusException thrown if the given name is invalid
      */
     public boolean validateName(String name, String part) {
-        if (name == null) {
-            if (part.equals("middle") || part.equals("nick")) {
-                return true;
-            }
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + part + " name. " + NAME_ERROR);
-        }
-        if (name.length() > MAX_NAME_LEN) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + part + " name. Name is too long");
-        }
-        if (!part.equals("nick")) {
-            if (part.equals("middle")) {
-                if (!name.matches(nameRegex) && !name.isEmpty()) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + part + " name. " + NAME_ERROR);
-                }
-            } else {
-                if (!name.matches(nameRegex)) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + part + " name. " + NAME_ERROR);
-                }
-            }
-        }
+        TextRule rule;
+        switch (part) {
+            case "middle":
+                rule = MIDDLE_NAME;
+                break;
+            case "nick":
+                rule = NICK_NAME;
+                break;
+            case "first":
+                rule = FIRST_NAME;
+                break;
+            case "last":
+                rule = LAST_NAME;
+                break;
+            default:
+                rule = nameRule(part);
+        }
+        throwIfInvalid(rule.check(name));
         return true;
     }
 
@@ -113,6 +150,11 @@ public class UserValidator {
      * @throws ResponseStatusException given DoB results in the user being younger/older than the given age
      */
     public boolean validateAge(Date DoB, int age, boolean younger) {
+        throwIfInvalid(ageError(DoB, age, younger));
+        return true;
+    }
+
+    private static String ageError(Date DoB, int age, boolean younger) {
         Calendar calendar = Calendar.getInstance();
         //Lock calender time to end of day to ensure comparison is accurate and reliable
         calendar.set(Calendar.HOUR_OF_DAY, 23);
@@ -123,14 +165,14 @@ public class UserValidator {
         Date ageDate = calendar.getTime();
         if (younger) {
             if (ageDate.before(DoB)) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You must be at least 13 years old to register for this app");
+                return "You must be at least 13 years old to register for this app";
             }
         } else {
             if (ageDate.after(DoB)) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid date of birth");
+                return "Invalid date of birth";
             }
         }
-        return true;
+        return null;
     }
 
     /**
@@ -139,12 +181,7 @@ public class UserValidator {
      * @throws ResponseStatusException if the length of the bio string exceeds MAX_BIO_LEN
      */
     public boolean validateBio(String bio) {
-        if (bio == null) {
-            return true;
-        }
-        if (bio.length() > MAX_BIO_LEN) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bio exceeds maximum length");
-        }
+        throwIfInvalid(BIO.check(bio));
         return true;
     }
 
@@ -156,12 +193,7 @@ public class UserValidator {
      * @throws ResponseStatusException if the given email string is invalid
      */
     public boolean validateEmail(String email) {
-        if (email.length() > MAX_EMAIL_LEN) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Email exceeds maximum length: '%s'", email));
-        }
-        if (!email.matches(emailRegex)) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Invalid email: '%s'", email));
-        }
+        throwIfInvalid(EMAIL.check(email));
         return true;
     }
 
@@ -185,15 +217,7 @@ public class UserValidator {
      * @throw ResponseStatusException if the passport string is invalid
      */
     public boolean validatePassport(String passport) {
-        if (passport == null) {
-            return true;
-        }
-        if (passport.length() > MAX_PASSPORT_LEN) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Maximum character limit exceeded for passport country");
-        }
-        else if (passport.length() == 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Blank/empty passport country string is not valid");
-        }
+        throwIfInvalid(PASSPORT.check(passport));
         return true;
     }
 
@@ -203,4 +227,10 @@ public class UserValidator {
         }
         return true;
     }
-}
\ No newline at end of file
+
+    private static void throwIfInvalid(String error) {
+        if (error != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+        }
+    }
+}
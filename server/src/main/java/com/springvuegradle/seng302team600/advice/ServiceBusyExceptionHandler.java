@@ -0,0 +1,24 @@
+package com.springvuegradle.seng302team600.advice;
+
+import com.springvuegradle.seng302team600.service.ServiceBusyException;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+/**
+ * Adds a Retry-After header to 503 and 429 responses, which ResponseStatusException can't do by itself.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ControllerAdvice
+public class ServiceBusyExceptionHandler {
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<String> serviceBusyException(ServiceBusyException ex) {
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getReason());
+    }
+}
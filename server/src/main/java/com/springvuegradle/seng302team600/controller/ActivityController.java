@@ -2,13 +2,25 @@ package com.springvuegradle.seng302team600.controller;
 
 import com.springvuegradle.seng302team600.Utilities.ActivityValidator;
 import com.springvuegradle.seng302team600.model.Activity;
+import com.springvuegradle.seng302team600.model.ActivityTypeMask;
 import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.model.UserPrincipal;
+import com.springvuegradle.seng302team600.model.UserRole;
 import com.springvuegradle.seng302team600.payload.ActivityResponse;
 import com.springvuegradle.seng302team600.repository.ActivityParticipantRepository;
 import com.springvuegradle.seng302team600.repository.ActivityRepository;
+import com.springvuegradle.seng302team600.service.ActivityActivityTypeIndex;
+import com.springvuegradle.seng302team600.service.ActivityTypeIndex;
+import com.springvuegradle.seng302team600.service.ActivityExporter;
+import com.springvuegradle.seng302team600.service.ActivityIntervalIndex;
+import com.springvuegradle.seng302team600.service.ActivityResponseAssembler;
+import com.springvuegradle.seng302team600.service.ActivityTypeRegistry;
 import com.springvuegradle.seng302team600.service.ActivityTypeService;
 import com.springvuegradle.seng302team600.service.FeedEventService;
 import com.springvuegradle.seng302team600.service.UserAuthenticationService;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -18,10 +30,8 @@ import com.springvuegradle.seng302team600.payload.ParticipantResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
-import java.util.HashSet;
-import java.util.ArrayList;
-import java.util.Set;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Controller to manage activities and activity type
@@ -29,19 +39,38 @@ import java.util.Set;
 @RestController
 public class ActivityController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    /** The most activities one query of GET /activities reads */
+    private static final int MAX_SCAN_BATCH = 10000;
+    private static final String NDJSON = "application/x-ndjson";
+
     private final ActivityRepository activityRepository;
     private final UserAuthenticationService userAuthenticationService;
     private final ActivityTypeService activityTypeService;
     private final FeedEventService feedEventService;
     private final ActivityParticipantRepository activityParticipantRepository;
+    private final ActivityTypeRegistry activityTypeRegistry;
+    private final ActivityExporter activityExporter;
+    private final ActivityActivityTypeIndex activityActivityTypeIndex;
+    private final ActivityResponseAssembler activityResponseAssembler;
+    private final ActivityIntervalIndex activityIntervalIndex;
 
     public ActivityController(ActivityRepository activityRepository, UserAuthenticationService userAuthenticationService,
-                              ActivityTypeService activityTypeService, FeedEventService feedEventService, ActivityParticipantRepository activityParticipantRepository) {
+                              ActivityTypeService activityTypeService, FeedEventService feedEventService, ActivityParticipantRepository activityParticipantRepository,
+                              ActivityTypeRegistry activityTypeRegistry, ActivityExporter activityExporter,
+                              ActivityActivityTypeIndex activityActivityTypeIndex, ActivityResponseAssembler activityResponseAssembler,
+                              ActivityIntervalIndex activityIntervalIndex) {
         this.activityRepository = activityRepository;
         this.userAuthenticationService = userAuthenticationService;
         this.activityTypeService = activityTypeService;
         this.feedEventService = feedEventService;
         this.activityParticipantRepository = activityParticipantRepository;
+        this.activityTypeRegistry = activityTypeRegistry;
+        this.activityExporter = activityExporter;
+        this.activityActivityTypeIndex = activityActivityTypeIndex;
+        this.activityResponseAssembler = activityResponseAssembler;
+        this.activityIntervalIndex = activityIntervalIndex;
     }
 
     /**
@@ -67,6 +96,10 @@ public class ActivityController {
         // Check the user input and throw ResponseStatusException if invalid stopping execution
         ActivityValidator.validate(newActivity);
         Activity createdActivity = activityRepository.save(newActivity);
+        if (createdActivity != null) {
+            activityActivityTypeIndex.update(createdActivity.getActivityId(), createdActivity.getActivityTypes());
+            activityIntervalIndex.update(createdActivity.getActivityId(), createdActivity);
+        }
         response.setStatus(HttpServletResponse.SC_CREATED); //201
 
         return createdActivity != null ? createdActivity.getActivityId() : null;
@@ -87,15 +120,178 @@ public class ActivityController {
     }
 
     /**
-     * Get all the Activities in the Database
-     * @return List of all Activities
+     * Get a page of the Activities in the Database, in order of activity id, optionally filtered or searched.
+     * Activities can be searched in one of three ways, which can't be combined:
+     * - filtered in SQL by creator, continuous and activityTypeIds, any of which can be given
+     * - by activity type names, with types and method given together
+     * - by the times they happen at, with from and to given together
+     * If there are more activities, the X-Next-Cursor header gives the value of after for the next page.
+     * @param creator only activities created by this user, omitted for any creator
+     * @param continuous only continuous (true) or duration (false) activities, omitted for both
+     * @param activityTypeIds only activities having all of these activity types, omitted for any activity types
+     * @param types the activity type names, separated by spaces with the spaces in a name as dashes
+     * @param method the method to match the activity type names with (OR, AND)
+     * @param from the start of the times, as yyyy-MM-dd'T'HH:mm:ssZ
+     * @param to the end of the times, as yyyy-MM-dd'T'HH:mm:ssZ
+     * @param limit the largest number of activities to return
+     * @param after the id of the last activity of the previous page, omitted for the first page
+     * @return List of Activities
      */
     @GetMapping("/activities")
-    public List<ActivityResponse> findAllActivities() {
-        List<Activity> activities = activityRepository.findAll();
-        List<ActivityResponse> activityResponses = new ArrayList<>();
-        activities.forEach(i -> activityResponses.add(new ActivityResponse(i)));
-        return activityResponses;
+    public List<ActivityResponse> findAllActivities(HttpServletResponse response,
+                                                    @RequestParam(value="creator", required=false) Long creator,
+                                                    @RequestParam(value="continuous", required=false) Boolean continuous,
+                                                    @RequestParam(value="activityTypeIds", required=false) List<Long> activityTypeIds,
+                                                    @RequestParam(value="types", required=false) String types,
+                                                    @RequestParam(value="method", required=false) String method,
+                                                    @RequestParam(value="from", required=false) @DateTimeFormat(pattern="yyyy-MM-dd'T'HH:mm:ssZ") Date from,
+                                                    @RequestParam(value="to", required=false) @DateTimeFormat(pattern="yyyy-MM-dd'T'HH:mm:ssZ") Date to,
+                                                    @RequestParam(value="limit", defaultValue="" + DEFAULT_PAGE_SIZE) int limit,
+                                                    @RequestParam(value="after", required=false) Long after) {
+        if ((types == null) != (method == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Types and method must be given together");
+        }
+        if ((from == null) != (to == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "From and to must be given together");
+        }
+        boolean filtered = creator != null || continuous != null || activityTypeIds != null;
+        if ((filtered ? 1 : 0) + (types != null ? 1 : 0) + (from != null ? 1 : 0) > 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Filters, activity type names and times can't be searched at once");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (after != null && (after < 0 || after > Integer.MAX_VALUE)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "After must be an activity id");
+        }
+        if (types != null) {
+            return findActivitiesByActivityTypeNames(response, types, method, limit, after);
+        } else if (from != null) {
+            return findActivitiesBetween(response, from, to, limit, after);
+        }
+        return findActivitiesFiltered(response, creator, continuous, activityTypeIds, limit, after);
+    }
+
+    /**
+     * Finds a page of activities filtered in SQL.
+     * Activity types can't be matched through an index, so activities are read in batches, growing up to
+     * MAX_SCAN_BATCH, until the page is full or there are no more activities.  A page is only short if it is
+     * the last.
+     */
+    private List<ActivityResponse> findActivitiesFiltered(HttpServletResponse response, Long creator, Boolean continuous,
+                                                          List<Long> activityTypeIds, int limit, Long after) {
+        ActivityTypeMask mask = ActivityTypeMask.EMPTY;
+        if (activityTypeIds != null) {
+            mask = activityTypeRegistry.findMaskByIds(activityTypeIds);
+            // No activity can have an activity type that doesn't exist
+            if (mask.size() < new HashSet<>(activityTypeIds).size()) {
+                return new ArrayList<>();
+            }
+        }
+        // One more than the limit is found, to tell if there is a next page
+        List<Long> activityIds = new ArrayList<>(limit + 1);
+        long scanned = after == null ? 0 : after;
+        int batch = limit + 1;
+        while (activityIds.size() <= limit) {
+            List<Object[]> rows = activityRepository.findPage(scanned, creator, continuous,
+                    mask.getLow(), mask.getHigh(), PageRequest.of(0, batch));
+            for (Object[] row : rows) {
+                if (Boolean.TRUE.equals(row[1]) && activityIds.size() <= limit) {
+                    activityIds.add((Long) row[0]);
+                }
+            }
+            if (rows.size() < batch) {
+                // No activities are left to read
+                break;
+            }
+            scanned = (Long) rows.get(rows.size() - 1)[0];
+            batch = Math.min(batch * 2, MAX_SCAN_BATCH);
+        }
+        if (activityIds.size() > limit) {
+            activityIds = activityIds.subList(0, limit);
+            response.setHeader("X-Next-Cursor", String.valueOf(activityIds.get(limit - 1)));
+        }
+        // Only the page's activities are read, as ActivityResponse projections
+        return activityResponseAssembler.assemble(activityIds);
+    }
+
+    /**
+     * Finds a page of activities having activity types, in order of activity id
+     * Either using AND so all provided activity types MUST be included in returned activities or
+     * OR where one or more can be related to an activity
+     * The total number of matching activities is given in the X-Total-Count header
+     */
+    private List<ActivityResponse> findActivitiesByActivityTypeNames(HttpServletResponse response, String activityTypes,
+                                                                     String method, int limit, Long after) {
+        if (activityTypes.length() < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Activity Types must be specified");
+        }
+
+        // Separate ActivityType names, with '-' for ' '
+        List<String> types = Arrays.stream(activityTypes.split(" "))
+                .map(a -> a.replace('-', ' '))
+                .collect(Collectors.toList());
+        List<Long> activityTypeIds = activityTypeRegistry.findIdsByNames(types);
+        RoaringBitmap activities;
+        if (method.toLowerCase().equals("and")) {
+            // No activity can have an activity type that doesn't exist
+            long distinctTypes = types.stream().map(type -> type.toLowerCase(Locale.ROOT)).distinct().count();
+            activities = activityTypeIds.size() < distinctTypes ? new RoaringBitmap()
+                    : activityActivityTypeIndex.findWithAll(activityTypeIds);
+        } else if (method.toLowerCase().equals("or")) {
+            activities = activityActivityTypeIndex.findWithAny(activityTypeIds);
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Method must be specified as either (AND, OR)");
+        }
+        response.setHeader("X-Total-Count", String.valueOf(activities.getLongCardinality()));
+        List<Long> activityIds = ActivityTypeIndex.page(activities, after, limit);
+        if (!activityIds.isEmpty()
+                && ActivityTypeIndex.hasAfter(activities, activityIds.get(activityIds.size() - 1))) {
+            response.setHeader("X-Next-Cursor", String.valueOf(activityIds.get(activityIds.size() - 1)));
+        }
+        // Only the page's activities are read, as ActivityResponse projections
+        return activityResponseAssembler.assemble(activityIds);
+    }
+
+    /**
+     * Finds a page of the activities with a duration happening at any time between two times, including those
+     * that only start or end at one of the times, in order of activity id.  Continuous activities are never returned.
+     * The index only walks as far as the page needs, so no total count is given, as it would cost as much as
+     * finding every matching activity
+     */
+    private List<ActivityResponse> findActivitiesBetween(HttpServletResponse response, Date from, Date to, int limit,
+                                                         Long after) {
+        if (from.after(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "From must not be after to");
+        }
+        // One more than the limit is found, to tell if there is a next page
+        List<Long> activityIds = activityIntervalIndex.findActivitiesBetween(from.getTime(), to.getTime(), after, limit + 1);
+        if (activityIds.size() > limit) {
+            activityIds = activityIds.subList(0, limit);
+            response.setHeader("X-Next-Cursor", String.valueOf(activityIds.get(limit - 1)));
+        }
+        return activityResponseAssembler.assemble(activityIds);
+    }
+
+    /**
+     * Export every Activity in the Database as newline delimited JSON, one activity (as in GET /activities) per
+     * line, in order of activity id.  The activities are streamed as they are read, for syncing and analytics
+     * over the whole catalogue.  Only admins can export.  The activities are the same ones anyone can page through
+     * GET /activities, but each export reads the whole activity table and holds a database connection for as long
+     * as the client takes to read it, so it is kept to admins rather than left open to every caller.
+     * @param request the actual request from the client, containing pertinent data
+     * @param response the http response, the activities are written to it
+     */
+    @GetMapping("/activities/export")
+    public void exportActivities(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String token = request.getHeader("Token");
+        UserPrincipal principal = userAuthenticationService.authenticate(token);
+        if (principal.getRole() < UserRole.ADMIN) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only admins can export activities");
+        }
+        response.setContentType(NDJSON);
+        activityExporter.export(response.getOutputStream());
     }
 
 
@@ -137,6 +333,8 @@ public class ActivityController {
         oldActivity.setActivityTypes(activityTypeService.getMatchingEntitiesFromRepository(activity.getActivityTypes()));
         //save this updated activity
         activityRepository.save(oldActivity);
+        activityActivityTypeIndex.update(activityId, oldActivity.getActivityTypes());
+        activityIntervalIndex.update(activityId, oldActivity);
 
         //Create FeedEvents for participants and creator
         feedEventService.modifyActivityEvent(oldActivity, profileId);
@@ -174,6 +372,8 @@ public class ActivityController {
 
         //Delete the activity
         activityRepository.delete(activity);
+        activityActivityTypeIndex.remove(activityId);
+        activityIntervalIndex.remove(activityId);
     }
 
     /**
@@ -209,7 +409,7 @@ public class ActivityController {
         Set<User> participantList;
         Set<ParticipantResponse> returnedParticipantData = new HashSet<>();
         String token = request.getHeader("Token");
-        userAuthenticationService.findByToken(token);
+        userAuthenticationService.authenticate(token); // Checks that a user is logged in
         Activity activity = activityRepository.findByActivityId(activityId);
         if (activity == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Activity not found");
@@ -234,15 +434,15 @@ public class ActivityController {
     @GetMapping("/check-activity/{activityId}")
     public void isActivityEditableByUser(@PathVariable(value="activityId") Long activityId, HttpServletRequest request) {
         String token = request.getHeader("Token");
-        // Checks the authentication of the user, are they logged in, have they timed out, do they exist.
+        // Checks the authentication of the user, are they logged in, have they timed out.
         // If an error is found this service throws an UNAUTHORIZED error (401)
-        User user = userAuthenticationService.findByToken(token);
+        UserPrincipal principal = userAuthenticationService.authenticate(token);
         Activity activity = activityRepository.findByActivityId(activityId);
         if (activity == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Activity not found");
         }
         // Check if the user is the creator or an admin, if not throw a FORBIDDEN error (403).
-        if (!user.getUserId().equals(activity.getCreatorUserId()) && !userAuthenticationService.hasAdminPrivileges(user)) {
+        if (!principal.getUserId().equals(activity.getCreatorUserId()) && principal.getRole() < UserRole.ADMIN) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is forbidden from editing activity with ID:" + activityId);
         }
         // If this point is reached status code is OK (200)
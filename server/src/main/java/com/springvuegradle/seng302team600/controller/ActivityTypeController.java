@@ -1,11 +1,15 @@
 package com.springvuegradle.seng302team600.controller;
 
-import com.springvuegradle.seng302team600.model.ActivityType;
-import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
+import com.springvuegradle.seng302team600.service.ActivityTypePayload;
+import com.springvuegradle.seng302team600.service.ServiceBusyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 
 /**
  * Controller to manage activity type
@@ -13,20 +17,92 @@ import java.util.List;
 @RestController
 public class ActivityTypeController {
 
-    private ActivityTypeRepository activityTypeRepository;
+    // The activity types only change when the server is redeployed, a cached copy is revalidated daily by its ETag
+    private static final String CACHE_CONTROL = "public, max-age=86400";
 
-    public ActivityTypeController(ActivityTypeRepository activityTypeRepository) {
-        this.activityTypeRepository = activityTypeRepository;
+    private ActivityTypePayload activityTypePayload;
+
+    public ActivityTypeController(ActivityTypePayload activityTypePayload) {
+        this.activityTypePayload = activityTypePayload;
     }
 
     /**
-     * Gets the list of activity types
-     * @return list of activity types
+     * Gets the list of activity types, as JSON serialized (and gzipped) ahead of time.
+     * The gzipped body is sent to clients that accept gzip.  Each body has its own strong ETag, and a request
+     * with either current ETag in If-None-Match is answered with a 304 naming the ETag it matched.
+     * Until the activity types have been loaded at startup this is a 503, so an empty list is never cached.
+     * @param request the http request
+     * @param response the http response, given the list of activity types
      */
     @GetMapping("activity-types")
-    public List<ActivityType> getAllActivityTypes() {
-
-        return activityTypeRepository.findAll();
+    public void getAllActivityTypes(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!activityTypePayload.isLoaded()) {
+            throw new ServiceBusyException("Activity types are still loading, please try again shortly", 1);
+        }
+        ActivityTypePayload.Body body = activityTypePayload.getBody();
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String eTag = gzip ? body.getGzippedETag() : body.getETag();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // A cache may hold either body, the ETag tells it which of its copies is still current
+            String matched = findMatch(ifNoneMatch, eTag, gzip ? body.getETag() : body.getGzippedETag());
+            if (matched != null) {
+                response.setHeader(HttpHeaders.ETAG, matched);
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        byte[] bytes = gzip ? body.getGzippedJson() : body.getJson();
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
     }
 
+    /**
+     * Finds which of the current ETags an If-None-Match header names.  The header is "*" or a comma separated list
+     * of entity tags, which are compared weakly as RFC 7232 asks, so W/"x" matches "x".
+     * @param ifNoneMatch the If-None-Match header
+     * @param selected the ETag of the body the request would be sent, which is what "*" matches
+     * @param other the ETag of the other body
+     * @return the matched ETag, or null if the header names neither
+     */
+    static String findMatch(String ifNoneMatch, String selected, String other) {
+        if (ifNoneMatch.trim().equals("*")) {
+            return selected;
+        }
+        boolean matchesOther = false;
+        int i = 0;
+        int length = ifNoneMatch.length();
+        while (i < length) {
+            char c = ifNoneMatch.charAt(i);
+            if (c == ',' || Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (ifNoneMatch.startsWith("W/", i)) {
+                i += 2;
+            }
+            int end = i < length && ifNoneMatch.charAt(i) == '"' ? ifNoneMatch.indexOf('"', i + 1) : -1;
+            if (end < 0) {
+                // Not an entity tag, skip to the next one
+                end = ifNoneMatch.indexOf(',', i);
+                i = end < 0 ? length : end + 1;
+                continue;
+            }
+            String tag = ifNoneMatch.substring(i, end + 1);
+            if (tag.equals(selected)) {
+                return selected;
+            }
+            matchesOther |= tag.equals(other);
+            i = end + 1;
+        }
+        return matchesOther ? other : null;
+    }
 }
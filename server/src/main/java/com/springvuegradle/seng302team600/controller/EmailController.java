@@ -7,6 +7,8 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.springvuegradle.seng302team600.model.User;
 import com.springvuegradle.seng302team600.repository.EmailRepository;
 import com.springvuegradle.seng302team600.repository.UserRepository;
+import com.springvuegradle.seng302team600.service.ProfileVersionService;
+import com.springvuegradle.seng302team600.service.RegisteredEmailFilter;
 import com.springvuegradle.seng302team600.service.UserAuthenticationService;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
@@ -15,10 +17,7 @@ import org.springframework.web.server.ResponseStatusException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 @RestController
 public class EmailController {
@@ -27,15 +26,23 @@ public class EmailController {
 
     private final UserRepository userRepository;
     private final EmailRepository emailRepository;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final ProfileVersionService profileVersionService;
 
-    public EmailController(UserRepository userRepository, EmailRepository emailRepository, UserAuthenticationService userService) {
+    private static final String EMAILS_REPRESENTATION = "emails";
+
+    public EmailController(UserRepository userRepository, EmailRepository emailRepository, UserAuthenticationService userService,
+                           RegisteredEmailFilter registeredEmailFilter, ProfileVersionService profileVersionService) {
         this.userRepository = userRepository;
         this.emailRepository = emailRepository;
         this.userService = userService;
+        this.registeredEmailFilter = registeredEmailFilter;
+        this.profileVersionService = profileVersionService;
     }
 
     /**
-     * Return a users emails
+     * Return a users emails.
+     * The response has an ETag, and a request with a current If-None-Match is answered with a 304
      * @param request HttpServletRequest received from the front-end
      * @param response HttpServletResponse received from the front-end
      * @return JSON object with primaryEmails and additionalEmails field
@@ -44,8 +51,13 @@ public class EmailController {
     public Map<String, Object> findUserEmails(HttpServletRequest request, HttpServletResponse response, @PathVariable(value = "profileId") Long profileId) {
         String token = request.getHeader("Token");
         // Errors are thrown in userService
+        userService.authorizeUser(token, profileId);
+        if (profileVersionService.checkNotModified(request, response, EMAILS_REPRESENTATION, profileId)) {
+            return null;
+        }
         User user = userService.findByUserId(token, profileId);
         user.setTransientEmailStrings();
+        profileVersionService.setETag(response, EMAILS_REPRESENTATION, user.getUserId(), user.getVersion());
         Map<String, Object> userIdAndEmails = new HashMap<>();
         userIdAndEmails.put("userId", user.getUserId());
         userIdAndEmails.put("primaryEmail", user.getPrimaryEmail());
@@ -62,9 +74,11 @@ public class EmailController {
     @GetMapping("/email")
     public void checkIfEmailIsInUse(HttpServletRequest request, HttpServletResponse response) {
         String token = request.getHeader("Token");
-        userService.findByToken(token);
+        userService.authenticate(token); // Checks that a user is logged in
         String email = request.getHeader("email");
-        if (emailRepository.existsEmailByEmail(email)) {
+        // Most addresses checked while typing have never been registered, and are turned away by the filter.
+        // This check only advises the client, saving the address checks the database itself.
+        if (registeredEmailFilter.mightBeRegistered(email) && emailRepository.existsEmailByEmail(email)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad Request: email " + email + " is already in use");
         } else {
             response.setStatus(HttpServletResponse.SC_OK);
@@ -91,17 +105,24 @@ public class EmailController {
         // Maybe get rid of this if statement as it doesn't seem to have a purpose
         if (node.has("additional_email")) {
             List<String> additionalEmails = new ArrayList<>();
+            // Emails that haven't been associated with the user yet, which could be in use by someone else
+            List<String> newEmails = new ArrayList<>();
             for (JsonNode email: node.get("additional_email")) {
-                // If additional email has not been associated with user BUT exists in repo
-                if (!user.getAdditionalEmails().contains(email.asText()) && emailRepository.existsEmailByEmail(email.asText())) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad Request: additional email " + email.asText() + " is already in use");
-                } else {
-                    additionalEmails.add(email.asText());
+                additionalEmails.add(email.asText());
+                if (!user.getAdditionalEmails().contains(email.asText())) {
+                    newEmails.add(email.asText());
                 }
             }
+            List<String> emailsInUse = findRegisteredEmails(newEmails);
+            if (!emailsInUse.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad Request: additional email " + String.join(", ", emailsInUse) + " is already in use");
+            }
             user.setAdditionalEmails(additionalEmails);
             response.setStatus(HttpServletResponse.SC_CREATED);
             userRepository.save(user);
+            // The emails belong to the profile, so cached copies of it are out of date
+            userRepository.incrementVersion(user.getUserId());
+            newEmails.forEach(registeredEmailFilter::add);
         }
     }
 
@@ -127,24 +148,32 @@ public class EmailController {
         String originalPrimaryEmail = user.getPrimaryEmail();
         String candidatePrimaryEmail = node.get("primary_email").asText();
 
-        // If candidatePrimaryEmail is not in additional emails yet BUT exists in repo
-        if (!user.getAdditionalEmails().contains(candidatePrimaryEmail) && emailRepository.existsEmailByEmail(candidatePrimaryEmail)) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad Request: candidate primary email " + candidatePrimaryEmail + " is already in use");
+        List<String> newEmails = new ArrayList<>();
+        // If candidatePrimaryEmail is not in additional emails yet it could be in use
+        if (!user.getAdditionalEmails().contains(candidatePrimaryEmail)) {
+            newEmails.add(candidatePrimaryEmail);
         }
-
         List<String> candidateAdditionalEmails = new ArrayList<>();
         for (JsonNode email: node.get("additional_email")) {
             // If User.AdditionalEmails doesn't contain Email.asText()
             // And User.PrimaryEmail isn't Email.asText()
-            // But that Email is found in the DB
+            // That Email could be in use
             if (!user.getAdditionalEmails().contains(email.asText()) &&
-                    !user.getPrimaryEmail().equals(email.asText()) &&
-                    emailRepository.existsEmailByEmail(email.asText())) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad Request: email already in use");
-            } else {
-                candidateAdditionalEmails.add(email.asText());
+                    !user.getPrimaryEmail().equals(email.asText())) {
+                newEmails.add(email.asText());
+            }
+            candidateAdditionalEmails.add(email.asText());
+        }
+        // Every new email is checked in one query
+        List<String> emailsInUse = findRegisteredEmails(newEmails);
+        for (String emailInUse : emailsInUse) {
+            if (emailInUse.equalsIgnoreCase(candidatePrimaryEmail)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad Request: candidate primary email " + candidatePrimaryEmail + " is already in use");
             }
         }
+        if (!emailsInUse.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bad Request: email already in use");
+        }
 
         // RESET Additional Emails
         user.setAdditionalEmails(new ArrayList<>());
@@ -160,5 +189,22 @@ public class EmailController {
         user.setAdditionalEmails(candidateAdditionalEmails);
         response.setStatus(HttpServletResponse.SC_CREATED);
         userRepository.save(user);
+        // The emails belong to the profile, so cached copies of it are out of date
+        userRepository.incrementVersion(user.getUserId());
+        newEmails.forEach(registeredEmailFilter::add);
+    }
+
+    /**
+     * Finds which of the given emails are already registered, looked up together in one query.
+     * The RegisteredEmailFilter is not consulted, since an address registered on another node or since its
+     * last rebuild may be missing from it, and a write must never let a duplicate through.
+     * @param emails the emails to check
+     * @return the emails that are in use
+     */
+    private List<String> findRegisteredEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return emailRepository.findRegisteredEmails(emails);
     }
 }
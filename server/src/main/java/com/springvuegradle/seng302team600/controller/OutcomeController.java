@@ -4,7 +4,8 @@ package com.springvuegradle.seng302team600.controller;
 import com.springvuegradle.seng302team600.Utilities.OutcomeValidator;
 import com.springvuegradle.seng302team600.model.Activity;
 import com.springvuegradle.seng302team600.model.Outcome;
-import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.model.UserPrincipal;
+import com.springvuegradle.seng302team600.model.UserRole;
 import com.springvuegradle.seng302team600.payload.OutcomeRequest;
 import com.springvuegradle.seng302team600.payload.OutcomeResponse;
 import com.springvuegradle.seng302team600.repository.ActivityRepository;
@@ -49,12 +50,12 @@ public class OutcomeController {
         Outcome outcome = new Outcome(outcomeRequest);
         OutcomeValidator.validate(outcome);
         String token = request.getHeader("Token");
-        User user = userAuthenticationService.findByToken(token);
+        UserPrincipal principal = userAuthenticationService.authenticate(token);
         Activity activity = activityRepository.findByActivityId(outcome.getActivityId());
         if (activity == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Activity included in outcome not found");
         }
-        if (!activity.getCreatorUserId().equals(user.getUserId()) && !userAuthenticationService.hasAdminPrivileges(user)) {
+        if (!activity.getCreatorUserId().equals(principal.getUserId()) && principal.getRole() < UserRole.ADMIN) {
             throw new ResponseStatusException(
                     HttpStatus.FORBIDDEN, "User is forbidden from creating outcomes for this activity");
         }
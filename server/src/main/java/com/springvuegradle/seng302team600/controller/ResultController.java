@@ -5,6 +5,8 @@ import com.springvuegradle.seng302team600.model.Activity;
 import com.springvuegradle.seng302team600.model.Outcome;
 import com.springvuegradle.seng302team600.model.Result;
 import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.model.UserPrincipal;
+import com.springvuegradle.seng302team600.model.UserRole;
 import com.springvuegradle.seng302team600.payload.ResultRequest;
 import com.springvuegradle.seng302team600.payload.ResultResponse;
 import com.springvuegradle.seng302team600.repository.ActivityParticipantRepository;
@@ -57,7 +59,7 @@ public class ResultController {
                                        HttpServletRequest request, HttpServletResponse response) {
         // Authentication for session User
         String token = request.getHeader("Token");
-        User user = userAuthenticationService.findByToken(token);
+        UserPrincipal principal = userAuthenticationService.authenticate(token);
 
         Outcome outcome = outcomeRepository.findByOutcomeId(outcomeId);
         if (outcome == null) {
@@ -72,7 +74,7 @@ public class ResultController {
 
         // If no userId is given, set userId to this user's ID
         if (result.getUserId() == null) {
-            result.setUserId(user.getUserId());
+            result.setUserId(principal.getUserId());
         }
 
         if (resultRepository.existsByOutcomeAndUserId(outcome, result.getUserId())) {
@@ -90,7 +92,7 @@ public class ResultController {
                     "User is not a participant of this outcome's activity");
         }
 
-        if (!userAuthenticationService.hasAdminPrivileges(user) && !user.getUserId().equals(result.getUserId())) {
+        if (principal.getRole() < UserRole.ADMIN && !principal.getUserId().equals(result.getUserId())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN,
                     "User is Forbidden from adding a result for this user ID");
         }
@@ -120,7 +122,7 @@ public class ResultController {
                                                   HttpServletResponse response) {
         // Authentication for session User
         String token = request.getHeader("Token");
-        userAuthenticationService.findByToken(token);
+        userAuthenticationService.authenticate(token); // Checks that a user is logged in
 
         Outcome outcome = outcomeRepository.findByOutcomeId(outcomeId);
 
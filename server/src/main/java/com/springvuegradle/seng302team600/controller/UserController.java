@@ -13,10 +13,18 @@ import com.springvuegradle.seng302team600.payload.UserRegisterRequest;
 import com.springvuegradle.seng302team600.payload.LoginResponse;
 import com.springvuegradle.seng302team600.payload.UserResponse;
 import com.springvuegradle.seng302team600.repository.*;
+import com.springvuegradle.seng302team600.service.ActivityTypeIndex;
+import com.springvuegradle.seng302team600.service.ActivityTypeRegistry;
 import com.springvuegradle.seng302team600.service.ActivityTypeService;
+import com.springvuegradle.seng302team600.service.ProfileVersionService;
+import com.springvuegradle.seng302team600.service.RegisteredEmailFilter;
+import com.springvuegradle.seng302team600.service.UserActivityTypeIndex;
+import com.springvuegradle.seng302team600.service.UserNameIndex;
+import com.springvuegradle.seng302team600.service.UserResponseAssembler;
 import com.springvuegradle.seng302team600.service.UserAuthenticationService;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
@@ -33,15 +41,25 @@ import java.util.stream.Collectors;
 @RestController
 public class UserController {
 
-    private final UserActivityTypeRepository userActivityTypeRepository;
     private UserAuthenticationService userService;
     private ActivityTypeService activityTypeService;
 
     private final UserRepository userRepository;
     private final EmailRepository emailRepository;
     private final ActivityActivityTypeRepository activityActivityTypeRepository;
-    private final ActivityTypeRepository activityTypeRepository;
+    private final ActivityTypeRegistry activityTypeRegistry;
     private final UserValidator userValidator;
+    private final UserActivityTypeIndex userActivityTypeIndex;
+    private final UserResponseAssembler userResponseAssembler;
+    private final UserNameIndex userNameIndex;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final ProfileVersionService profileVersionService;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    /** Ranked name search keeps offset + limit matches in memory, so deep pages are refused */
+    private static final int MAX_NAME_SEARCH_OFFSET = 10000;
+    private static final String PROFILE_REPRESENTATION = "profile";
 
     private static Log log = LogFactory.getLog(UserController.class);
 
@@ -59,16 +77,22 @@ public class UserController {
     public UserController(UserRepository userRepository, EmailRepository emailRepository,
                           UserAuthenticationService userService, ActivityTypeService activityTypeService,
                           ActivityActivityTypeRepository activityActivityTypeRepository,
-                          UserActivityTypeRepository userActivityTypeRepository,
-                          ActivityTypeRepository activityTypeRepository, UserValidator userValidator) {
+                          UserActivityTypeIndex userActivityTypeIndex, UserResponseAssembler userResponseAssembler,
+                          UserNameIndex userNameIndex, RegisteredEmailFilter registeredEmailFilter,
+                          ProfileVersionService profileVersionService,
+                          ActivityTypeRegistry activityTypeRegistry, UserValidator userValidator) {
         this.userRepository = userRepository;
         this.emailRepository = emailRepository;
         this.userService = userService;
         this.activityTypeService = activityTypeService;
         this.activityActivityTypeRepository = activityActivityTypeRepository;
-        this.activityTypeRepository = activityTypeRepository;
+        this.activityTypeRegistry = activityTypeRegistry;
         this.userValidator = userValidator;
-        this.userActivityTypeRepository = userActivityTypeRepository;
+        this.userActivityTypeIndex = userActivityTypeIndex;
+        this.userResponseAssembler = userResponseAssembler;
+        this.userNameIndex = userNameIndex;
+        this.registeredEmailFilter = registeredEmailFilter;
+        this.profileVersionService = profileVersionService;
     }
 
     /**
@@ -88,7 +112,8 @@ public class UserController {
     }
 
     /**
-     * Return a User saved in the repository if authorized
+     * Return a User saved in the repository if authorized.
+     * The response has the profile's ETag, and a request with a current If-None-Match is answered with a 304
      * @param request the http request to the
      * @param response the http response
      * @return User requested or null
@@ -97,10 +122,15 @@ public class UserController {
     public UserResponse findUserData(HttpServletRequest request,
                              HttpServletResponse response) {
         String token = request.getHeader("Token");
+        Long userId = userService.authenticate(token).getUserId();
+        if (profileVersionService.checkNotModified(request, response, PROFILE_REPRESENTATION, userId)) {
+            return null;
+        }
         User user = userService.findByToken(token);
         user.setTransientEmailStrings();
         //Security breach if password sent to client
         user.setPassword(null);
+        profileVersionService.setETag(response, PROFILE_REPRESENTATION, user.getUserId(), user.getVersion());
         response.setStatus(HttpServletResponse.SC_OK); //200
         return new UserResponse(user);
     }
@@ -113,12 +143,13 @@ public class UserController {
      */
     @GetMapping("/profiles/userId")
     public Long findUserId(HttpServletRequest request, HttpServletResponse response) {
-        UserResponse user = findUserData(request, response);
-        return user.getId();
+        String token = request.getHeader("Token");
+        return userService.authenticate(token).getUserId();
     }
 
     /**
-     * Return a User saved in the repository based on the user id
+     * Return a User saved in the repository based on the user id.
+     * The response has the profile's ETag, and a request with a current If-None-Match is answered with a 304
      * @param request the http request
      * @param response the http response
      * @return User requested or null
@@ -126,15 +157,60 @@ public class UserController {
     @GetMapping("/profiles/{profileId}")
     public UserResponse findSpecificUserData(HttpServletRequest request, HttpServletResponse response, @PathVariable(value = "profileId") Long profileId) {
         String token = request.getHeader("Token");
+        userService.authenticate(token); // Checks that a user is logged in
+        if (profileVersionService.checkNotModified(request, response, PROFILE_REPRESENTATION, profileId)) {
+            return null;
+        }
         User user = userService.viewUserById(profileId, token);
         user.setTransientEmailStrings();
         // Security breach if password is sent to the client
         user.setPassword(null);
-//        user.setToken(null);
+        profileVersionService.setETag(response, PROFILE_REPRESENTATION, user.getUserId(), user.getVersion());
         response.setStatus(HttpServletResponse.SC_OK); //200
         return new UserResponse(user);
     }
 
+    /**
+     * Searches for users by first, last or nick name, for typeahead.  Every word of the query has to match
+     * the start of a name (or anywhere in a name, for words of three or more letters).  Best matches come
+     * first, and the total number of matching users is given in the X-Total-Count header
+     * @param request the http request
+     * @param response the http response
+     * @param query the words to search for
+     * @param limit the largest number of users to return
+     * @param offset the number of matching users to skip
+     * @return the page of matching users
+     */
+    @GetMapping("/profiles/search")
+    public List<UserResponse> searchUsersByName(HttpServletRequest request, HttpServletResponse response,
+                                                @RequestParam(value="q") String query,
+                                                @RequestParam(value="limit", defaultValue="" + DEFAULT_PAGE_SIZE) int limit,
+                                                @RequestParam(value="offset", defaultValue="0") int offset) {
+        String token = request.getHeader("Token");
+        userService.authenticate(token); // Checks that a user is logged in
+        if (query.trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A search query must be given");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE || offset < 0 || offset > MAX_NAME_SEARCH_OFFSET) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and "
+                    + MAX_PAGE_SIZE + " and offset must be between 0 and " + MAX_NAME_SEARCH_OFFSET);
+        }
+        UserNameIndex.Page page = userNameIndex.search(query, offset, limit);
+        response.setHeader("X-Total-Count", String.valueOf(page.getTotal()));
+        // Responses are built in order of id, put them back in order of rank
+        Map<Long, UserResponse> responsesById = new HashMap<>();
+        for (UserResponse userResponse : userResponseAssembler.assemble(page.getUserIds())) {
+            responsesById.put(userResponse.getId(), userResponse);
+        }
+        List<UserResponse> results = new ArrayList<>(page.getUserIds().size());
+        for (Long userId : page.getUserIds()) {
+            if (responsesById.containsKey(userId)) {
+                results.add(responsesById.get(userId));
+            }
+        }
+        return results;
+    }
+
     /**
      * Creates and returns a new User from the requested body
      * @param newUserData payload of request, data to be registered
@@ -142,6 +218,7 @@ public class UserController {
      */
     @PostMapping("/profiles")
     public LoginResponse newUser(@Validated @RequestBody UserRegisterRequest newUserData, HttpServletResponse response) {
+        // Checked in the database, the RegisteredEmailFilter may not know of an address registered on another node
         if (emailRepository.existsEmailByEmail(newUserData.getPrimaryEmail())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Email: " + newUserData.getPrimaryEmail() + " is already registered"); //409. It may be worth consider to a 200 error for security reasons
         }
@@ -161,8 +238,12 @@ public class UserController {
         //Saving generates user id
         //If mandatory fields not given, exception in UserRepository.save ends function execution and makes response body
         //Gives request status:400 and specifies needed field if null in required field
-        userRepository.save(newUser);
-        LoginResponse loginResponse = userService.login(newUserData.getPrimaryEmail(), newUserData.getPassword());
+        newUser = userRepository.save(newUser);
+        registeredEmailFilter.add(newUserData.getPrimaryEmail());
+        userActivityTypeIndex.update(newUser.getUserId(), newUser.getActivityTypes());
+        userNameIndex.update(newUser.getUserId(), newUser.getFirstName(), newUser.getLastName(), newUser.getNickName());
+        // The user is saved by now, so the session is started directly rather than through the login throttle
+        LoginResponse loginResponse = userService.startSession(new UserPrincipal(newUser.getUserId(), newUser.getRole()));
         response.setStatus(HttpServletResponse.SC_CREATED); //201
         return loginResponse;
     }
@@ -240,6 +321,7 @@ public class UserController {
 
         user.setPassword(newPassword);
         userRepository.save(user);
+        userService.revokeOtherSessions(user.getUserId(), token);
         response.setStatus(HttpServletResponse.SC_OK); //200
     }
 
@@ -260,6 +342,7 @@ public class UserController {
 
         // Check if user has admin privileges
         User user = userService.findByUserId(token, profileId);   // Get the user to modify
+        int previousRole = user.getRole();
         //Remove fields that should not be modified here
         ObjectNode modData = nodeMapper.readValue(jsonEditProfileString, ObjectNode.class);
         modData.remove("primary_email");
@@ -278,6 +361,10 @@ public class UserController {
         );
 
         userRepository.save(modUser);
+        userActivityTypeIndex.update(modUser.getUserId(), modUser.getActivityTypes());
+        userNameIndex.update(modUser.getUserId(), modUser.getFirstName(), modUser.getLastName(), modUser.getNickName());
+        // The user's role may have changed
+        userService.refreshSessions(modUser, previousRole);
         response.setStatus(HttpServletResponse.SC_OK); //200
     }
 
@@ -311,10 +398,10 @@ public class UserController {
         //user must be logged in
         try {
             String token = request.getHeader("Token");
-            if (!userService.findByToken(token).getUserId().equals(profileId)) {
+            User user = userService.findByToken(token);
+            if (!user.getUserId().equals(profileId)) {
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid user, unauthorized to edit this data");
             }
-            User user = userService.findByUserId(token, profileId);
             ObjectMapper nodeMapper = new ObjectMapper();
             ObjectNode editedData = nodeMapper.readValue(jsonUserEditString, ObjectNode.class);
             JsonNode activityTypesNode = editedData.get("activities");
@@ -324,6 +411,7 @@ public class UserController {
             }
             user.setActivityTypes(activityTypeService.getMatchingEntitiesFromRepository(activityTypes));
             userRepository.save(user);
+            userActivityTypeIndex.update(user.getUserId(), user.getActivityTypes());
         } catch(Exception e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid user id, user not found");
         }
@@ -355,24 +443,35 @@ public class UserController {
             method = RequestMethod.GET
     )
     /**
-     * Returns a list of users having activity types attributed to their profiles
+     * Returns a page of users having activity types attributed to their profiles, in order of user id
      * Either using AND so all provided activity types MUST be included in returned user or
      * OR where one or more can be related to a user
+     * The total number of matching users is given in the X-Total-Count header.  If there are more users,
+     * the X-Next-Cursor header gives the value of after for the next page
      * @param activity the list of activity types
      * @param method the method to use (OR, AND)
+     * @param limit the largest number of users to return
+     * @param after the id of the last user of the previous page, omitted for the first page
      * @return a list of users
      */
     public List<UserResponse> getUsersByActivityType(HttpServletRequest request,
                                                      HttpServletResponse response,
                                                      @RequestParam(value="activity") String activityTypes,
-                                                     @RequestParam(value="method") String method) {
+                                                     @RequestParam(value="method") String method,
+                                                     @RequestParam(value="limit", defaultValue="" + DEFAULT_PAGE_SIZE) int limit,
+                                                     @RequestParam(value="after", required=false) Long after) {
         String token = request.getHeader("Token");
-        // User validation
-        userService.findByToken(token);
+        userService.authenticate(token); // Checks that a user is logged in
 
         if (activityTypes.length() < 1) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Activity Types must be specified");
         }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (after != null && (after < 0 || after > Integer.MAX_VALUE)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "After must be a user id");
+        }
 
         // Separate ActivityType names into a List
         List<String> typesWithDashes = Arrays.asList(activityTypes.split(" "));
@@ -384,27 +483,28 @@ public class UserController {
 
 
         //Need to get the activityTypeIds from the names
-        List<Long> activityTypeIds = activityTypeRepository.findActivityTypeIdsByNames(types);
-        int numActivityTypes = activityTypeIds.size();
-        List<Long> userIds;
+        List<Long> activityTypeIds = activityTypeRegistry.findIdsByNames(types);
+        RoaringBitmap users;
         if (method.toLowerCase().equals("and")) {
-             userIds = userActivityTypeRepository.findByAllActivityTypeIds(activityTypeIds, numActivityTypes); //Gets the userIds
+            // Nobody can have an activity type that doesn't exist
+            long distinctTypes = types.stream().map(type -> type.toLowerCase(Locale.ROOT)).distinct().count();
+            users = activityTypeIds.size() < distinctTypes ? new RoaringBitmap()
+                    : userActivityTypeIndex.findWithAll(activityTypeIds);
         } else if (method.toLowerCase().equals("or")) {
-            userIds = userActivityTypeRepository.findBySomeActivityTypeIds(activityTypeIds); //Gets the userIds
+            users = userActivityTypeIndex.findWithAny(activityTypeIds);
         } else {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Method must be specified as either (AND, OR)");
         }
-        //Change the user objects list to a list of userResponse payloads
-        List<User> userList =  userRepository.getUsersByIds(userIds);
-        if (userList.isEmpty()) {
+        if (users.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No users have been found");
         }
-        List<UserResponse> userSearchList = new ArrayList<>();
-        for (User user : userList) {
-            user.setTransientEmailStrings();
-            userSearchList.add(new UserResponse(user));
+        response.setHeader("X-Total-Count", String.valueOf(users.getLongCardinality()));
+        List<Long> userIds = ActivityTypeIndex.page(users, after, limit);
+        if (!userIds.isEmpty() && ActivityTypeIndex.hasAfter(users, userIds.get(userIds.size() - 1))) {
+            response.setHeader("X-Next-Cursor", String.valueOf(userIds.get(userIds.size() - 1)));
         }
-        return userSearchList;
+        // Only the page's users are read, as UserResponse projections
+        return userResponseAssembler.assemble(userIds);
     }
 }
 
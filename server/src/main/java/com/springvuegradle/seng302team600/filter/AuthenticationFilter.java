@@ -0,0 +1,32 @@
+package com.springvuegradle.seng302team600.filter;
+
+import com.springvuegradle.seng302team600.service.RequestAuthentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Attaches a RequestAuthentication for the Token header of each request, before it reaches a controller.
+ * The token isn't looked up here, UserAuthenticationService authenticates it the first time the controller
+ * asks who is logged in and reuses the outcome for the rest of the request.  So public endpoints cost nothing
+ * extra when a client sends its token with every request.  Requests are never rejected here, the controllers
+ * decide whether they need a logged in user.
+ */
+@Component
+public class AuthenticationFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String token = request.getHeader("Token");
+        if (token != null) {
+            request.setAttribute(RequestAuthentication.ATTRIBUTE, RequestAuthentication.of(token));
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -1,6 +1,7 @@
 package com.springvuegradle.seng302team600.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import javax.persistence.*;
@@ -8,6 +9,7 @@ import javax.validation.constraints.NotNull;
 import java.util.*;
 
 @Entity
+@Table(indexes = @Index(name = "activity_creator_user_id_index", columnList = "creatorUserId"))
 public class Activity {
 
     final static private int NAME_LEN = 75;
@@ -33,7 +35,8 @@ public class Activity {
     private String description;
 
     @NotNull(message = "This Activity needs one or more ActivityTypes associated with it")
-    @ManyToMany(cascade = {CascadeType.DETACH, CascadeType.MERGE, CascadeType.PERSIST, CascadeType.REFRESH})  // ALL except REMOVE
+    // ActivityTypes come from the ActivityTypeRegistry detached, they are only referenced and never persisted or merged
+    @ManyToMany(cascade = {CascadeType.DETACH, CascadeType.REFRESH})
     @JoinTable(
             name = "activity_activity_type",
             joinColumns = @JoinColumn(name = "activity_id"),
@@ -41,6 +44,11 @@ public class Activity {
     @JsonProperty("activity_type")
     private Set<ActivityType> activityTypes;
 
+    // The activityTypes as a bitmask, kept in step by setActivityTypes
+    @Embedded
+    @JsonIgnore
+    private ActivityTypeMask activityTypeMask;
+
     @ManyToMany(cascade = {CascadeType.DETACH, CascadeType.MERGE, CascadeType.PERSIST, CascadeType.REFRESH})  // ALL except REMOVE
     @JoinTable(
             name = "activity_participant",
@@ -113,6 +121,11 @@ public class Activity {
 
     public void setActivityTypes(Set<ActivityType> activityTypes) {
         this.activityTypes = activityTypes;
+        this.activityTypeMask = ActivityTypeMask.of(activityTypes);
+    }
+
+    public ActivityTypeMask getActivityTypeMask() {
+        return activityTypeMask;
     }
 
     public boolean isContinuous() {
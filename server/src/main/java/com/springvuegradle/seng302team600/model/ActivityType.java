@@ -1,5 +1,6 @@
 package com.springvuegradle.seng302team600.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.boot.context.properties.ConstructorBinding;
 
 import javax.persistence.*;
@@ -25,6 +26,11 @@ public class ActivityType {
     @Column(name = "name", nullable = false, unique = true)
     private String name;
 
+    // Dense position 0..N of the type in an ActivityTypeMask, assigned once when the type is saved and never changed
+    @Column(name = "ordinal", unique = true)
+    @JsonIgnore
+    private Integer ordinal;
+
     public ActivityType(String name) {
         this.name = name;
     }
@@ -50,6 +56,14 @@ public class ActivityType {
         this.activityTypeId = activityTypeId;
     }
 
+    public Integer getOrdinal() {
+        return ordinal;
+    }
+
+    public void setOrdinal(Integer ordinal) {
+        this.ordinal = ordinal;
+    }
+
     @Override
     public boolean equals(final Object obj) {
         if (obj instanceof ActivityType) {
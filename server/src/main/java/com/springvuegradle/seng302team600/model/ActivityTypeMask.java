@@ -0,0 +1,130 @@
+package com.springvuegradle.seng302team600.model;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A set of ActivityTypes as a bitmask, bit n is set if the set has the ActivityType with ordinal n.
+ * Activities keep one next to their activity type join table, so GET /activities can filter on activity types
+ * with bitwise operations instead of joins and group bys.  Users keep no mask, they are looked up by activity
+ * type through the UserActivityTypeIndex.  Two columns of 64 bits hold up to MAX_ACTIVITY_TYPES activity types.
+ * Immutable.
+ */
+@Embeddable
+public class ActivityTypeMask {
+
+    public static final int MAX_ACTIVITY_TYPES = 2 * Long.SIZE;
+
+    public static final ActivityTypeMask EMPTY = new ActivityTypeMask(0L, 0L);
+
+    // Ordinals 0 to 63
+    @Column(name = "activity_type_mask_low")
+    private Long low;
+
+    // Ordinals 64 to 127
+    @Column(name = "activity_type_mask_high")
+    private Long high;
+
+    /**
+     * Default constructor mandatory for repository actions.
+     */
+    protected ActivityTypeMask() {}
+
+    public ActivityTypeMask(long low, long high) {
+        this.low = low;
+        this.high = high;
+    }
+
+    /**
+     * Makes the mask of a set of ActivityTypes.  ActivityTypes without an ordinal (which haven't come from the
+     * database) are left out.
+     * @param activityTypes the ActivityTypes, null for none
+     * @return the mask
+     */
+    public static ActivityTypeMask of(Collection<ActivityType> activityTypes) {
+        if (activityTypes == null || activityTypes.isEmpty()) {
+            return EMPTY;
+        }
+        ActivityTypeMask mask = EMPTY;
+        for (ActivityType activityType : activityTypes) {
+            if (activityType.getOrdinal() != null) {
+                mask = mask.with(activityType.getOrdinal());
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @param ordinal the ordinal of an ActivityType
+     * @return this set with the ActivityType added
+     */
+    public ActivityTypeMask with(int ordinal) {
+        if (ordinal < 0 || ordinal >= MAX_ACTIVITY_TYPES) {
+            throw new IllegalArgumentException("Activity type ordinal out of range: " + ordinal);
+        }
+        return ordinal < Long.SIZE ? new ActivityTypeMask(getLow() | 1L << ordinal, getHigh())
+                : new ActivityTypeMask(getLow(), getHigh() | 1L << (ordinal - Long.SIZE));
+    }
+
+    /**
+     * @param ordinal the ordinal of an ActivityType
+     * @return true if the ActivityType is in the set
+     */
+    public boolean contains(int ordinal) {
+        return ordinal < Long.SIZE ? (getLow() & (1L << ordinal)) != 0
+                : (getHigh() & (1L << (ordinal - Long.SIZE))) != 0;
+    }
+
+    /**
+     * @param other another set of ActivityTypes
+     * @return true if this set has every ActivityType of the other
+     */
+    public boolean containsAll(ActivityTypeMask other) {
+        return (getLow() & other.getLow()) == other.getLow() && (getHigh() & other.getHigh()) == other.getHigh();
+    }
+
+    /**
+     * @param other another set of ActivityTypes
+     * @return true if this set has any ActivityType of the other
+     */
+    public boolean containsAny(ActivityTypeMask other) {
+        return (getLow() & other.getLow()) != 0 || (getHigh() & other.getHigh()) != 0;
+    }
+
+    public boolean isEmpty() {
+        return getLow() == 0 && getHigh() == 0;
+    }
+
+    public int size() {
+        return Long.bitCount(getLow()) + Long.bitCount(getHigh());
+    }
+
+    public long getLow() {
+        return low == null ? 0L : low;
+    }
+
+    public long getHigh() {
+        return high == null ? 0L : high;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof ActivityTypeMask) {
+            ActivityTypeMask other = (ActivityTypeMask) obj;
+            return getLow() == other.getLow() && getHigh() == other.getHigh();
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getLow(), getHigh());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ActivityTypeMask{high=%016x, low=%016x}", getHigh(), getLow());
+    }
+}
@@ -1,11 +1,16 @@
 package com.springvuegradle.seng302team600.model;
 
-import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
+import com.springvuegradle.seng302team600.repository.SeedChecksumRepository;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -16,8 +21,22 @@ import java.util.*;
 @ConfigurationProperties("static")
 public class ActivityTypeProperties implements CommandLineRunner {
 
+    private static Log log = LogFactory.getLog(ActivityTypeProperties.class);
+
+    private static final String SEED = "activity_types.yml";
+
+    // Keyed on the unique name, names compare as the unique constraint does (without case on MariaDB)
+    private static final String INSERT_IF_ABSENT = "INSERT INTO activity_type (name) SELECT ? FROM dual " +
+            "WHERE NOT EXISTS (SELECT 1 FROM activity_type WHERE name = ?)";
+    private static final String SELECT_ORDINALS =
+            "SELECT activity_type_id, ordinal FROM activity_type ORDER BY activity_type_id";
+    private static final String UPDATE_ORDINAL = "UPDATE activity_type SET ordinal = ? WHERE activity_type_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Autowired
-    private ActivityTypeRepository activityTypeRepository;
+    private SeedChecksumRepository seedChecksumRepository;
 
     private final List<ActivityType> activityTypes;
 
@@ -40,17 +59,72 @@ public class ActivityTypeProperties implements CommandLineRunner {
 
 
     /**
-     * Populates the activity_type table on application start.  Only adds an ActivityType if it doesn't already exist.
+     * Populates the activity_type table on application start.  Only adds an ActivityType if it doesn't already exist,
+     * all of them in one batch, then gives every ActivityType without an ordinal the next free one.
+     * Seeding is skipped if activity_types.yml hasn't changed since it was last seeded.  The checksum is only saved
+     * once seeding has finished, so an interrupted seeding is run again on the next start.
      */
     @Override
     public void run(String...args) {
-        // Should find a better way to do this, like making ActivityType.name a primary key?
-        Set<ActivityType> activityTypesInRepo = new HashSet<>(activityTypeRepository.findAll());
+        long start = System.currentTimeMillis();
+        String checksum = checksum();
+        Optional<SeedChecksum> seeded = seedChecksumRepository.findById(SEED);
+        if (seeded.isPresent() && seeded.get().getChecksum().equals(checksum)) {
+            log.info(String.format("activity_types.yml is unchanged, skipped seeding activity types in %d ms",
+                    System.currentTimeMillis() - start));
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(activityTypes.size());
         for (ActivityType activityType: getSortedActivityTypes()) {
-            if (!activityTypesInRepo.contains(activityType)) {
-                activityTypeRepository.save(activityType);
+            rows.add(new Object[]{activityType.getName(), activityType.getName()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, rows);
+        int added = assignOrdinals();
+        seedChecksumRepository.save(new SeedChecksum(SEED, checksum));
+        log.info(String.format("Seeded %d activity types (%d new) from activity_types.yml in %d ms",
+                activityTypes.size(), added, System.currentTimeMillis() - start));
+    }
+
+    /**
+     * @return a checksum of the activity type names in activity_types.yml, in the order they are in the file
+     */
+    private String checksum() {
+        StringBuilder names = new StringBuilder();
+        for (ActivityType activityType: activityTypes) {
+            names.append(activityType.getName()).append('\n');
+        }
+        return DigestUtils.md5DigestAsHex(names.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Numbers ActivityTypes without an ordinal on from the highest ordinal given so far, in the order they were saved.
+     * Ordinals are kept in activities' ActivityTypeMasks, so one is never changed once it is given.  Users keep no
+     * mask, their activity types are looked up through the UserActivityTypeIndex.
+     * @return the number of ActivityTypes numbered
+     */
+    private int assignOrdinals() {
+        List<Long> unnumbered = new ArrayList<>();
+        int[] nextOrdinal = {0};
+        jdbcTemplate.query(SELECT_ORDINALS, resultSet -> {
+            int ordinal = resultSet.getInt("ordinal");
+            if (resultSet.wasNull()) {
+                unnumbered.add(resultSet.getLong("activity_type_id"));
+            } else {
+                nextOrdinal[0] = Math.max(nextOrdinal[0], ordinal + 1);
             }
+        });
+        List<Object[]> rows = new ArrayList<>(unnumbered.size());
+        for (Long activityTypeId: unnumbered) {
+            if (nextOrdinal[0] >= ActivityTypeMask.MAX_ACTIVITY_TYPES) {
+                throw new IllegalStateException("There are more than " + ActivityTypeMask.MAX_ACTIVITY_TYPES +
+                        " activity types, ActivityTypeMask needs another column");
+            }
+            rows.add(new Object[]{nextOrdinal[0]++, activityTypeId});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_ORDINAL, rows);
         }
+        return rows.size();
     }
 
 }
\ No newline at end of file
@@ -11,7 +11,7 @@ import javax.persistence.*;
  * Ensures that there is always a primary email and no more than MAX_EMAILS - 1 secondary emails.
  * */
 @Entity
-@Table(name = "email")
+@Table(name = "email", indexes = @Index(name = "email_email_index", columnList = "email"))
 public class Email {
 
     @Id
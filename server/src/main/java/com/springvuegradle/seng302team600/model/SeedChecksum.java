@@ -0,0 +1,40 @@
+package com.springvuegradle.seng302team600.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The checksum of the data last seeded from a file, such as activity_types.yml, so a restart with an unchanged
+ * file can skip seeding.
+ */
+@Entity
+@Table(name = "seed_checksum")
+public class SeedChecksum {
+
+    @Id
+    @Column(name = "seed", length = 64, nullable = false)
+    private String seed;
+
+    @Column(name = "checksum", length = 64, nullable = false)
+    private String checksum;
+
+    /**
+     * Default constructor mandatory for repository actions.
+     */
+    protected SeedChecksum() {}
+
+    public SeedChecksum(String seed, String checksum) {
+        this.seed = seed;
+        this.checksum = checksum;
+    }
+
+    public String getSeed() {
+        return seed;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+}
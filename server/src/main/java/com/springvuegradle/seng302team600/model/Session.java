@@ -0,0 +1,145 @@
+package com.springvuegradle.seng302team600.model;
+
+import javax.persistence.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+
+/**
+ * A logged in session of a user.  A user can have several sessions at once, one per login.
+ * Only a SHA-256 hash of the token is stored, so a leaked session table can't be used to log in.
+ * The session holds the user's role so that authenticating a request only needs this row.
+ */
+@Entity
+@Table(name = "session", indexes = {
+        @Index(name = "session_token_hash_index", columnList = "token_hash", unique = true),
+        @Index(name = "session_user_id_index", columnList = "user_id")
+})
+public class Session {
+
+    private static int tokenDecayTime = 30000 * 30; // 15 minutes (30 sec * 30 = 15 mins)
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "session_id", nullable = false)
+    private Long sessionId;
+
+    @Column(name = "token_hash", length = 64, nullable = false)
+    private String tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "role", nullable = false)
+    private int role;
+
+    @Column(name = "created", nullable = false)
+    private Date created;
+
+    @Column(name = "last_seen", nullable = false)
+    private Date lastSeen;
+
+    /**
+     * Default constructor for Session.
+     * Mandatory for repository actions.
+     */
+    public Session() {}
+
+    /**
+     * Starts a new session for a user.
+     * @param token the token given to the client, only its hash is kept
+     * @param user the user logging in
+     */
+    public Session(String token, User user) {
+        this(token, new UserPrincipal(user.getUserId(), user.getRole()));
+    }
+
+    /**
+     * Starts a new session for a user, without needing the User itself.
+     * @param token the token given to the client, only its hash is kept
+     * @param principal the id and role of the user logging in
+     */
+    public Session(String token, UserPrincipal principal) {
+        this.tokenHash = hashToken(token);
+        this.userId = principal.getUserId();
+        this.role = principal.getRole();
+        this.created = new Date();
+        this.lastSeen = this.created;
+    }
+
+    /**
+     * Hashes a token the way it is stored in the session table.
+     * @param token the token given to the client
+     * @return the hex encoded SHA-256 hash of the token
+     */
+    public static String hashToken(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Gets the time a session can go unused before it times out.
+     * @return the token decay time in milliseconds
+     */
+    public static int getTokenDecayTime() {
+        return tokenDecayTime;
+    }
+
+    public boolean isTimedOut() {
+        return isTimedOut(0);
+    }
+
+    /**
+     * Checks if the session has timed out, allowing for the last seen time being written late.
+     * @param slack how long in milliseconds the stored last seen time may lag behind the last use of the token
+     * @return true if the session has not been used within the token decay time plus the slack
+     */
+    public boolean isTimedOut(long slack) {
+        long diff = new Date().getTime() - lastSeen.getTime();
+        return diff >= tokenDecayTime + slack || diff < 0;
+    }
+
+    public UserPrincipal getPrincipal() {
+        return new UserPrincipal(userId, role);
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getRole() {
+        return role;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public Date getLastSeen() {
+        return lastSeen;
+    }
+
+    public void setLastSeen(Date lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+}
@@ -0,0 +1,89 @@
+package com.springvuegradle.seng302team600.model;
+
+import javax.persistence.*;
+
+/**
+ * A revocation of signed session tokens, either a single logged out token or every token a user was issued
+ * before a time.  Revocations are shared through this table so that every node rejects the same tokens.
+ * A row is dropped once the tokens it revokes would have expired anyway.
+ */
+@Entity
+@Table(name = "token_revocation", indexes = {
+        @Index(name = "token_revocation_revoked_at_index", columnList = "revoked_at"),
+        @Index(name = "token_revocation_expires_at_index", columnList = "expires_at")
+})
+public class TokenRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "revocation_id", nullable = false)
+    private Long revocationId;
+
+    /** The id of the revoked token, or null if every token of the user is revoked */
+    @Column(name = "token_id", length = 32)
+    private String tokenId;
+
+    /** The id of the user whose tokens are revoked, or null if a single token is revoked */
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "revoked_at", nullable = false)
+    private long revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    /**
+     * Default constructor mandatory for repository actions.
+     */
+    protected TokenRevocation() {}
+
+    private TokenRevocation(String tokenId, Long userId, long revokedAt, long expiresAt) {
+        this.tokenId = tokenId;
+        this.userId = userId;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Revokes a single token.
+     * @param tokenId the id of the token
+     * @param revokedAt the time of the revocation, in milliseconds
+     * @param expiresAt the time the token expires, in milliseconds
+     * @return the revocation
+     */
+    public static TokenRevocation ofToken(String tokenId, long revokedAt, long expiresAt) {
+        return new TokenRevocation(tokenId, null, revokedAt, expiresAt);
+    }
+
+    /**
+     * Revokes every token a user was issued up until a time.
+     * @param userId the id of the user
+     * @param revokedAt the time of the revocation, in milliseconds
+     * @param expiresAt the time the last of the revoked tokens expires, in milliseconds
+     * @return the revocation
+     */
+    public static TokenRevocation ofUser(Long userId, long revokedAt, long expiresAt) {
+        return new TokenRevocation(null, userId, revokedAt, expiresAt);
+    }
+
+    public Long getRevocationId() {
+        return revocationId;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getRevokedAt() {
+        return revokedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
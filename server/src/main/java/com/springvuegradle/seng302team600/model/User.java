@@ -1,6 +1,7 @@
 package com.springvuegradle.seng302team600.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.springvuegradle.seng302team600.payload.UserRegisterRequest;
@@ -20,9 +21,7 @@ public class User {
 
     private static Log log = LogFactory.getLog(User.class);
 
-    private static PasswordEncoder encoder = new BCryptPasswordEncoder();
-
-    private static int tokenDecayTime = 30000 * 30; // 30 minutes (30 sec * 30 mins = 15 mins)
+    private static volatile PasswordEncoder encoder = new BCryptPasswordEncoder();
 
     final static public int MAX_EMAILS = 5;
 
@@ -34,16 +33,17 @@ public class User {
     @JsonProperty("id")
     private Long userId;
 
+    // Incremented by Hibernate on every change to the user or their collections, the ETag of their profile
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    @JsonIgnore
+    private long version;
+
     @NotNull(message = "This user needs a role")
     @Column(name = "role", nullable = false)
     @JsonProperty("role")
     protected int role;
 
-    private String token;
-
-    @Column(name = "token_time")
-    private Date tokenTime;
-
     @NotNull(message = "Please provide a first name")
     @Column(name = "first_name", length = FIELD_LEN, nullable = false)
     @JsonProperty("firstname")
@@ -108,7 +108,8 @@ public class User {
     @JsonProperty("passports")
     private List<String> passports;
 
-    @ManyToMany(cascade = {CascadeType.DETACH, CascadeType.MERGE, CascadeType.PERSIST, CascadeType.REFRESH})  // ALL except REMOVE
+    // ActivityTypes come from the ActivityTypeRegistry detached, they are only referenced and never persisted or merged
+    @ManyToMany(cascade = {CascadeType.DETACH, CascadeType.REFRESH})
     @JoinTable(
             name = "user_activity_type",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -175,27 +176,10 @@ public class User {
         return userId;
     }
 
-
-    public String getToken() {
-        return token;
-    }
-
-    public void setToken(String token) {
-        this.token = token;
-    }
-
-    public boolean isTimedOut() {
-        ///time calculated in milliseconds
-        if (this.tokenTime != null) {
-            Date now = new Date();
-            long diff = now.getTime() - tokenTime.getTime();
-            return diff >= tokenDecayTime || diff < 0;
-        } else return true; //Default to the user being timed out
+    public long getVersion() {
+        return version;
     }
 
-    public void setTokenTime() {
-        this.tokenTime = new Date();
-    }
 
     public String getFirstName() {
         return firstName;
@@ -384,8 +368,26 @@ public class User {
         }
     }
 
+    /**
+     * Replaces the encoder used to hash and check passwords, the PasswordHashingExecutor installs itself on startup.
+     * @param passwordEncoder the encoder
+     */
+    public static void setPasswordEncoder(PasswordEncoder passwordEncoder) {
+        encoder = passwordEncoder;
+    }
+
     public boolean checkPassword(String password) {
-        return encoder.matches(password, this.password);
+        return passwordMatches(password, this.password);
+    }
+
+    /**
+     * Checks a password against a password hash, for when the hash is loaded without its User.
+     * @param password the password given
+     * @param passwordHash the user's stored password hash
+     * @return true if the password matches
+     */
+    static boolean passwordMatches(String password, String passwordHash) {
+        return encoder.matches(password, passwordHash);
     }
 
     public void setPassword(String password) {
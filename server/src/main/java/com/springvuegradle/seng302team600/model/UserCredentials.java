@@ -0,0 +1,33 @@
+package com.springvuegradle.seng302team600.model;
+
+/**
+ * The parts of a user needed to log them in, loaded by email without loading the User or its emails.
+ */
+public class UserCredentials {
+
+    private final Long userId;
+    private final String passwordHash;
+    private final int role;
+
+    public UserCredentials(Long userId, String passwordHash, int role) {
+        this.userId = userId;
+        this.passwordHash = passwordHash;
+        this.role = role;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getRole() {
+        return role;
+    }
+
+    public boolean checkPassword(String password) {
+        return User.passwordMatches(password, passwordHash);
+    }
+
+    public UserPrincipal getPrincipal() {
+        return new UserPrincipal(userId, role);
+    }
+}
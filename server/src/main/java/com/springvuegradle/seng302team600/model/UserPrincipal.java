@@ -0,0 +1,29 @@
+package com.springvuegradle.seng302team600.model;
+
+/**
+ * The identity of a logged in user, as needed to authorize a request.
+ * Immutable, so it can be shared between threads and cached without loading the User it belongs to.
+ */
+public class UserPrincipal {
+
+    private final Long userId;
+    private final int role;
+
+    public UserPrincipal(Long userId, int role) {
+        this.userId = userId;
+        this.role = role;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getRole() {
+        return role;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UserPrincipal{userId=%d, role=%d}", userId, role);
+    }
+}
@@ -6,6 +6,7 @@ import com.springvuegradle.seng302team600.model.Activity;
 import com.springvuegradle.seng302team600.model.ActivityType;
 
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Set;
 
 public class ActivityResponse {
@@ -52,4 +53,29 @@ public class ActivityResponse {
         endTime = activity.getEndTime();
         location = activity.getLocation();
     }
+
+    /**
+     * Creates a response from the scalar fields of an activity, selected by a projection query so the Activity
+     * isn't loaded.  Activity types are filled in separately.
+     */
+    public ActivityResponse(Long activityId, Long creatorUserId, String name, String description, boolean continuous,
+                            Date startTime, Date endTime, String location) {
+        this.activityId = activityId;
+        this.creatorUserId = creatorUserId;
+        this.name = name;
+        this.description = description;
+        this.continuous = continuous;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.location = location;
+        this.activityTypes = new HashSet<>();
+    }
+
+    public Long getActivityId() {
+        return activityId;
+    }
+
+    public Set<ActivityType> getActivityTypes() {
+        return activityTypes;
+    }
 }
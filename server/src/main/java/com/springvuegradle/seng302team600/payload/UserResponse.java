@@ -7,6 +7,7 @@ import com.springvuegradle.seng302team600.model.User;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -79,6 +80,26 @@ public class UserResponse {
         this.role = user.getRole();
     }
 
+    /**
+     * Creates a response from the scalar fields of a user, selected by a projection query so the User isn't loaded.
+     * Emails, passports and activity types are filled in separately.
+     */
+    public UserResponse(Long id, String firstName, String middleName, String lastName, String nickName,
+                        String bio, Date dateOfBirth, User.Gender gender, int fitnessLevel, int role) {
+        this.id = id;
+        this.firstName = firstName;
+        this.middleName = middleName;
+        this.lastName = lastName;
+        this.nickName = nickName;
+        this.bio = bio;
+        this.dateOfBirth = dateOfBirth;
+        this.gender = gender;
+        this.fitnessLevel = fitnessLevel;
+        this.role = role;
+        this.passports = new ArrayList<>();
+        this.activityTypes = new HashSet<>();
+    }
+
     public UserResponse() {}
 
     public String getLastName() {
@@ -103,6 +124,8 @@ public class UserResponse {
 
     public List<String> getAdditionalEmails() { return additionalEmails; }
 
+    public void setPrimaryEmail(String primaryEmail) { this.primaryEmail = primaryEmail; }
+
     public Set<ActivityType> getActivityTypes() {
         return activityTypes;
     }
@@ -1,12 +1,15 @@
 package com.springvuegradle.seng302team600.repository;
 
 import com.springvuegradle.seng302team600.model.Activity;
-import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.payload.ActivityResponse;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 
+import java.util.Collection;
 import java.util.List;
 
 @RepositoryRestResource
@@ -22,4 +25,33 @@ public interface ActivityRepository extends JpaRepository<Activity, Long> {
     List<Activity> findAllByUserId(Long userId);
 
     List<Activity> findActivityByActivityIdIn(List<Long> activityIds);
+
+    // Selects only the columns an ActivityResponse needs, the activities themselves are never loaded
+    @RestResource(exported = false)
+    @Query("SELECT new com.springvuegradle.seng302team600.payload.ActivityResponse(a.activityId, a.creatorUserId, " +
+            "a.name, a.description, a.continuous, a.startTime, a.endTime, a.location) " +
+            "FROM Activity a WHERE a.activityId IN :activityIds ORDER BY a.activityId")
+    List<ActivityResponse> findActivityResponsesByIds(@Param("activityIds") Collection<Long> activityIds);
+
+    // Pairs of activity id and ActivityType
+    @RestResource(exported = false)
+    @Query("SELECT a.activityId, t FROM Activity a JOIN a.activityTypes t WHERE a.activityId IN :activityIds")
+    List<Object[]> findActivityTypesByActivityIds(@Param("activityIds") Collection<Long> activityIds);
+
+    // The ids of activities after an activity id in order, each with whether the activity has every activity type
+    // of the mask.  Other filters left null match every activity, and an empty mask matches every activity without
+    // being checked (so an activity whose mask is yet to be filled in by the ActivityTypeMaskBackfill is still
+    // listed).  No index can serve the mask, so it is checked on the rows read rather than used to find them, and
+    // the rows read are bounded by the Pageable, which must be for its first page
+    @RestResource(exported = false)
+    @Query("SELECT a.activityId, CASE WHEN (:low = 0 AND :high = 0) OR " +
+            "(bitand(a.activityTypeMask.low, :low) = :low AND bitand(a.activityTypeMask.high, :high) = :high) " +
+            "THEN true ELSE false END " +
+            "FROM Activity a WHERE a.activityId > :after " +
+            "AND (:creatorUserId IS NULL OR a.creatorUserId = :creatorUserId) " +
+            "AND (:continuous IS NULL OR a.continuous = :continuous) " +
+            "ORDER BY a.activityId")
+    List<Object[]> findPage(@Param("after") long after, @Param("creatorUserId") Long creatorUserId,
+                            @Param("continuous") Boolean continuous, @Param("low") long low, @Param("high") long high,
+                            Pageable pageable);
 }
@@ -0,0 +1,17 @@
+package com.springvuegradle.seng302team600.repository;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.function.StandardSQLFunction;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * The H2 dialect with its bitand function returning a long, as BitwiseMariaDBDialect's does.  H2Dialect's returns
+ * an integer, which makes Hibernate bind the mask parameters compared with it as integers.
+ */
+public class BitwiseH2Dialect extends H2Dialect {
+
+    public BitwiseH2Dialect() {
+        super();
+        registerFunction("bitand", new StandardSQLFunction("bitand", StandardBasicTypes.LONG));
+    }
+}
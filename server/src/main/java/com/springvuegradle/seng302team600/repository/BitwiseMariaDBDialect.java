@@ -0,0 +1,18 @@
+package com.springvuegradle.seng302team600.repository;
+
+import org.hibernate.dialect.MariaDBDialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * The MariaDB dialect with a bitand function, as BitwiseH2Dialect has, so queries on ActivityTypeMask
+ * columns run on both databases.
+ * MariaDB's & is unsigned, the result is cast back to signed so it can be compared with the signed mask columns.
+ */
+public class BitwiseMariaDBDialect extends MariaDBDialect {
+
+    public BitwiseMariaDBDialect() {
+        super();
+        registerFunction("bitand", new SQLFunctionTemplate(StandardBasicTypes.LONG, "cast((?1 & ?2) as signed)"));
+    }
+}
@@ -2,7 +2,13 @@ package com.springvuegradle.seng302team600.repository;
 
 import com.springvuegradle.seng302team600.model.Email;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+
+import java.util.Collection;
+import java.util.List;
 
 @RepositoryRestResource
 public interface EmailRepository extends JpaRepository<Email, Long> {
@@ -10,4 +16,14 @@ public interface EmailRepository extends JpaRepository<Email, Long> {
     Email findByEmail(String email);
 
     boolean existsEmailByEmail(String email);
+
+    // Whichever of the given addresses are registered, checked in one query
+    @RestResource(exported = false)
+    @Query("SELECT e.email FROM Email e WHERE e.email IN :emails")
+    List<String> findRegisteredEmails(@Param("emails") Collection<String> emails);
+
+    // Triples of user id, email and whether it is primary, without loading the emails' users
+    @RestResource(exported = false)
+    @Query("SELECT e.user.userId, e.email, e.isPrimary FROM Email e WHERE e.user.userId IN :userIds ORDER BY e.emailId")
+    List<Object[]> findEmailsByUserIds(@Param("userIds") Collection<Long> userIds);
 }
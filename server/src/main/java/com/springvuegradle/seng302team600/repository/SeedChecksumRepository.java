@@ -0,0 +1,9 @@
+package com.springvuegradle.seng302team600.repository;
+
+import com.springvuegradle.seng302team600.model.SeedChecksum;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+@RepositoryRestResource(exported = false)
+public interface SeedChecksumRepository extends JpaRepository<SeedChecksum, String> {
+}
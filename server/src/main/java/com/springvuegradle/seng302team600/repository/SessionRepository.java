@@ -0,0 +1,31 @@
+package com.springvuegradle.seng302team600.repository;
+
+import com.springvuegradle.seng302team600.model.Session;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
+
+// Sessions hold token hashes, so they must never be exported over REST
+@RepositoryRestResource(exported = false)
+public interface SessionRepository extends JpaRepository<Session, Long> {
+
+    Session findByTokenHash(String tokenHash);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Session s WHERE s.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Session s WHERE s.userId = :userId AND s.tokenHash <> :keptTokenHash")
+    int deleteOtherSessions(@Param("userId") Long userId, @Param("keptTokenHash") String keptTokenHash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Session s SET s.role = :role WHERE s.userId = :userId")
+    int updateRoleByUserId(@Param("userId") Long userId, @Param("role") int role);
+}
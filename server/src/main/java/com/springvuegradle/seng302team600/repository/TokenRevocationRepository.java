@@ -0,0 +1,24 @@
+package com.springvuegradle.seng302team600.repository;
+
+import com.springvuegradle.seng302team600.model.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Revocations name token ids, so they are never exported over REST
+@RepositoryRestResource(exported = false)
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    @Query("SELECT r FROM TokenRevocation r WHERE r.revokedAt >= :since AND r.expiresAt > :now")
+    List<TokenRevocation> findLiveRevokedSince(@Param("since") long since, @Param("now") long now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TokenRevocation r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") long now);
+}
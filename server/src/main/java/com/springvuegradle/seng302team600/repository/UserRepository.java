@@ -1,11 +1,17 @@
 package com.springvuegradle.seng302team600.repository;
 
 import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.model.UserCredentials;
+import com.springvuegradle.seng302team600.payload.UserResponse;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @RepositoryRestResource
@@ -13,12 +19,40 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     User findByUserId(Long id);
 
-    User findByToken(String token);
-
-    boolean existsUserByToken(String token);
-
     boolean existsUserByRole(int role);
 
-    @Query(value="SELECT * FROM user WHERE user_id in ?1", nativeQuery=true)
-    List<User> getUsersByIds(@Param("userIds") List<Long> userIds);
+    // Used to log in, only joins the email to its user and never loads either entity
+    @RestResource(exported = false)
+    @Query("SELECT new com.springvuegradle.seng302team600.model.UserCredentials(u.userId, u.password, u.role) " +
+            "FROM Email e JOIN e.user u WHERE e.email = :email")
+    UserCredentials findCredentialsByEmail(@Param("email") String email);
+
+    // Selects only the columns a UserResponse needs, the users themselves are never loaded
+    @RestResource(exported = false)
+    @Query("SELECT new com.springvuegradle.seng302team600.payload.UserResponse(u.userId, u.firstName, " +
+            "u.middleName, u.lastName, u.nickName, u.bio, u.dateOfBirth, u.gender, u.fitnessLevel, u.role) " +
+            "FROM User u WHERE u.userId IN :userIds ORDER BY u.userId")
+    List<UserResponse> findUserResponsesByIds(@Param("userIds") Collection<Long> userIds);
+
+    // Pairs of user id and passport country
+    @RestResource(exported = false)
+    @Query("SELECT u.userId, p FROM User u JOIN u.passports p WHERE u.userId IN :userIds")
+    List<Object[]> findPassportsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Pairs of user id and ActivityType
+    @RestResource(exported = false)
+    @Query("SELECT u.userId, t FROM User u JOIN u.activityTypes t WHERE u.userId IN :userIds")
+    List<Object[]> findActivityTypesByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Only the version, so a client's copy of a profile can be checked without loading the user
+    @RestResource(exported = false)
+    @Query("SELECT u.version FROM User u WHERE u.userId = :userId")
+    Long findVersionByUserId(@Param("userId") Long userId);
+
+    // Hibernate only increments the version for changes the user owns, emails are mapped by the Email side
+    @RestResource(exported = false)
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.version = u.version + 1 WHERE u.userId = :userId")
+    int incrementVersion(@Param("userId") Long userId);
 }
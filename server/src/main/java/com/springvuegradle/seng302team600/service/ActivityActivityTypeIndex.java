@@ -0,0 +1,16 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The ActivityTypeIndex of activities, built from the activity_activity_type table and kept up to date by the
+ * ActivityController whenever an activity is created, edited or deleted.
+ */
+@Component
+public class ActivityActivityTypeIndex extends ActivityTypeIndex {
+
+    public ActivityActivityTypeIndex(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate, "activity_activity_type", "activity_id");
+    }
+}
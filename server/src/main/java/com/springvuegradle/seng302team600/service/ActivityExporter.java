@@ -0,0 +1,123 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springvuegradle.seng302team600.model.ActivityType;
+import com.springvuegradle.seng302team600.model.ActivityTypeMask;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+
+/**
+ * Writes every activity as newline delimited JSON, one ActivityResponse shaped object per line.
+ * The activity table is read through a forward only cursor, fetch size rows at a time, and each row is written
+ * as soon as it is read, so memory use is the same whatever the size of the table.  Rows are read with plain
+ * JDBC, no entities are loaded so there is nothing to detach, and activity types come from the row's
+ * ActivityTypeMask and the ActivityTypeRegistry instead of a join.
+ */
+@Component
+public class ActivityExporter {
+
+    static final int FETCH_SIZE = 500;
+
+    private static final String SELECT_ACTIVITIES = "SELECT activity_id, creator_user_id, activity_name, " +
+            "description, activity_type_mask_low, activity_type_mask_high, is_continuous, start_time, end_time, " +
+            "location FROM activity ORDER BY activity_id";
+
+    // As ActivityResponse formats its dates
+    private static final String DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ssZ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ActivityTypeRegistry activityTypeRegistry;
+    private final ObjectMapper objectMapper;
+
+    public ActivityExporter(JdbcTemplate jdbcTemplate, ActivityTypeRegistry activityTypeRegistry,
+                            ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.activityTypeRegistry = activityTypeRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every activity, in order of activity id.
+     * @param out where to write the activities, flushed but not closed
+     * @return the number of activities written
+     */
+    public long export(OutputStream out) throws IOException {
+        DateFormat dateFormat = new SimpleDateFormat(DATE_PATTERN);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        long[] count = {0};
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Objects are separated by the newline alone, rather than the default space
+            generator.setRootValueSeparator(null);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_ACTIVITIES,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, (RowCallbackHandler) resultSet -> {
+                try {
+                    writeActivity(generator, resultSet, dateFormat);
+                    generator.writeRaw('\n');
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+        return count[0];
+    }
+
+    private void writeActivity(JsonGenerator generator, ResultSet resultSet, DateFormat dateFormat)
+            throws IOException, SQLException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", resultSet.getLong("activity_id"));
+        long creatorUserId = resultSet.getLong("creator_user_id");
+        if (resultSet.wasNull()) {
+            generator.writeNullField("creatorUserId");
+        } else {
+            generator.writeNumberField("creatorUserId", creatorUserId);
+        }
+        generator.writeStringField("activity_name", resultSet.getString("activity_name"));
+        generator.writeStringField("description", resultSet.getString("description"));
+        generator.writeArrayFieldStart("activity_type");
+        ActivityTypeMask mask = new ActivityTypeMask(resultSet.getLong("activity_type_mask_low"),
+                resultSet.getLong("activity_type_mask_high"));
+        for (ActivityType activityType : activityTypeRegistry.findByMask(mask)) {
+            generator.writeStartObject();
+            generator.writeNumberField("activityTypeId", activityType.getActivityTypeId());
+            generator.writeStringField("name", activityType.getName());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeBooleanField("continuous", resultSet.getBoolean("is_continuous"));
+        writeDateField(generator, "start_time", resultSet.getTimestamp("start_time"), dateFormat);
+        writeDateField(generator, "end_time", resultSet.getTimestamp("end_time"), dateFormat);
+        generator.writeStringField("location", resultSet.getString("location"));
+        generator.writeEndObject();
+    }
+
+    private static void writeDateField(JsonGenerator generator, String name, Timestamp timestamp,
+                                       DateFormat dateFormat) throws IOException {
+        if (timestamp == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeStringField(name, dateFormat.format(timestamp));
+        }
+    }
+}
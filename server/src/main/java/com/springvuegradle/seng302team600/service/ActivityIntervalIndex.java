@@ -0,0 +1,254 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.Activity;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory interval tree over the start and end times of activities that have a duration (non-continuous
+ * activities), so the activities happening at any time between two times are found with no query.
+ * The tree is a treap ordered by activity id, each node knowing the earliest start time and latest end time below
+ * it.  A search walks the activities in order of id from a cursor, skipping every subtree that ends before the
+ * times or starts after them, and stops as soon as it has a page.
+ * Built from the activity table at startup, and kept up to date by the ActivityController whenever an activity is
+ * created, edited or deleted.  Nodes are never changed, an update copies the O(log n) nodes on the path to the
+ * change and swaps in the new root, so searches need no locking and never see a half updated tree.
+ */
+@Component
+public class ActivityIntervalIndex {
+
+    private static Log log = LogFactory.getLog(ActivityIntervalIndex.class);
+
+    private static final String SELECT_ALL = "SELECT activity_id, start_time, end_time FROM activity " +
+            "WHERE is_continuous = false AND start_time IS NOT NULL AND end_time IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** The indexed interval of each activity, only used by writers, which hold the lock */
+    private Map<Long, Interval> intervals = new HashMap<>();
+    private volatile Node root;
+
+    public ActivityIntervalIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Loads the times of every activity with a duration into the index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void build() {
+        long start = System.currentTimeMillis();
+        Map<Long, Interval> loaded = new HashMap<>();
+        jdbcTemplate.query(SELECT_ALL, resultSet -> {
+            long activityId = resultSet.getLong("activity_id");
+            loaded.put(activityId, new Interval(activityId, resultSet.getTimestamp("start_time").getTime(),
+                    resultSet.getTimestamp("end_time").getTime()));
+        });
+        Node built = null;
+        for (Interval interval : loaded.values()) {
+            built = insert(built, interval);
+        }
+        intervals = loaded;
+        root = built;
+        log.info(String.format("Indexed the times of %d activities in %d ms",
+                loaded.size(), System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Replaces the times an activity has in the index, call after the activity has been saved.  Continuous
+     * activities, and activities missing a start or end time, are taken out of the index.
+     * @param activityId the id of the activity
+     * @param activity the saved activity
+     */
+    public synchronized void update(Long activityId, Activity activity) {
+        if (activity.isContinuous() || activity.getStartTime() == null || activity.getEndTime() == null) {
+            remove(activityId);
+            return;
+        }
+        Interval interval = new Interval(activityId, activity.getStartTime().getTime(), activity.getEndTime().getTime());
+        Interval previous = intervals.put(activityId, interval);
+        Node next = previous == null ? root : delete(root, previous);
+        root = insert(next, interval);
+    }
+
+    /**
+     * Takes an activity out of the index, call after the activity has been deleted.
+     * @param activityId the id of the activity
+     */
+    public synchronized void remove(Long activityId) {
+        Interval previous = intervals.remove(activityId);
+        if (previous != null) {
+            root = delete(root, previous);
+        }
+    }
+
+    /**
+     * Finds a page of the activities with a duration that overlaps the given times, including those that only
+     * touch them, in order of activity id.
+     * Only the path down to the cursor and the subtrees that may hold a match are visited, and the search stops
+     * once the page is full, so a page costs about O(log n + limit) however many activities match in all.
+     * @param from the start of the times, in milliseconds since the epoch
+     * @param to the end of the times, in milliseconds since the epoch
+     * @param after the id of the last activity of the previous page, null for the first page
+     * @param limit the largest number of ids to return
+     * @return the ids of the matching activities
+     */
+    public List<Long> findActivitiesBetween(long from, long to, Long after, int limit) {
+        List<Long> activityIds = new ArrayList<>();
+        if (from <= to && limit > 0) {
+            findOverlapping(root, from, to, after == null ? Long.MIN_VALUE : after, limit, activityIds);
+        }
+        return activityIds;
+    }
+
+    /**
+     * Adds the overlapping activities of a subtree with ids after the cursor, in order of id, until there are
+     * limit of them.
+     */
+    private static void findOverlapping(Node node, long from, long to, long after, int limit, List<Long> activityIds) {
+        while (node != null && node.maxEnd >= from && node.minStart <= to && activityIds.size() < limit) {
+            if (node.interval.activityId <= after) {
+                // The node and everything to its left are on earlier pages
+                node = node.right;
+                continue;
+            }
+            findOverlapping(node.left, from, to, after, limit, activityIds);
+            if (activityIds.size() < limit && node.interval.start <= to && node.interval.end >= from) {
+                activityIds.add(node.interval.activityId);
+            }
+            node = node.right;
+        }
+    }
+
+    private static Node insert(Node node, Interval interval) {
+        if (node == null) {
+            return new Node(interval, null, null);
+        }
+        if (interval.compareTo(node.interval) < 0) {
+            Node copy = node.withChildren(insert(node.left, interval), node.right);
+            return copy.left.priority > copy.priority ? rotateRight(copy) : copy;
+        }
+        Node copy = node.withChildren(node.left, insert(node.right, interval));
+        return copy.right.priority > copy.priority ? rotateLeft(copy) : copy;
+    }
+
+    private static Node delete(Node node, Interval interval) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = interval.compareTo(node.interval);
+        if (comparison < 0) {
+            return node.withChildren(delete(node.left, interval), node.right);
+        } else if (comparison > 0) {
+            return node.withChildren(node.left, delete(node.right, interval));
+        }
+        return merge(node.left, node.right);
+    }
+
+    /**
+     * Joins two treaps, every activity of the first having a lower id than every activity of the second.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            return first.withChildren(first.left, merge(first.right, second));
+        }
+        return second.withChildren(merge(first, second.left), second.right);
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        return left.withChildren(left.left, node.withChildren(left.right, node.right));
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        return right.withChildren(node.withChildren(node.left, right.left), right.right);
+    }
+
+    /**
+     * The start and end time of one activity, ordered by activity id.
+     */
+    private static final class Interval implements Comparable<Interval> {
+        private final long activityId;
+        private final long start;
+        private final long end;
+
+        private Interval(long activityId, long start, long end) {
+            this.activityId = activityId;
+            // An activity that ends before it starts is indexed over the times between the two
+            this.start = Math.min(start, end);
+            this.end = Math.max(start, end);
+        }
+
+        @Override
+        public int compareTo(Interval other) {
+            return Long.compare(activityId, other.activityId);
+        }
+    }
+
+    /**
+     * A node of the treap, never changed once made.  The priority is a hash of the activity id, which keeps the
+     * treap O(log n) deep in expectation however the activities are added.
+     */
+    private static final class Node {
+        private final Interval interval;
+        private final int priority;
+        private final Node left;
+        private final Node right;
+        /** The earliest start time of this node and every node below it */
+        private final long minStart;
+        /** The latest end time of this node and every node below it */
+        private final long maxEnd;
+
+        private Node(Interval interval, Node left, Node right) {
+            this.interval = interval;
+            this.priority = priority(interval.activityId);
+            this.left = left;
+            this.right = right;
+            long earliest = interval.start;
+            long latest = interval.end;
+            if (left != null) {
+                earliest = Math.min(earliest, left.minStart);
+                latest = Math.max(latest, left.maxEnd);
+            }
+            if (right != null) {
+                earliest = Math.min(earliest, right.minStart);
+                latest = Math.max(latest, right.maxEnd);
+            }
+            this.minStart = earliest;
+            this.maxEnd = latest;
+        }
+
+        private Node withChildren(Node left, Node right) {
+            return new Node(interval, left, right);
+        }
+
+        /**
+         * The MurmurHash3 finaliser, so activities with consecutive ids get unrelated priorities.
+         */
+        private static int priority(long activityId) {
+            long hash = activityId;
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb93fe1ef8a53L;
+            hash ^= hash >>> 33;
+            return (int) hash;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.ActivityType;
+import com.springvuegradle.seng302team600.payload.ActivityResponse;
+import com.springvuegradle.seng302team600.repository.ActivityRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Builds the ActivityResponses for a list of activities without loading the activities themselves.
+ * Their fields come from a projection query, and their activity types from one more query, so the number of
+ * queries doesn't grow with the number of activities.
+ */
+@Service
+public class ActivityResponseAssembler {
+
+    private final ActivityRepository activityRepository;
+
+    public ActivityResponseAssembler(ActivityRepository activityRepository) {
+        this.activityRepository = activityRepository;
+    }
+
+    /**
+     * Builds the responses for the activities with the given ids.
+     * @param activityIds the ids of the activities
+     * @return the responses, in order of activity id, without activities that don't exist
+     */
+    public List<ActivityResponse> assemble(Collection<Long> activityIds) {
+        if (activityIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<ActivityResponse> responses = activityRepository.findActivityResponsesByIds(activityIds);
+        Map<Long, ActivityResponse> responsesById = new HashMap<>();
+        for (ActivityResponse response : responses) {
+            responsesById.put(response.getActivityId(), response);
+        }
+        for (Object[] row : activityRepository.findActivityTypesByActivityIds(activityIds)) {
+            responsesById.get((Long) row[0]).getActivityTypes().add((ActivityType) row[1]);
+        }
+        return responses;
+    }
+}
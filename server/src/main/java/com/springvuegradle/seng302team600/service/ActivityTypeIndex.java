@@ -0,0 +1,182 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.ActivityType;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.*;
+
+/**
+ * An in-memory inverted index from each activity type to the ids of the rows that have it, held as compressed
+ * bitmaps.  Searching by activity type is then a bitmap intersection (AND) or union (OR), with no aggregate query.
+ * Built at startup from a join table of row id and activity_type_id, and kept up to date by the controller that
+ * saves the rows.  Bitmaps are copied on write, so searches never see one half updated.
+ * UserActivityTypeIndex and ActivityActivityTypeIndex index users and activities.
+ */
+public abstract class ActivityTypeIndex {
+
+    private static Log log = LogFactory.getLog(ActivityTypeIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String joinTable;
+    private final String idColumn;
+
+    /** Row ids by activity type id, a bitmap is never changed once it is in the map */
+    private volatile Map<Long, RoaringBitmap> idsByActivityType = new HashMap<>();
+
+    /**
+     * @param jdbcTemplate used to load the join table
+     * @param joinTable the table pairing each row with its activity types, such as user_activity_type
+     * @param idColumn the column of the join table holding the row's id, such as user_id
+     */
+    protected ActivityTypeIndex(JdbcTemplate jdbcTemplate, String joinTable, String idColumn) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.joinTable = joinTable;
+        this.idColumn = idColumn;
+    }
+
+    /**
+     * Loads every row's activity types into the index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void build() {
+        long start = System.currentTimeMillis();
+        Map<Long, RoaringBitmap> index = new HashMap<>();
+        jdbcTemplate.query("SELECT " + idColumn + ", activity_type_id FROM " + joinTable, resultSet -> {
+            index.computeIfAbsent(resultSet.getLong("activity_type_id"), id -> new RoaringBitmap())
+                    .add(toIndex(resultSet.getLong(idColumn)));
+        });
+        index.values().forEach(RoaringBitmap::runOptimize);
+        idsByActivityType = index;
+        log.info(String.format("Indexed %s of %d activity types in %d ms",
+                joinTable, index.size(), System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Replaces the activity types a row has in the index, call after the row has been saved.
+     * @param id the id of the row
+     * @param activityTypes the row's activity types, null if it has none
+     */
+    public synchronized void update(Long id, Collection<ActivityType> activityTypes) {
+        int row = toIndex(id);
+        Set<Long> activityTypeIds = new HashSet<>();
+        if (activityTypes != null) {
+            for (ActivityType activityType : activityTypes) {
+                activityTypeIds.add(activityType.getActivityTypeId());
+            }
+        }
+        Map<Long, RoaringBitmap> index = new HashMap<>(idsByActivityType);
+        for (Map.Entry<Long, RoaringBitmap> entry : index.entrySet()) {
+            if (entry.getValue().contains(row) && !activityTypeIds.contains(entry.getKey())) {
+                RoaringBitmap ids = entry.getValue().clone();
+                ids.remove(row);
+                entry.setValue(ids);
+            }
+        }
+        for (Long activityTypeId : activityTypeIds) {
+            RoaringBitmap ids = index.get(activityTypeId);
+            if (ids == null || !ids.contains(row)) {
+                ids = ids == null ? new RoaringBitmap() : ids.clone();
+                ids.add(row);
+                index.put(activityTypeId, ids);
+            }
+        }
+        idsByActivityType = index;
+    }
+
+    /**
+     * Takes a row out of the index, call after the row has been deleted.
+     * @param id the id of the row
+     */
+    public void remove(Long id) {
+        update(id, null);
+    }
+
+    /**
+     * Finds the rows that have every one of the given activity types.
+     * @param activityTypeIds the ids of the activity types
+     * @return the ids of the matching rows, empty if no activity types are given
+     */
+    public RoaringBitmap findWithAll(Collection<Long> activityTypeIds) {
+        Map<Long, RoaringBitmap> index = idsByActivityType;
+        List<RoaringBitmap> bitmaps = new ArrayList<>(activityTypeIds.size());
+        for (Long activityTypeId : activityTypeIds) {
+            RoaringBitmap ids = index.get(activityTypeId);
+            if (ids == null) {
+                return new RoaringBitmap();
+            }
+            bitmaps.add(ids);
+        }
+        if (bitmaps.isEmpty()) {
+            return new RoaringBitmap();
+        }
+        // Intersect the smallest first, so the working set shrinks as fast as possible
+        bitmaps.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+        RoaringBitmap ids = bitmaps.get(0).clone();
+        for (int i = 1; i < bitmaps.size() && !ids.isEmpty(); i++) {
+            ids.and(bitmaps.get(i));
+        }
+        return ids;
+    }
+
+    /**
+     * Finds the rows that have at least one of the given activity types.
+     * @param activityTypeIds the ids of the activity types
+     * @return the ids of the matching rows
+     */
+    public RoaringBitmap findWithAny(Collection<Long> activityTypeIds) {
+        Map<Long, RoaringBitmap> index = idsByActivityType;
+        List<RoaringBitmap> bitmaps = new ArrayList<>(activityTypeIds.size());
+        for (Long activityTypeId : activityTypeIds) {
+            RoaringBitmap ids = index.get(activityTypeId);
+            if (ids != null) {
+                bitmaps.add(ids);
+            }
+        }
+        return RoaringBitmap.or(bitmaps.iterator());
+    }
+
+    /**
+     * Takes one page of ids out of a search result, in order of id.
+     * Pages are keyed by the last id of the page before, so a page is found without counting the rows before
+     * it, and rows added or removed meanwhile don't shift later pages.
+     * @param ids the ids of the matching rows
+     * @param after the last id of the previous page, null for the first page
+     * @param limit the largest number of ids to return
+     * @return the page of ids
+     */
+    public static List<Long> page(RoaringBitmap ids, Long after, int limit) {
+        int from = after == null ? 0 : toIndex(after) + 1;
+        long remaining = ids.getLongCardinality() - (from == 0 ? 0 : ids.rank(from - 1));
+        if (remaining <= 0) {
+            return new ArrayList<>();
+        }
+        List<Long> page = new ArrayList<>((int) Math.min(limit, remaining));
+        PeekableIntIterator iterator = ids.getIntIterator();
+        iterator.advanceIfNeeded(from);
+        while (iterator.hasNext() && page.size() < limit) {
+            page.add(Integer.toUnsignedLong(iterator.next()));
+        }
+        return page;
+    }
+
+    /**
+     * Checks if a search result has more ids after a page.
+     * @param ids the ids of the matching rows
+     * @param last the last id of the page
+     * @return true if there is a next page
+     */
+    public static boolean hasAfter(RoaringBitmap ids, Long last) {
+        return ids.rank(toIndex(last)) < ids.getLongCardinality();
+    }
+
+    private static int toIndex(long id) {
+        // Ids are generated from 1 upwards, and are far from running out of 32 bits
+        return Math.toIntExact(id);
+    }
+}
@@ -0,0 +1,72 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.ActivityTypeMask;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills in the ActivityTypeMask of activities saved before they had one, from the activity_activity_type join
+ * table.  Activities keep their masks up to date once they have one, so only rows with no mask are read, and a
+ * restart with nothing to fill in costs one query.
+ */
+@Component
+public class ActivityTypeMaskBackfill {
+
+    private static Log log = LogFactory.getLog(ActivityTypeMaskBackfill.class);
+
+    private static final String SELECT_ACTIVITIES = "SELECT a.activity_id AS id, t.ordinal FROM activity a " +
+            "LEFT JOIN activity_activity_type aat ON aat.activity_id = a.activity_id " +
+            "LEFT JOIN activity_type t ON t.activity_type_id = aat.activity_type_id " +
+            "WHERE a.activity_type_mask_low IS NULL";
+    private static final String UPDATE_ACTIVITY =
+            "UPDATE activity SET activity_type_mask_low = ?, activity_type_mask_high = ? WHERE activity_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ActivityTypeMaskBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Fills in every missing mask, activity types have their ordinals by the time the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long start = System.currentTimeMillis();
+        int activities = backfill(SELECT_ACTIVITIES, UPDATE_ACTIVITY);
+        if (activities > 0) {
+            log.info(String.format("Filled in the activity type masks of %d activities in %d ms",
+                    activities, System.currentTimeMillis() - start));
+        }
+    }
+
+    /**
+     * @return the number of rows filled in
+     */
+    private int backfill(String select, String update) {
+        Map<Long, ActivityTypeMask> masks = new LinkedHashMap<>();
+        jdbcTemplate.query(select, resultSet -> {
+            ActivityTypeMask mask = masks.getOrDefault(resultSet.getLong("id"), ActivityTypeMask.EMPTY);
+            int ordinal = resultSet.getInt("ordinal");
+            if (!resultSet.wasNull()) {
+                mask = mask.with(ordinal);
+            }
+            masks.put(resultSet.getLong("id"), mask);
+        });
+        List<Object[]> rows = new ArrayList<>(masks.size());
+        masks.forEach((id, mask) -> rows.add(new Object[]{mask.getLow(), mask.getHigh(), id}));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(update, rows);
+        }
+        return rows.size();
+    }
+}
@@ -0,0 +1,114 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springvuegradle.seng302team600.model.ActivityType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The body of GET /activity-types, the JSON list of every ActivityType, serialized and gzipped ahead of time.
+ * The body is only built again when the ActivityTypeRegistry has been reloaded, so serving it is only a copy of
+ * bytes.  Its strong ETag is a hash of the JSON, so it is the same on every server and across restarts until the
+ * activity types change.  The gzipped body is a different representation, so it has its own ETag.
+ */
+@Component
+public class ActivityTypePayload {
+
+    private final ActivityTypeRegistry activityTypeRegistry;
+    private final ObjectMapper objectMapper;
+
+    private volatile Body body;
+
+    public ActivityTypePayload(ActivityTypeRegistry activityTypeRegistry, ObjectMapper objectMapper) {
+        this.activityTypeRegistry = activityTypeRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return true once the registry has loaded the activity types, before then the body is an empty list
+     */
+    public boolean isLoaded() {
+        return activityTypeRegistry.isLoaded();
+    }
+
+    /**
+     * @return the body for the registry's current activity types
+     */
+    public Body getBody() {
+        Body current = body;
+        // A reload swaps in a new list, so an unchanged list means the body is still current
+        if (current == null || current.activityTypes != activityTypeRegistry.getActivityTypes()) {
+            current = rebuild();
+        }
+        return current;
+    }
+
+    private synchronized Body rebuild() {
+        List<ActivityType> activityTypes = activityTypeRegistry.getActivityTypes();
+        if (body == null || body.activityTypes != activityTypes) {
+            body = new Body(activityTypes, serialize(activityTypes));
+        }
+        return body;
+    }
+
+    private byte[] serialize(List<ActivityType> activityTypes) {
+        try {
+            return objectMapper.writeValueAsBytes(activityTypes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Activity types could not be serialized", e);
+        }
+    }
+
+    /**
+     * The serialized activity types, never changed once built.
+     */
+    public static class Body {
+        private final List<ActivityType> activityTypes;
+        private final byte[] json;
+        private final byte[] gzippedJson;
+        private final String eTag;
+        private final String gzippedETag;
+
+        private Body(List<ActivityType> activityTypes, byte[] json) {
+            this.activityTypes = activityTypes;
+            this.json = json;
+            this.gzippedJson = gzip(json);
+            String hash = DigestUtils.md5DigestAsHex(json);
+            this.eTag = "\"activity-types-" + hash + "\"";
+            this.gzippedETag = "\"activity-types-" + hash + "-gzip\"";
+        }
+
+        private static byte[] gzip(byte[] bytes) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return compressed.toByteArray();
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzippedJson() {
+            return gzippedJson;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getGzippedETag() {
+            return gzippedETag;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.ActivityType;
+import com.springvuegradle.seng302team600.model.ActivityTypeMask;
+import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Every ActivityType in the database, held in memory so activity types can be looked up by name or id with no
+ * query.  The ordinals make a dense dictionary of the activity types, which ActivityTypeMasks are made from.
+ * The activity types come from activity_types.yml and almost never change, so the registry is loaded once the
+ * application is ready (after activity_types.yml has been saved), and has to be reloaded if they do change.
+ * The maps are never changed once they are built, a reload builds new ones and swaps them in, so lookups need no
+ * locking and never see a half loaded registry.
+ * The ActivityTypes are detached, they can be given to a User or Activity but must not be changed.
+ */
+@Component
+public class ActivityTypeRegistry {
+
+    private static Log log = LogFactory.getLog(ActivityTypeRegistry.class);
+
+    private final ActivityTypeRepository activityTypeRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyList());
+    private volatile boolean loaded;
+
+    public ActivityTypeRegistry(ActivityTypeRepository activityTypeRepository) {
+        this.activityTypeRepository = activityTypeRepository;
+    }
+
+    /**
+     * Loads every ActivityType from the database, and swaps them in once they are all loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        long start = System.currentTimeMillis();
+        Snapshot next = new Snapshot(activityTypeRepository.findAll());
+        snapshot = next;
+        loaded = true;
+        log.info(String.format("Registered %d activity types in %d ms",
+                next.byId.size(), System.currentTimeMillis() - start));
+    }
+
+    /**
+     * @return true once the activity types have been loaded, until then the registry is empty
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Finds an ActivityType by name, names are matched without case as the database does.
+     * @param name the name of the ActivityType
+     * @return the ActivityType, or null if there is none with the name
+     */
+    public ActivityType findByName(String name) {
+        return name == null ? null : snapshot.byName.get(normalize(name));
+    }
+
+    /**
+     * Finds an ActivityType by id.
+     * @param activityTypeId the id of the ActivityType
+     * @return the ActivityType, or null if there is none with the id
+     */
+    public ActivityType findById(Long activityTypeId) {
+        return snapshot.byId.get(activityTypeId);
+    }
+
+    /**
+     * Makes the mask of the ActivityTypes with the given ids, ids without an ActivityType are left out.
+     * @param activityTypeIds the ids of the ActivityTypes
+     * @return the mask
+     */
+    public ActivityTypeMask findMaskByIds(Collection<Long> activityTypeIds) {
+        Snapshot current = snapshot;
+        ActivityTypeMask mask = ActivityTypeMask.EMPTY;
+        for (Long activityTypeId : activityTypeIds) {
+            ActivityType activityType = current.byId.get(activityTypeId);
+            if (activityType != null && activityType.getOrdinal() != null) {
+                mask = mask.with(activityType.getOrdinal());
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Lists the ActivityTypes in a mask.
+     * @param mask the mask
+     * @return the ActivityTypes, ordered by ordinal
+     */
+    public List<ActivityType> findByMask(ActivityTypeMask mask) {
+        ActivityType[] byOrdinal = snapshot.byOrdinal;
+        List<ActivityType> activityTypes = new ArrayList<>(mask.size());
+        for (int ordinal = 0; ordinal < byOrdinal.length; ordinal++) {
+            if (byOrdinal[ordinal] != null && mask.contains(ordinal)) {
+                activityTypes.add(byOrdinal[ordinal]);
+            }
+        }
+        return activityTypes;
+    }
+
+    /**
+     * Finds the ids of the ActivityTypes with the given names, names without an ActivityType are left out.
+     * @param names the names of the ActivityTypes
+     * @return the ids, without duplicates
+     */
+    public List<Long> findIdsByNames(Collection<String> names) {
+        Snapshot current = snapshot;
+        Set<Long> ids = new LinkedHashSet<>();
+        for (String name : names) {
+            ActivityType activityType = name == null ? null : current.byName.get(normalize(name));
+            if (activityType != null) {
+                ids.add(activityType.getActivityTypeId());
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * @return every ActivityType, ordered by id
+     */
+    public List<ActivityType> getActivityTypes() {
+        return snapshot.all;
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The ActivityTypes loaded by one reload, unmodifiable.
+     */
+    private static class Snapshot {
+        private final List<ActivityType> all;
+        private final Map<String, ActivityType> byName;
+        private final Map<Long, ActivityType> byId;
+        private final ActivityType[] byOrdinal;
+
+        private Snapshot(Collection<ActivityType> activityTypes) {
+            List<ActivityType> sorted = new ArrayList<>(activityTypes);
+            sorted.sort(Comparator.comparing(ActivityType::getActivityTypeId));
+            Map<String, ActivityType> names = new HashMap<>();
+            Map<Long, ActivityType> ids = new HashMap<>();
+            int ordinals = 0;
+            for (ActivityType activityType : sorted) {
+                names.put(normalize(activityType.getName()), activityType);
+                ids.put(activityType.getActivityTypeId(), activityType);
+                if (activityType.getOrdinal() != null) {
+                    ordinals = Math.max(ordinals, activityType.getOrdinal() + 1);
+                }
+            }
+            this.byOrdinal = new ActivityType[ordinals];
+            for (ActivityType activityType : sorted) {
+                if (activityType.getOrdinal() != null) {
+                    byOrdinal[activityType.getOrdinal()] = activityType;
+                }
+            }
+            this.all = Collections.unmodifiableList(sorted);
+            this.byName = Collections.unmodifiableMap(names);
+            this.byId = Collections.unmodifiableMap(ids);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.springvuegradle.seng302team600.service;
 
 import com.springvuegradle.seng302team600.model.ActivityType;
-import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -12,16 +11,17 @@ import java.util.Set;
 @Service("activityTypePersistService")
 public class ActivityTypeService {
 
-    private ActivityTypeRepository activityTypeRepository;
+    private ActivityTypeRegistry activityTypeRegistry;
 
-    public ActivityTypeService(ActivityTypeRepository activityTypeRepository) {
-        this.activityTypeRepository = activityTypeRepository;
+    public ActivityTypeService(ActivityTypeRegistry activityTypeRegistry) {
+        this.activityTypeRegistry = activityTypeRegistry;
     }
 
     /**
      * Takes a Set<ActivityType> of entities not in the database, finds their equivalents in
      * the database by matching name, and returns a new Set<ActivityType> of entities from the database.
      * This way duplicate ActivityTypes are not created in the database.
+     * The entities are found in the ActivityTypeRegistry, so no queries are made.
      * @param detachedActivityTypes entities not saved in the database
      * @return entities saved in the database
      * @throws ResponseStatusException thrown if an entity in detachedActivityTypes does not match an entity in the database
@@ -33,7 +33,7 @@ public class ActivityTypeService {
         for (ActivityType activityType: detachedActivityTypes) {
             String name = activityType.getName();
 
-            ActivityType repositoryEntity = activityTypeRepository.findActivityTypeByName(name);
+            ActivityType repositoryEntity = activityTypeRegistry.findByName(name);
             if (repositoryEntity == null) {
                 throw new ResponseStatusException(HttpStatus.EXPECTATION_FAILED, String.format(
                         "'%s' is not in the database, and therefore is not a valid ActivityType", name));
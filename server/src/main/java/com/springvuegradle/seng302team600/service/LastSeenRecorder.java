@@ -0,0 +1,83 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records when sessions were last used, without writing to the database on every request.
+ * Touches are gathered in memory, repeated touches of the same session are merged, and the latest
+ * time for each session is written to session.last_seen in one batched update every few seconds.
+ */
+@Component
+public class LastSeenRecorder {
+
+    private static Log log = LogFactory.getLog(LastSeenRecorder.class);
+
+    private static final String UPDATE_LAST_SEEN =
+            "UPDATE session SET last_seen = ? WHERE session_id = ? AND last_seen < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** The latest unwritten touch of each session, in milliseconds */
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    public LastSeenRecorder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records that a session has been used now.
+     * @param sessionId the id of the session
+     */
+    public void touch(Long sessionId) {
+        pending.merge(sessionId, System.currentTimeMillis(), Math::max);
+    }
+
+    /**
+     * Gets the last time a session was used, if it has not been written to the database yet.
+     * @param sessionId the id of the session
+     * @return the time in milliseconds, or null if there is no pending touch
+     */
+    public Long getPendingLastSeen(Long sessionId) {
+        return pending.get(sessionId);
+    }
+
+    /**
+     * Writes every pending touch to the database in a single batch.
+     * A touch never moves a last seen time backwards.
+     */
+    @Scheduled(fixedDelayString = "${spring.security.session.flush-interval:5000}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(pending.size());
+        for (Long sessionId : pending.keySet()) {
+            Long lastSeen = pending.remove(sessionId);
+            if (lastSeen != null) {
+                Timestamp time = new Timestamp(lastSeen);
+                batch.add(new Object[]{time, sessionId, time});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LAST_SEEN, batch);
+        } catch (RuntimeException e) {
+            // Put the touches back so they are retried on the next flush
+            for (Object[] row : batch) {
+                pending.merge((Long) row[1], ((Timestamp) row[0]).getTime(), Math::max);
+            }
+            log.error("Could not write session last seen times, retrying on the next flush", e);
+        }
+    }
+}
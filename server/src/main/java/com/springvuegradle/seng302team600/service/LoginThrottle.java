@@ -0,0 +1,83 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how often logins can be attempted for each email and from each client address, so that
+ * repeated guesses are turned away before they reach the database or the password hashing pool.
+ * Each email and address gets a token bucket.  Buckets are kept in bounded caches and dropped once they
+ * have been idle long enough to have refilled, since a full bucket is the same as no bucket.
+ */
+@Component
+public class LoginThrottle {
+
+    private final boolean enabled;
+    private final Limit emailLimit;
+    private final Limit addressLimit;
+
+    public LoginThrottle(@Value("${spring.security.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${spring.security.login-throttle.email.capacity:5}") int emailCapacity,
+                         @Value("${spring.security.login-throttle.email.refill-interval:30s}") Duration emailRefill,
+                         @Value("${spring.security.login-throttle.address.capacity:20}") int addressCapacity,
+                         @Value("${spring.security.login-throttle.address.refill-interval:3s}") Duration addressRefill,
+                         @Value("${spring.security.login-throttle.maximum-size:100000}") long maximumSize) {
+        this.enabled = enabled;
+        this.emailLimit = new Limit(emailCapacity, emailRefill, maximumSize);
+        this.addressLimit = new Limit(addressCapacity, addressRefill, maximumSize);
+    }
+
+    /**
+     * Counts a login attempt against its email and client address.
+     * @param email the email being logged in to
+     * @param address the client's address, or null if it is not known
+     * @throws ServiceBusyException (429 TOO MANY REQUESTS) if either has run out of attempts
+     */
+    public void attempt(String email, String address) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (address != null) {
+            addressLimit.take(address, now);
+        }
+        if (email != null) {
+            emailLimit.take(email.toLowerCase(Locale.ROOT), now);
+        }
+    }
+
+    /**
+     * A token bucket per key, all with the same capacity and refill interval.
+     */
+    private static class Limit {
+
+        private final int capacity;
+        private final long refillInterval;
+        private final Cache<String, TokenBucket> buckets;
+
+        private Limit(int capacity, Duration refillInterval, long maximumSize) {
+            this.capacity = capacity;
+            this.refillInterval = refillInterval.toNanos();
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterAccess(this.refillInterval * capacity, TimeUnit.NANOSECONDS)
+                    .build();
+        }
+
+        private void take(String key, long now) {
+            long wait = buckets.get(key, k -> new TokenBucket(capacity, refillInterval, now)).tryTake(now);
+            if (wait > 0) {
+                long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+                throw new ServiceBusyException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Too many login attempts, please try again later", retryAfter);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a small, dedicated thread pool instead of the request threads.
+ * The pool's queue is bounded, so a burst of logins and registrations can only hold on to
+ * pool-size + queue-capacity request threads; any more are turned away with a 503 straight away,
+ * leaving the rest of the request threads free for cheap requests.  A request thread waits at most the timeout
+ * for its hash, and is then turned away with a 503 too.
+ * Installed as the User's password encoder on startup.
+ */
+@Component
+public class PasswordHashingExecutor implements PasswordEncoder {
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private final long timeoutNanos;
+
+    private final Timer hashTimer;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public PasswordHashingExecutor(@Value("${spring.security.password-hashing.pool-size:0}") int poolSize,
+                                   @Value("${spring.security.password-hashing.queue-capacity:32}") int queueCapacity,
+                                   @Value("${spring.security.password-hashing.retry-after:1s}") Duration retryAfter,
+                                   @Value("${spring.security.password-hashing.timeout:10s}") Duration timeout,
+                                   MeterRegistry meterRegistry) {
+        this(new BCryptPasswordEncoder(), poolSize, queueCapacity, retryAfter, timeout, meterRegistry);
+    }
+
+    PasswordHashingExecutor(PasswordEncoder encoder, int poolSize, int queueCapacity, Duration retryAfter,
+                            Duration timeout, MeterRegistry meterRegistry) {
+        this.encoder = encoder;
+        // By default use one thread per core, as BCrypt is CPU bound
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = Math.max(1, retryAfter.getSeconds());
+        this.timeoutNanos = timeout.toNanos();
+
+        Gauge.builder("password.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes running")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("password.hashing.latency")
+                .description("Time spent hashing or checking a password")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("password.hashing.wait")
+                .description("Time a password hash waited in the queue")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Password hashes turned away because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void install() {
+        User.setPasswordEncoder(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Hash on the calling thread again, for anything that outlives this pool
+        User.setPasswordEncoder(new BCryptPasswordEncoder());
+        executor.shutdown();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Runs a hash on the pool and waits for it.
+     * @param hash the hashing work
+     * @param <T> the result of the hash
+     * @return the result
+     * @throws ServiceBusyException if the queue is full, or the hash isn't done within the timeout
+     */
+    private <T> T run(Callable<T> hash) {
+        long queuedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.recordCallable(hash);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException("Too many logins at once, please try again shortly", retryAfterSeconds);
+        }
+        try {
+            return result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new ServiceBusyException("Too many logins at once, please try again shortly", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers conditional GETs of a user's profile from the user's version column.  Each representation of a
+ * profile (the profile itself, its emails) has a strong ETag made from the user's id and version, which
+ * changes whenever the user does.  A client whose If-None-Match holds the current ETag is sent a 304 after a
+ * single version query, so the user is never loaded.
+ */
+@Service
+public class ProfileVersionService {
+
+    /** Clients may keep profiles, but have to check they are still current before using them */
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Checks whether the client's copy of a profile is current, and if so answers the request with a 304.
+     * @param request the http request, holding any If-None-Match header
+     * @param response the http response, given the ETag (and 304 status if the client's copy is current)
+     * @param representation which representation of the profile is requested, such as "profile" or "emails"
+     * @param userId the id of the user whose profile is requested
+     * @return true if the client's copy is current and nothing more should be sent, false if the profile has
+     * to be loaded (including if the user doesn't exist)
+     */
+    public boolean checkNotModified(HttpServletRequest request, HttpServletResponse response,
+                                    String representation, Long userId) {
+        Long version = userRepository.findVersionByUserId(userId);
+        if (version == null) {
+            return false;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        return new ServletWebRequest(request, response).checkNotModified(eTag(representation, userId, version));
+    }
+
+    /**
+     * Sets the ETag of a profile that has been loaded, from the version it was loaded at.
+     * @param response the http response
+     * @param representation which representation of the profile is being sent
+     * @param userId the id of the user
+     * @param version the version of the user that was loaded
+     */
+    public void setETag(HttpServletResponse response, String representation, Long userId, long version) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ETAG, eTag(representation, userId, version));
+    }
+
+    private static String eTag(String representation, Long userId, long version) {
+        return "\"" + representation + "-" + userId + "-" + version + "\"";
+    }
+}
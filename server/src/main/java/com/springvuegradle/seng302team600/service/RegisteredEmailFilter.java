@@ -0,0 +1,180 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.Email;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An in-memory Bloom filter of every registered email address, so an address that is definitely not
+ * registered can be turned away without a query.  An address the filter might contain still has to be checked
+ * against the email table, since the filter has false positives (and keeps addresses that have been removed).
+ * Built from the email table at startup and rebuilt every rebuild-interval, which drops removed addresses and
+ * resizes the filter as the table grows.  Addresses have to be added with add() once they are saved, emails
+ * saved through the exported EmailRepository are added by the repository event handlers.
+ * Each node has its own filter, so an address registered on another node can be missing until the next
+ * rebuild.  A "not registered" answer is only good for read-only checks, writes check the email table.
+ */
+@Component
+@RepositoryEventHandler(Email.class)
+public class RegisteredEmailFilter {
+
+    private static Log log = LogFactory.getLog(RegisteredEmailFilter.class);
+
+    private static final String COUNT_ALL = "SELECT COUNT(*) FROM email";
+    private static final String SELECT_ALL = "SELECT email FROM email";
+
+    /** The filter is never made for fewer addresses than this, so it has room for new ones between rebuilds */
+    private static final int MINIMUM_CAPACITY = 10000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double falsePositiveProbability;
+
+    private volatile BloomFilter filter;
+    /** The filter being built, which addresses added during the build also go into */
+    private volatile BloomFilter building;
+
+    public RegisteredEmailFilter(JdbcTemplate jdbcTemplate,
+                                 @Value("${spring.email.filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.filter = new BloomFilter(MINIMUM_CAPACITY, falsePositiveProbability);
+    }
+
+    /**
+     * Loads every registered address into a new filter, and swaps it in once it is full.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${spring.email.filter.rebuild-interval:3600000}",
+            initialDelayString = "${spring.email.filter.rebuild-interval:3600000}")
+    public synchronized void build() {
+        long start = System.currentTimeMillis();
+        Integer count = jdbcTemplate.queryForObject(COUNT_ALL, Integer.class);
+        int capacity = Math.max(MINIMUM_CAPACITY, count == null ? 0 : count * 2);
+        BloomFilter next = new BloomFilter(capacity, falsePositiveProbability);
+        // Set before the query, so an address saved too late for the query is added to this filter by add()
+        building = next;
+        jdbcTemplate.query(SELECT_ALL, resultSet -> {
+            next.add(normalize(resultSet.getString("email")));
+        });
+        filter = next;
+        building = null;
+        log.info(String.format("Built a filter of %d email addresses in %d ms", count,
+                System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Adds an address to the filter, call after it has been saved.
+     * building is read before filter: if a build swaps in its filter between the two reads, the address still
+     * reaches the new filter through one of them.
+     * @param email the address
+     */
+    public void add(String email) {
+        String normalized = normalize(email);
+        BloomFilter next = building;
+        filter.add(normalized);
+        if (next != null) {
+            next.add(normalized);
+        }
+    }
+
+    /**
+     * Adds an email saved through the exported EmailRepository.
+     * @param email the saved email
+     */
+    @HandleAfterCreate
+    @HandleAfterSave
+    public void added(Email email) {
+        add(email.getEmail());
+    }
+
+    /**
+     * Checks if an address might be registered.
+     * @param email the address
+     * @return false if the address is definitely not registered, true if it has to be checked in the database
+     */
+    public boolean mightBeRegistered(String email) {
+        return email != null && filter.mightContain(normalize(email));
+    }
+
+    /**
+     * Addresses are matched without case, so the filter holds whenever the database compares addresses with or
+     * without case.
+     */
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A fixed size Bloom filter.  Each address sets hashCount bits, derived from a 64 bit hash of the address,
+     * which a lookup checks are all set.  Bits are only ever set, so adds and lookups need no locking.
+     */
+    static class BloomFilter {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int capacity, double falsePositiveProbability) {
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+            words = new AtomicLongArray(Math.toIntExact((bits + Long.SIZE - 1) / Long.SIZE));
+            bitCount = (long) words.length() * Long.SIZE;
+            hashCount = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+        }
+
+        void add(String value) {
+            long hash = hash(value);
+            int first = (int) hash;
+            int second = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(first + (long) i * second, bitCount);
+                int word = (int) (bit / Long.SIZE);
+                long mask = 1L << (bit % Long.SIZE);
+                long current = words.get(word);
+                while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                    current = words.get(word);
+                }
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            int first = (int) hash;
+            int second = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(first + (long) i * second, bitCount);
+                if ((words.get((int) (bit / Long.SIZE)) & (1L << (bit % Long.SIZE))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * FNV-1a over the characters, finished with the MurmurHash3 mix so every bit of the hash is used.
+         */
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb93fe1ef8a53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
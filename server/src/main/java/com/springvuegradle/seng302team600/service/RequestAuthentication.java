@@ -0,0 +1,76 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.UserPrincipal;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.function.Function;
+
+/**
+ * The authentication of a request's token.  The AuthenticationFilter attaches one to each request with a token,
+ * and it is only resolved the first time a controller asks who is logged in, so requests to endpoints that
+ * don't need a logged in user never look the token up.  The outcome is then kept as a request attribute, so
+ * that UserAuthenticationService can reuse it however many times the controller asks.
+ */
+public final class RequestAuthentication {
+
+    public static final String ATTRIBUTE = RequestAuthentication.class.getName();
+
+    private final String token;
+    private boolean resolved;
+    private UserPrincipal principal;
+    private ResponseStatusException failure;
+
+    private RequestAuthentication(String token) {
+        this.token = token;
+    }
+
+    /**
+     * A request's token, not yet authenticated.
+     * @param token the request's token
+     * @return the authentication, resolved when the user is first asked for
+     */
+    public static RequestAuthentication of(String token) {
+        return new RequestAuthentication(token);
+    }
+
+    /**
+     * Gets the authentication resolved for the current request, if it was resolved for the given token.
+     * @param token the token being authenticated
+     * @return the authentication, or null if there is no current request or it was sent with another token
+     */
+    static RequestAuthentication forToken(String token) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (token == null || attributes == null) {
+            return null;
+        }
+        Object authentication = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (authentication instanceof RequestAuthentication
+                && token.equals(((RequestAuthentication) authentication).token)) {
+            return (RequestAuthentication) authentication;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the logged in user, authenticating the token the first time it is asked for.  A rejected token is
+     * rejected again whenever the user is asked for.
+     * @param authenticator authenticates the token, throwing ResponseStatusException if it is rejected
+     * @return the user the token belongs to, or ResponseStatusException is thrown if the token was rejected
+     */
+    UserPrincipal getPrincipal(Function<String, UserPrincipal> authenticator) {
+        if (!resolved) {
+            try {
+                principal = authenticator.apply(token);
+            } catch (ResponseStatusException e) {
+                failure = e;
+            }
+            resolved = true;
+        }
+        if (failure != null) {
+            throw new ResponseStatusException(failure.getStatus(), failure.getReason());
+        }
+        return principal;
+    }
+}
@@ -0,0 +1,27 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when a request can't be served right now, because a bounded resource is saturated (503 SERVICE
+ * UNAVAILABLE) or the client has gone over a rate limit (429 TOO MANY REQUESTS).
+ * Responds with a Retry-After header.
+ */
+public class ServiceBusyException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String reason, long retryAfterSeconds) {
+        this(HttpStatus.SERVICE_UNAVAILABLE, reason, retryAfterSeconds);
+    }
+
+    public ServiceBusyException(HttpStatus status, String reason, long retryAfterSeconds) {
+        super(status, reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,124 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springvuegradle.seng302team600.model.UserPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * An in-process cache of logged in sessions, keyed by token.
+ * Sits in front of the session table so that authenticating a request does not have to query the database.
+ * The cache is bounded and entries are evicted a fixed time after they were loaded, so each active
+ * session is re-checked against the database at least once per time to live.
+ */
+@Component
+public class SessionCache {
+
+    private final Cache<String, CachedSession> sessions;
+
+    public SessionCache(@Value("${spring.security.session.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${spring.security.session.cache.time-to-live:60s}") Duration timeToLive) {
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+    }
+
+    /**
+     * Gets the session cached for the given token.
+     * @param token the session token
+     * @return the cached session, or null if the token is not cached
+     */
+    public CachedSession get(String token) {
+        return sessions.getIfPresent(token);
+    }
+
+    /**
+     * Caches a session for the given token, replacing any existing entry.
+     * @param token the session token
+     * @param sessionId the id of the session row
+     * @param principal the user the token belongs to
+     * @return the cached session
+     */
+    public CachedSession put(String token, Long sessionId, UserPrincipal principal) {
+        CachedSession session = new CachedSession(sessionId, principal);
+        sessions.put(token, session);
+        return session;
+    }
+
+    /**
+     * Removes the session cached for the given token.
+     * @param token the session token
+     */
+    public void invalidate(String token) {
+        sessions.invalidate(token);
+    }
+
+    /**
+     * Removes every session cached for the given user.  Used when something the cache holds
+     * (such as the user's role or credentials) has changed.
+     * @param userId the id of the user
+     */
+    public void invalidateUser(Long userId) {
+        sessions.asMap().values().removeIf(session -> session.getUserId().equals(userId));
+    }
+
+    /**
+     * Removes every cached session.
+     */
+    public void invalidateAll() {
+        sessions.invalidateAll();
+    }
+
+    /**
+     * The parts of a logged in user needed to authenticate a request.
+     */
+    public static class CachedSession {
+
+        private final Long sessionId;
+        private final UserPrincipal principal;
+        private volatile long lastSeen;
+
+        private CachedSession(Long sessionId, UserPrincipal principal) {
+            this.sessionId = sessionId;
+            this.principal = principal;
+            this.lastSeen = System.currentTimeMillis();
+        }
+
+        public Long getSessionId() {
+            return sessionId;
+        }
+
+        public UserPrincipal getPrincipal() {
+            return principal;
+        }
+
+        public Long getUserId() {
+            return principal.getUserId();
+        }
+
+        public long getLastSeen() {
+            return lastSeen;
+        }
+
+        /**
+         * Records that the session has been used now.
+         */
+        public void touch() {
+            lastSeen = System.currentTimeMillis();
+        }
+
+        /**
+         * Checks if the session has been idle for longer than the given time.
+         * @param decayTime the idle time in milliseconds after which the session times out
+         * @return true if the session has timed out
+         */
+        public boolean isTimedOut(long decayTime) {
+            long diff = System.currentTimeMillis() - lastSeen;
+            return diff >= decayTime || diff < 0;
+        }
+    }
+}
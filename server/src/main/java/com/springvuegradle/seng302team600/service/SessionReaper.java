@@ -0,0 +1,99 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.Session;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Deletes sessions that have timed out, in the background.
+ * Timed out tokens are rejected on the request path without writing anything, and many are never
+ * presented again, so this is what actually removes them.  Sessions are deleted in chunks so that no
+ * single statement holds locks on a large part of the session table.
+ */
+@Component
+public class SessionReaper {
+
+    private static Log log = LogFactory.getLog(SessionReaper.class);
+
+    private static final String SELECT_EXPIRED =
+            "SELECT session_id FROM session WHERE last_seen < ? ORDER BY session_id LIMIT ?";
+    private static final String DELETE_EXPIRED =
+            "DELETE FROM session WHERE last_seen < ? AND session_id IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LastSeenRecorder lastSeenRecorder;
+    private final int chunkSize;
+    private final long expirySlack;
+
+    private final Timer runTimer;
+    private final Counter reapedCounter;
+
+    public SessionReaper(JdbcTemplate jdbcTemplate, LastSeenRecorder lastSeenRecorder, MeterRegistry meterRegistry,
+                         @Value("${spring.security.session.reaper.chunk-size:500}") int chunkSize,
+                         @Value("${spring.security.session.expiry-slack:10000}") long expirySlack) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lastSeenRecorder = lastSeenRecorder;
+        this.chunkSize = chunkSize;
+        this.expirySlack = expirySlack;
+        this.runTimer = Timer.builder("session.reaper.runs")
+                .description("Runs of the session reaper and how long they took")
+                .register(meterRegistry);
+        this.reapedCounter = Counter.builder("session.reaper.reaped")
+                .description("Timed out sessions deleted by the session reaper")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deletes every session that has timed out, a chunk at a time.
+     * @return the number of sessions deleted
+     */
+    @Scheduled(fixedDelayString = "${spring.security.session.reaper.interval:60000}",
+            initialDelayString = "${spring.security.session.reaper.interval:60000}")
+    public int reap() {
+        return runTimer.record(() -> {
+            // Write pending touches first, so recently used sessions don't look timed out
+            lastSeenRecorder.flush();
+            // Stored last seen times may lag behind by up to the expiry slack
+            Timestamp cutoff = new Timestamp(System.currentTimeMillis() - Session.getTokenDecayTime() - expirySlack);
+            int reaped = 0;
+            List<Long> ids;
+            do {
+                ids = jdbcTemplate.queryForList(SELECT_EXPIRED, Long.class, cutoff, chunkSize);
+                if (!ids.isEmpty()) {
+                    reaped += deleteExpired(ids, cutoff);
+                }
+            } while (ids.size() == chunkSize);
+            reapedCounter.increment(reaped);
+            if (reaped > 0) {
+                log.info("Reaped " + reaped + " timed out sessions");
+            }
+            return reaped;
+        });
+    }
+
+    /**
+     * Deletes a chunk of sessions, skipping any that were used since they were selected.
+     * @param ids the ids of the sessions
+     * @param cutoff sessions last seen before this time have timed out
+     * @return the number of sessions deleted
+     */
+    private int deleteExpired(List<Long> ids, Timestamp cutoff) {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(cutoff);
+        args.addAll(ids);
+        return jdbcTemplate.update(String.format(DELETE_EXPIRED, placeholders), args.toArray());
+    }
+}
@@ -0,0 +1,226 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.TokenRevocation;
+import com.springvuegradle.seng302team600.model.UserPrincipal;
+import com.springvuegradle.seng302team600.repository.TokenRevocationRepository;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies stateless session tokens, used when spring.security.session.mode=signed.
+ * A token carries the user's id and role and an expiry time, signed with HMAC-SHA256, so it can be
+ * checked in memory without a repository call.
+ * Tokens can't be deleted, so a small revocation list covers logout (by token id) and password or
+ * role changes (every token of a user issued before a time).  Revocations are written to the
+ * token_revocation table and each node pulls the others' every revocation-sync-interval, so a token
+ * revoked on one node is rejected by every node within that interval.  Entries are dropped once the
+ * tokens they revoke would have expired anyway.
+ */
+@Component
+public class SignedTokenService {
+
+    private static Log log = LogFactory.getLog(SignedTokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int KEY_BYTES = 32;
+    private static final int TOKEN_ID_BYTES = 12;
+    private static final String SEPARATOR = ".";
+    /** Revocations this much older than the last sync are read again, in case they committed late */
+    private static final long SYNC_OVERLAP = 30000;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final long lifetime;
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Mac> macs;
+    private final TokenRevocationRepository revocationRepository;
+
+    /** Expiry time of each logged out token, by token id */
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    /** Time before which every token of a user is revoked, by user id */
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+    /** When the shared revocations were last read, 0 until the first sync reads every live revocation */
+    private volatile long lastSyncedAt = 0;
+
+    public SignedTokenService(@Value("${spring.security.session.signing-key:}") String signingKey,
+                              @Value("${spring.security.session.token-lifetime:12h}") Duration lifetime,
+                              TokenRevocationRepository revocationRepository) {
+        byte[] keyBytes;
+        if (signingKey.isEmpty()) {
+            // Fine for a single node, but tokens won't survive a restart or be accepted by other nodes
+            keyBytes = new byte[KEY_BYTES];
+            random.nextBytes(keyBytes);
+        } else {
+            keyBytes = Base64.getDecoder().decode(signingKey);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.lifetime = lifetime.toMillis();
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.revocationRepository = revocationRepository;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not create " + ALGORITHM, e);
+        }
+    }
+
+    /**
+     * Issues a signed token for a user.
+     * @param principal the user logging in
+     * @return the token
+     */
+    public String issue(UserPrincipal principal) {
+        byte[] tokenId = new byte[TOKEN_ID_BYTES];
+        random.nextBytes(tokenId);
+        long issuedAt = System.currentTimeMillis();
+        String payload = String.join(SEPARATOR,
+                String.valueOf(principal.getUserId()),
+                String.valueOf(principal.getRole()),
+                String.valueOf(issuedAt),
+                String.valueOf(issuedAt + lifetime),
+                ENCODER.encodeToString(tokenId));
+        String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.US_ASCII));
+        return encodedPayload + SEPARATOR + ENCODER.encodeToString(sign(encodedPayload));
+    }
+
+    /**
+     * Verifies a token's signature, expiry and revocation, without touching the database.
+     * @param token the token
+     * @return the user the token was issued to, or null if the token is not valid
+     */
+    public UserPrincipal verify(String token) {
+        SignedToken signedToken = parse(token);
+        if (signedToken == null || signedToken.expiresAt <= System.currentTimeMillis()
+                || revokedTokens.containsKey(signedToken.tokenId)) {
+            return null;
+        }
+        Long userRevokedBefore = revokedBefore.get(signedToken.userId);
+        if (userRevokedBefore != null && signedToken.issuedAt <= userRevokedBefore) {
+            return null;
+        }
+        return new UserPrincipal(signedToken.userId, signedToken.role);
+    }
+
+    /**
+     * Revokes a single token on every node, used on logout.
+     * @param token the token
+     */
+    public void revoke(String token) {
+        SignedToken signedToken = parse(token);
+        if (signedToken != null) {
+            revokedTokens.put(signedToken.tokenId, signedToken.expiresAt);
+            revocationRepository.save(TokenRevocation.ofToken(signedToken.tokenId, System.currentTimeMillis(),
+                    signedToken.expiresAt));
+        }
+    }
+
+    /**
+     * Revokes every token issued to a user up until now on every node, used when their password or role changes.
+     * @param userId the id of the user
+     */
+    public void revokeUser(Long userId) {
+        long now = System.currentTimeMillis();
+        revokedBefore.merge(userId, now, Math::max);
+        revocationRepository.save(TokenRevocation.ofUser(userId, now, now + lifetime));
+    }
+
+    /**
+     * Pulls the revocations made on every node since the last sync.  Applying a revocation twice is harmless,
+     * so each sync reads back a little further than the last one.
+     */
+    @Scheduled(fixedDelayString = "${spring.security.session.revocation-sync-interval:2000}")
+    public void syncRevocations() {
+        long now = System.currentTimeMillis();
+        long since = lastSyncedAt == 0 ? 0 : lastSyncedAt - SYNC_OVERLAP;
+        List<TokenRevocation> revocations = revocationRepository.findLiveRevokedSince(since, now);
+        for (TokenRevocation revocation : revocations) {
+            if (revocation.getTokenId() != null) {
+                revokedTokens.put(revocation.getTokenId(), revocation.getExpiresAt());
+            } else {
+                revokedBefore.merge(revocation.getUserId(), revocation.getRevokedAt(), Math::max);
+            }
+        }
+        lastSyncedAt = now;
+    }
+
+    /**
+     * Drops revocations of tokens that have expired anyway, keeping the revocation list small.
+     */
+    @Scheduled(fixedDelayString = "${spring.security.session.revocation-prune-interval:60000}")
+    public void pruneRevocations() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedBefore.values().removeIf(revokedAt -> revokedAt + lifetime <= now);
+        revocationRepository.deleteExpired(now);
+    }
+
+    /**
+     * Checks the signature of a token and splits it into its fields.
+     * @param token the token
+     * @return the token's fields, or null if the token is malformed or the signature doesn't match
+     */
+    private SignedToken parse(String token) {
+        int separator = token.indexOf(SEPARATOR);
+        if (separator <= 0) {
+            return null;
+        }
+        String encodedPayload = token.substring(0, separator);
+        try {
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, sign(encodedPayload))) {
+                return null;
+            }
+            String[] fields = new String(DECODER.decode(encodedPayload), StandardCharsets.US_ASCII).split("\\.");
+            return new SignedToken(Long.valueOf(fields[0]), Integer.parseInt(fields[1]),
+                    Long.parseLong(fields[2]), Long.parseLong(fields[3]), fields[4]);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            log.debug("Malformed signed token", e);
+            return null;
+        }
+    }
+
+    private byte[] sign(String encodedPayload) {
+        return macs.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * The fields carried by a signed token.
+     */
+    private static class SignedToken {
+        private final Long userId;
+        private final int role;
+        private final long issuedAt;
+        private final long expiresAt;
+        private final String tokenId;
+
+        private SignedToken(Long userId, int role, long issuedAt, long expiresAt, String tokenId) {
+            this.userId = userId;
+            this.role = role;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+            this.tokenId = tokenId;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.springvuegradle.seng302team600.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket holding up to capacity tokens, refilled by one token every refill interval.
+ * The whole bucket is a single long, the time at which it will next be full, updated by compare and set,
+ * so concurrent attempts never block each other.
+ */
+class TokenBucket {
+
+    private final long capacity;
+    private final long refillInterval;
+
+    /** The time, in nanoseconds, at which the bucket will be full again */
+    private final AtomicLong fullAt;
+
+    /**
+     * Creates a full bucket.
+     * @param capacity the most tokens the bucket can hold
+     * @param refillInterval the time in nanoseconds taken to refill one token
+     * @param now the current time in nanoseconds
+     */
+    TokenBucket(long capacity, long refillInterval, long now) {
+        this.capacity = capacity;
+        this.refillInterval = refillInterval;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes a token from the bucket if there is one.
+     * @param now the current time in nanoseconds
+     * @return 0 if a token was taken, otherwise how many nanoseconds until the next token is available
+     */
+    long tryTake(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + refillInterval;
+            long wait = next - now - capacity * refillInterval;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Generates random, URL-safe session tokens.
+ * Every token is drawn from one shared DRBG, seeded once, so logging in never waits on the system's
+ * entropy source.  Each thread takes random bytes from the DRBG a pool at a time and slices its tokens
+ * out of that pool, so concurrent logins rarely contend on the DRBG's lock.
+ */
+@Component
+public class TokenGenerator {
+
+    private static Log log = LogFactory.getLog(TokenGenerator.class);
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final SecureRandom random;
+    private final int tokenBytes;
+    private final int poolSize;
+    private final ThreadLocal<EntropyPool> pools;
+
+    /**
+     * @param tokenBytes the number of random bytes in a token, the token is about a third longer once encoded
+     * @param poolSize the number of random bytes each thread takes from the DRBG at a time, 0 to take each
+     *                 token's bytes directly (as does any pool too small to hold a token)
+     */
+    @Autowired
+    public TokenGenerator(@Value("${spring.security.session.token-bytes:24}") int tokenBytes,
+                          @Value("${spring.security.session.entropy-pool-size:1024}") int poolSize) {
+        this(createRandom(), tokenBytes, poolSize);
+    }
+
+    TokenGenerator(SecureRandom random, int tokenBytes, int poolSize) {
+        if (tokenBytes < 16) {
+            throw new IllegalArgumentException("Tokens need at least 16 random bytes, not " + tokenBytes);
+        }
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("The entropy pool size can't be negative, not " + poolSize);
+        }
+        this.random = random;
+        this.tokenBytes = tokenBytes;
+        this.poolSize = poolSize;
+        this.pools = ThreadLocal.withInitial(() -> new EntropyPool(this.poolSize));
+    }
+
+    private static SecureRandom createRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            log.warn("DRBG is not available, falling back to the default SecureRandom");
+            return new SecureRandom();
+        }
+    }
+
+    /**
+     * Generates a new token.
+     * @return the URL-safe Base64 encoding of the token's random bytes, without padding
+     */
+    public String generate() {
+        byte[] bytes = new byte[tokenBytes];
+        nextBytes(bytes);
+        return ENCODER.encodeToString(bytes);
+    }
+
+    /**
+     * Fills an array with random bytes from this thread's pool.
+     * @param bytes the array to fill
+     */
+    public void nextBytes(byte[] bytes) {
+        if (bytes.length > poolSize) {
+            random.nextBytes(bytes);
+        } else {
+            pools.get().take(bytes);
+        }
+    }
+
+    /**
+     * Random bytes taken from the DRBG in bulk, used by a single thread.
+     */
+    private class EntropyPool {
+        private final byte[] bytes;
+        private int position;
+
+        private EntropyPool(int size) {
+            bytes = new byte[size];
+            position = size;
+        }
+
+        private void take(byte[] destination) {
+            if (bytes.length - position < destination.length) {
+                random.nextBytes(bytes);
+                position = 0;
+            }
+            System.arraycopy(bytes, position, destination, 0, destination.length);
+            // Bytes handed out are wiped, so they never linger in the pool
+            Arrays.fill(bytes, position, position + destination.length, (byte) 0);
+            position += destination.length;
+        }
+    }
+}
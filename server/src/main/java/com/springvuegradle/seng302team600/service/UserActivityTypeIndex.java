@@ -0,0 +1,16 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The ActivityTypeIndex of users, built from the user_activity_type table and kept up to date by the
+ * UserController whenever a user's activity types change.
+ */
+@Component
+public class UserActivityTypeIndex extends ActivityTypeIndex {
+
+    public UserActivityTypeIndex(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate, "user_activity_type", "user_id");
+    }
+}
@@ -1,97 +1,120 @@
 package com.springvuegradle.seng302team600.service;
 
-import com.springvuegradle.seng302team600.model.Email;
+import com.springvuegradle.seng302team600.model.Session;
 import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.model.UserCredentials;
+import com.springvuegradle.seng302team600.model.UserPrincipal;
 import com.springvuegradle.seng302team600.model.UserRole;
 import com.springvuegradle.seng302team600.payload.LoginResponse;
-import com.springvuegradle.seng302team600.repository.EmailRepository;
+import com.springvuegradle.seng302team600.repository.SessionRepository;
 import com.springvuegradle.seng302team600.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.security.SecureRandom;
-
 @Service("userService")
 public class UserAuthenticationService {
 
     @Autowired
-    private EmailRepository emailRepository;
+    private UserRepository userRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private SessionCache sessionCache;
+
+    @Autowired
+    private LastSeenRecorder lastSeenRecorder;
+
+    @Autowired
+    private SignedTokenService signedTokenService;
 
-    private static final String CHAR_LIST =
-            "1234567890abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private TokenGenerator tokenGenerator;
+
+    /** How far behind the last use of a token its session's stored last seen time is allowed to be */
+    @Value("${spring.security.session.expiry-slack:10000}")
+    private long expirySlack;
 
     /**
-     * Login helper function. Generates a random String value for token, to be stored in the database.
-     * @return Random String for Token.
+     * Either "database" (tokens are stored as sessions) or "signed" (stateless tokens are issued by the
+     * SignedTokenService, and checked without touching the database)
      */
-    private String generateNewToken() {
-        int length = 30;
-        StringBuffer strBuffer = new StringBuffer(length);
-        SecureRandom secureRandom = new SecureRandom();
-        for(int i = 0; i < length; i++)
-            strBuffer.append(CHAR_LIST.charAt(secureRandom.nextInt(CHAR_LIST.length())));
-        return strBuffer.toString();
-    }
+    @Value("${spring.security.session.mode:database}")
+    private String sessionMode;
+
+    private static final String SIGNED_MODE = "signed";
 
     /**
-     * Generates a token and stores token in repository if valid email and password
+     * Generates a token and starts a new session if valid email and password.
+     * Each login starts its own session, so a user can be logged in on several devices at once.
      * @param email user's email to login
      * @param password user's password to login
      * @return the token generated or ResponseStatusException is thrown
      */
     public LoginResponse login(String email, String password) {
-        Email userEmail = emailRepository.findByEmail(email);
-        if (userEmail == null) {
+        // Turn away repeated attempts before they cost a query and a password hash
+        loginThrottle.attempt(email, getClientAddress());
+        UserCredentials credentials = userRepository.findCredentialsByEmail(email);
+        if (credentials == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Could not find user with email " + email);
         }
-        User user = userEmail.getUser();
-        if (user.checkPassword(password)) {
-            String token = generateNewToken();
-            user.setToken(token);
-            user.setTokenTime();
-            userRepository.save(user);
-            return new LoginResponse(token, user.getUserId());
+        if (credentials.checkPassword(password)) {
+            return startSession(credentials.getPrincipal());
         }
         throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Login unsuccessful, please enter a valid password");
     }
 
     /**
-     * Find user which contains token and remove it
+     * Generates a token and starts a new session for a user whose identity has already been established,
+     * such as a user who has just registered.  Neither throttled nor checked against a password.
+     * @param principal the user's id and role
+     * @return the token generated
+     */
+    public LoginResponse startSession(UserPrincipal principal) {
+        if (isSignedMode()) {
+            return new LoginResponse(signedTokenService.issue(principal), principal.getUserId());
+        }
+        String token = tokenGenerator.generate();
+        sessionRepository.save(new Session(token, principal));
+        return new LoginResponse(token, principal.getUserId());
+    }
+
+    /**
+     * Ends the session with the given token
      * @param token a user's token
      */
     public void logout(String token) {
-        User user = userRepository.findByToken(token);
-        if (user != null) {
-            user.setToken(null);
-            userRepository.save(user);
+        if (isSignedMode()) {
+            signedTokenService.revoke(token);
+            return;
         }
+        sessionCache.invalidate(token);
+        sessionRepository.deleteByTokenHash(Session.hashToken(token));
     }
 
     /**
      * Finds a user with the given token, if not found or timed out token return null
-     * @param token stored at user
+     * The user is always loaded by id, only the token itself is looked up just on a session cache miss.
+     * Handlers that only need the user's id or role should use authenticate or authorizeUser instead.
+     * @param token of the user's session
      * @return User requested or ResponseStatusException is thrown (if unauthorized or timed out)
      */
     public User findByToken(String token) {
-        if (token == null || token.equals("[object Object]")) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not logged in");
-        }
-        User user = userRepository.findByToken(token);
+        User user = userRepository.findByUserId(authenticate(token).getUserId());
         if (user == null) {
+            sessionCache.invalidate(token);
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found, invalid credentials");
         }
-        if (user.isTimedOut()) {
-            user.setToken(null);
-            userRepository.save(user);
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User credentials timed out");
-        }
-        user.setTokenTime();
-        userRepository.save(user);
         return user;
     }
 
@@ -102,22 +125,165 @@ public class UserAuthenticationService {
      * @return user requested or ResponseStatusException is thrown (if unauthorized or timed out token)
      */
     public User findByUserId(String token, Long id) {
-        User thisUser = findByToken(token);
-        if (thisUser.getUserId().equals(id)) {
-            return thisUser;
-        }
-        // Checks admin privileges
-        if (hasAdminPrivileges(thisUser)) {
-            User user = userRepository.findByUserId(id);
-            if (user != null) {
-                return user;
-            } else {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found with ID: " + id);
-            }
+        authorizeUser(token, id);
+        User user = userRepository.findByUserId(id);
+        if (user != null) {
+            return user;
+        } else {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found with ID: " + id);
+        }
+    }
+
+    /**
+     * Checks that the current user is authorized to access the user with the given id, without loading either.
+     * @param token belongs to session user
+     * @param id of user requested
+     * @return the logged in user's id and role or ResponseStatusException is thrown (if unauthorized, forbidden
+     * or timed out token)
+     */
+    public UserPrincipal authorizeUser(String token, Long id) {
+        UserPrincipal principal = authenticate(token);
+        // Users can access themselves, admins can access anyone
+        if (principal.getUserId().equals(id) || principal.getRole() >= UserRole.ADMIN) {
+            return principal;
         }
         throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User forbidden from accessing user with ID: " + id);
     }
 
+    /**
+     * Checks that the given token belongs to a logged in user, without loading the user.
+     * Within a request the token is authenticated once, when it is first asked for, and the outcome is reused.
+     * Otherwise cached sessions and signed tokens are checked in memory, a cache miss loads only the session row.
+     * @param token of the user's session
+     * @return the logged in user's id and role or ResponseStatusException is thrown (if unauthorized or timed out)
+     */
+    public UserPrincipal authenticate(String token) {
+        RequestAuthentication requestAuthentication = RequestAuthentication.forToken(token);
+        if (requestAuthentication != null) {
+            return requestAuthentication.getPrincipal(this::lookUpPrincipal);
+        }
+        return lookUpPrincipal(token);
+    }
+
+    private UserPrincipal lookUpPrincipal(String token) {
+        UserPrincipal principal = findKnownPrincipal(token);
+        if (principal != null) {
+            return principal;
+        }
+        Session session = loadSession(token);
+        return sessionCache.put(token, session.getSessionId(), session.getPrincipal()).getPrincipal();
+    }
+
+    /**
+     * Brings a user's sessions up to date after their profile has been edited, since the sessions hold the
+     * user's role.  A signed token carries the role it was issued with, so a changed role revokes every
+     * signed token of the user.
+     * @param user the user who has changed
+     * @param previousRole the user's role before the edit
+     */
+    public void refreshSessions(User user, int previousRole) {
+        if (!isSignedMode()) {
+            sessionRepository.updateRoleByUserId(user.getUserId(), user.getRole());
+        } else if (user.getRole() != previousRole) {
+            signedTokenService.revokeUser(user.getUserId());
+        }
+        sessionCache.invalidateUser(user.getUserId());
+    }
+
+    /**
+     * Revokes a user's sessions after their password has changed, apart from the session making the change.
+     * Signed tokens can't be told apart, so every signed token issued until now is revoked.
+     * @param userId the id of the user whose password changed
+     * @param token the token of the session changing the password
+     */
+    public void revokeOtherSessions(Long userId, String token) {
+        if (isSignedMode()) {
+            signedTokenService.revokeUser(userId);
+        } else {
+            sessionRepository.deleteOtherSessions(userId, Session.hashToken(token));
+        }
+        sessionCache.invalidateUser(userId);
+    }
+
+    /**
+     * Resolves a token without querying the database, by verifying a signed token or finding a cached session.
+     * A cache hit refreshes the session's last seen time.
+     * @param token of the user's session
+     * @return the logged in user, or null if the token has to be checked against the database
+     */
+    private UserPrincipal findKnownPrincipal(String token) {
+        if (token == null || token.equals("[object Object]")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not logged in");
+        }
+        if (isSignedMode()) {
+            UserPrincipal principal = signedTokenService.verify(token);
+            if (principal == null) {
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid or timed out credentials");
+            }
+            return principal;
+        }
+        SessionCache.CachedSession session = sessionCache.get(token);
+        if (session == null) {
+            return null;
+        }
+        if (session.isTimedOut(Session.getTokenDecayTime())) {
+            sessionCache.invalidate(token);
+            return null;
+        }
+        session.touch();
+        lastSeenRecorder.touch(session.getSessionId());
+        return session.getPrincipal();
+    }
+
+    /**
+     * Gets the address of the client making the current request.
+     * @return the client's address, or null if there is no current request
+     */
+    private String getClientAddress() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return ((ServletRequestAttributes) attributes).getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+
+    private boolean isSignedMode() {
+        return SIGNED_MODE.equalsIgnoreCase(sessionMode);
+    }
+
+    /**
+     * Finds the session with the given token in the database and records that the token has been used.
+     * The last seen time itself is written later by the LastSeenRecorder.
+     * @param token of the session
+     * @return the session or ResponseStatusException is thrown (if unauthorized or timed out)
+     */
+    private Session loadSession(String token) {
+        Session session = sessionRepository.findByTokenHash(Session.hashToken(token));
+        if (session == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found, invalid credentials");
+        }
+        if (isTimedOut(session)) {
+            // Left for the SessionReaper, so a rejected token never costs a write
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User credentials timed out");
+        }
+        lastSeenRecorder.touch(session.getSessionId());
+        return session;
+    }
+
+    /**
+     * Checks if a session has timed out.  A touch that hasn't been written yet is newer than the
+     * stored last seen time, otherwise the stored time is checked allowing for the expiry slack.
+     * @param session the session
+     * @return true if the session has timed out
+     */
+    private boolean isTimedOut(Session session) {
+        Long lastSeen = lastSeenRecorder.getPendingLastSeen(session.getSessionId());
+        if (lastSeen != null && System.currentTimeMillis() - lastSeen < Session.getTokenDecayTime()) {
+            return false;
+        }
+        return session.isTimedOut(expirySlack);
+    }
+
     /**
      * Checks a user's admin privileges.
      * Returns true if a user is an admin.
@@ -135,7 +301,7 @@ public class UserAuthenticationService {
      * @return the user requested or ResponseStatusException is the user is not found
      */
     public User viewUserById(Long id, String token) {
-        findByToken(token); // Checks that a user is logged in
+        authenticate(token); // Checks that a user is logged in
         User user = userRepository.findByUserId(id);
         if (user != null) {
             return user;
@@ -0,0 +1,402 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory index over users' first, last and nick names, for typeahead search.
+ * Each word of a name is broken into trigrams, its first one to three letters are kept as prefixes, and the
+ * word itself is kept whole.  Each of these maps to a compressed bitmap of the ids of users with it, so the
+ * candidates for a search term are a bitmap intersection.  Matches are ranked: a whole word beats the start
+ * of a word, which beats the middle of one.  Short terms are ranked with bitmaps alone, since their
+ * prefixes and trigram match exactly, while candidates for longer terms are checked against their names.
+ * Names are matched without case or accents.  Built from the user table at startup, and kept up to date
+ * by the UserController on registration and profile edits.
+ */
+@Component
+public class UserNameIndex {
+
+    private static Log log = LogFactory.getLog(UserNameIndex.class);
+
+    private static final String SELECT_ALL = "SELECT user_id, first_name, last_name, nickname FROM user";
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int GRAM_LENGTH = 3;
+    private static final char PREFIX_MARK = '^';
+    private static final char WORD_MARK = '=';
+    /** The most terms ranked with bitmaps alone, each term triples the number of score combinations */
+    private static final int MAX_BITMAP_RANKED_TERMS = 3;
+
+    private static final int WHOLE_WORD_SCORE = 4;
+    private static final int WORD_START_SCORE = 3;
+    private static final int WORD_MIDDLE_SCORE = 1;
+    private static final int[] TIER_SCORES = {WHOLE_WORD_SCORE, WORD_START_SCORE, WORD_MIDDLE_SCORE};
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** User ids by trigram, prefix or whole word */
+    private Map<String, RoaringBitmap> usersByGram = new HashMap<>();
+    /** Each user's normalized names as " word word ... ", by user id */
+    private String[] names = new String[1024];
+
+    public UserNameIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Loads every user's names into the index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            usersByGram = new HashMap<>();
+            names = new String[1024];
+            jdbcTemplate.query(SELECT_ALL, resultSet -> {
+                add(toIndex(resultSet.getLong("user_id")), resultSet.getString("first_name"),
+                        resultSet.getString("last_name"), resultSet.getString("nickname"));
+            });
+            usersByGram.values().forEach(RoaringBitmap::runOptimize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info(String.format("Indexed user names in %d ms", System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Replaces a user's names in the index, call after the user has been saved.
+     * @param userId the id of the user
+     * @param firstName the user's first name
+     * @param lastName the user's last name
+     * @param nickName the user's nick name, may be null
+     */
+    public void update(Long userId, String firstName, String lastName, String nickName) {
+        int user = toIndex(userId);
+        lock.writeLock().lock();
+        try {
+            if (user < names.length && names[user] != null) {
+                for (String gram : grams(names[user])) {
+                    RoaringBitmap users = usersByGram.get(gram);
+                    users.remove(user);
+                    if (users.isEmpty()) {
+                        usersByGram.remove(gram);
+                    }
+                }
+                names[user] = null;
+            }
+            add(user, firstName, lastName, nickName);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the users whose names match every word of a search, best matches first.
+     * Words of one or two letters match the start of a name, longer words match anywhere in a name.
+     * @param query the words to search for
+     * @param offset the number of matching users to skip
+     * @param limit the largest number of users to return
+     * @return the page of matching users
+     */
+    public Page search(String query, int offset, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(words(query)));
+        if (terms.isEmpty()) {
+            return new Page(Collections.emptyList(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            if (isBitmapRanked(terms)) {
+                return rankWithBitmaps(terms, offset, limit);
+            }
+            return rankByScoring(terms, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean isBitmapRanked(List<String> terms) {
+        if (terms.size() > MAX_BITMAP_RANKED_TERMS) {
+            return false;
+        }
+        for (String term : terms) {
+            if (term.length() > GRAM_LENGTH) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ranks the matches for terms of up to three letters without looking at any names.
+     * For each term the users it matches as a whole word, as the start of a word and in the middle of a word
+     * are known exactly, so each score is a union of intersections of these, and the best scores are read off
+     * in order of user id until the page is full.
+     */
+    private Page rankWithBitmaps(List<String> terms, int offset, int limit) {
+        List<RoaringBitmap[]> tiersByTerm = new ArrayList<>(terms.size());
+        RoaringBitmap matches = null;
+        for (String term : terms) {
+            RoaringBitmap anywhere = getUsers(term.length() < GRAM_LENGTH ? PREFIX_MARK + term : term);
+            matches = matches == null ? anywhere.clone() : RoaringBitmap.and(matches, anywhere);
+            RoaringBitmap wholeWord = getUsers(WORD_MARK + term);
+            RoaringBitmap wordStart = getUsers(PREFIX_MARK + term);
+            tiersByTerm.add(new RoaringBitmap[]{
+                    wholeWord,
+                    RoaringBitmap.andNot(wordStart, wholeWord),
+                    RoaringBitmap.andNot(anywhere, wordStart)});
+        }
+        SortedMap<Integer, RoaringBitmap> usersByScore = new TreeMap<>(Comparator.reverseOrder());
+        if (!matches.isEmpty()) {
+            addScores(tiersByTerm, 0, 0, null, usersByScore);
+        }
+        List<Long> userIds = new ArrayList<>(limit);
+        int skip = offset;
+        for (RoaringBitmap users : usersByScore.values()) {
+            int count = users.getCardinality();
+            if (skip >= count) {
+                skip -= count;
+                continue;
+            }
+            IntIterator iterator = users.getIntIterator();
+            for (int i = 0; i < skip; i++) {
+                iterator.next();
+            }
+            skip = 0;
+            while (iterator.hasNext() && userIds.size() < limit) {
+                userIds.add((long) iterator.next());
+            }
+            if (userIds.size() == limit) {
+                break;
+            }
+        }
+        return new Page(userIds, matches.getCardinality());
+    }
+
+    /**
+     * Adds the users of every combination of tiers from the given term onwards to their total score.
+     */
+    private static void addScores(List<RoaringBitmap[]> tiersByTerm, int term, int score, RoaringBitmap users,
+                                  SortedMap<Integer, RoaringBitmap> usersByScore) {
+        if (term == tiersByTerm.size()) {
+            usersByScore.merge(score, users, (left, right) -> RoaringBitmap.or(left, right));
+            return;
+        }
+        RoaringBitmap[] tiers = tiersByTerm.get(term);
+        for (int tier = 0; tier < tiers.length; tier++) {
+            RoaringBitmap combined = users == null ? tiers[tier] : RoaringBitmap.and(users, tiers[tier]);
+            if (!combined.isEmpty()) {
+                addScores(tiersByTerm, term + 1, score + TIER_SCORES[tier], combined, usersByScore);
+            }
+        }
+    }
+
+    /**
+     * Ranks the matches for longer terms by checking each candidate's names.
+     */
+    private Page rankByScoring(List<String> terms, int offset, int limit) {
+        // Callers cap the offset, addExact keeps a mistake from wrapping around into an empty queue
+        int wanted = Math.addExact(offset, limit);
+        // Built once per search rather than once per candidate
+        String[] wholeWords = new String[terms.size()];
+        String[] wordStarts = new String[terms.size()];
+        for (int i = 0; i < terms.size(); i++) {
+            wordStarts[i] = " " + terms.get(i);
+            wholeWords[i] = wordStarts[i] + " ";
+        }
+        // The worst of the best matches so far is at the head, to be dropped when a better one is found
+        PriorityQueue<long[]> best = new PriorityQueue<>(Comparator
+                .comparingLong((long[] match) -> match[1]).thenComparingLong(match -> -match[0]));
+        int total = 0;
+        IntIterator iterator = findCandidates(terms).getIntIterator();
+        while (iterator.hasNext()) {
+            int user = iterator.next();
+            int score = score(names[user], terms, wholeWords, wordStarts);
+            if (score == 0) {
+                continue;
+            }
+            total++;
+            // Candidates come in order of user id, so a tie never displaces an earlier match
+            if (best.size() < wanted) {
+                best.add(new long[]{user, score});
+            } else if (score > best.peek()[1]) {
+                long[] match = best.poll();
+                match[0] = user;
+                match[1] = score;
+                best.add(match);
+            }
+        }
+        List<long[]> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.comparingLong((long[] match) -> -match[1]).thenComparingLong(match -> match[0]));
+        List<Long> userIds = new ArrayList<>(limit);
+        for (int i = offset; i < ranked.size(); i++) {
+            userIds.add(ranked.get(i)[0]);
+        }
+        return new Page(userIds, total);
+    }
+
+    private RoaringBitmap getUsers(String gram) {
+        return usersByGram.getOrDefault(gram, EMPTY);
+    }
+
+    /**
+     * Finds the users who might match every term, by intersecting the bitmaps of the terms' grams.
+     */
+    private RoaringBitmap findCandidates(List<String> terms) {
+        List<RoaringBitmap> bitmaps = new ArrayList<>();
+        for (String term : terms) {
+            for (String gram : termGrams(term)) {
+                RoaringBitmap users = usersByGram.get(gram);
+                if (users == null) {
+                    return new RoaringBitmap();
+                }
+                bitmaps.add(users);
+            }
+        }
+        // Intersect the smallest first, so the working set shrinks as fast as possible
+        bitmaps.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+        RoaringBitmap candidates = bitmaps.get(0).clone();
+        for (int i = 1; i < bitmaps.size() && !candidates.isEmpty(); i++) {
+            candidates.and(bitmaps.get(i));
+        }
+        return candidates;
+    }
+
+    /**
+     * Scores how well a user's names match the terms.
+     * @param names the user's normalized names
+     * @param terms the search terms
+     * @param wholeWords each term between spaces
+     * @param wordStarts each term after a space
+     * @return the score, or 0 if a term doesn't match (grams can match without the term itself matching)
+     */
+    private static int score(String names, List<String> terms, String[] wholeWords, String[] wordStarts) {
+        int score = 0;
+        for (int i = 0; i < wholeWords.length; i++) {
+            String term = terms.get(i);
+            if (names.contains(wholeWords[i])) {
+                score += WHOLE_WORD_SCORE;
+            } else if (names.contains(wordStarts[i])) {
+                score += WORD_START_SCORE;
+            } else if (term.length() >= GRAM_LENGTH && names.contains(term)) {
+                score += WORD_MIDDLE_SCORE;
+            } else {
+                return 0;
+            }
+        }
+        return score;
+    }
+
+    private void add(int user, String firstName, String lastName, String nickName) {
+        StringBuilder joined = new StringBuilder(" ");
+        for (String name : new String[]{firstName, lastName, nickName}) {
+            for (String word : words(name)) {
+                joined.append(word).append(' ');
+            }
+        }
+        String normalized = joined.toString();
+        if (user >= names.length) {
+            names = Arrays.copyOf(names, Math.max(names.length * 2, user + 1));
+        }
+        names[user] = normalized;
+        for (String gram : grams(normalized)) {
+            usersByGram.computeIfAbsent(gram, key -> new RoaringBitmap()).add(user);
+        }
+    }
+
+    /**
+     * Gets the trigrams, prefixes and whole words of every word in a user's normalized names.
+     */
+    private static Set<String> grams(String names) {
+        Set<String> grams = new HashSet<>();
+        for (String word : names.trim().split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            grams.add(WORD_MARK + word);
+            for (int length = 1; length <= Math.min(GRAM_LENGTH, word.length()); length++) {
+                grams.add(PREFIX_MARK + word.substring(0, length));
+            }
+            for (int i = 0; i + GRAM_LENGTH <= word.length(); i++) {
+                grams.add(word.substring(i, i + GRAM_LENGTH));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Gets the grams a name has to have to match a search term.
+     */
+    private static List<String> termGrams(String term) {
+        if (term.length() < GRAM_LENGTH) {
+            return Collections.singletonList(PREFIX_MARK + term);
+        }
+        List<String> grams = new ArrayList<>(term.length() - GRAM_LENGTH + 1);
+        for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+            grams.add(term.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * Splits text into lower case words without accents.
+     */
+    private static List<String> words(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        String plain = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> words = new ArrayList<>();
+        for (String word : SEPARATORS.split(plain.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static int toIndex(long userId) {
+        // User ids are generated from 1 upwards, and are far from running out of 32 bits
+        return Math.toIntExact(userId);
+    }
+
+    /**
+     * A page of search results.
+     */
+    public static class Page {
+        private final List<Long> userIds;
+        private final int total;
+
+        private Page(List<Long> userIds, int total) {
+            this.userIds = userIds;
+            this.total = total;
+        }
+
+        /** @return the ids of the matching users on this page, best matches first */
+        public List<Long> getUserIds() {
+            return userIds;
+        }
+
+        /** @return the number of matching users on every page */
+        public int getTotal() {
+            return total;
+        }
+    }
+}
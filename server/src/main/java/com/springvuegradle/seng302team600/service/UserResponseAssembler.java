@@ -0,0 +1,57 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.ActivityType;
+import com.springvuegradle.seng302team600.payload.UserResponse;
+import com.springvuegradle.seng302team600.repository.EmailRepository;
+import com.springvuegradle.seng302team600.repository.UserRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Builds the UserResponses for a list of users without loading the users themselves.
+ * Their fields come from a projection query, and their emails, passports and activity types from one
+ * query each, so the number of queries doesn't grow with the number of users.
+ */
+@Service
+public class UserResponseAssembler {
+
+    private final UserRepository userRepository;
+    private final EmailRepository emailRepository;
+
+    public UserResponseAssembler(UserRepository userRepository, EmailRepository emailRepository) {
+        this.userRepository = userRepository;
+        this.emailRepository = emailRepository;
+    }
+
+    /**
+     * Builds the responses for the users with the given ids.
+     * @param userIds the ids of the users
+     * @return the responses, in order of user id, without users that don't exist
+     */
+    public List<UserResponse> assemble(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<UserResponse> responses = userRepository.findUserResponsesByIds(userIds);
+        Map<Long, UserResponse> responsesById = new HashMap<>();
+        for (UserResponse response : responses) {
+            responsesById.put(response.getId(), response);
+        }
+        for (Object[] row : emailRepository.findEmailsByUserIds(userIds)) {
+            UserResponse response = responsesById.get((Long) row[0]);
+            if ((Boolean) row[2]) {
+                response.setPrimaryEmail((String) row[1]);
+            } else {
+                response.getAdditionalEmails().add((String) row[1]);
+            }
+        }
+        for (Object[] row : userRepository.findPassportsByUserIds(userIds)) {
+            responsesById.get((Long) row[0]).getPassports().add((String) row[1]);
+        }
+        for (Object[] row : userRepository.findActivityTypesByUserIds(userIds)) {
+            responsesById.get((Long) row[0]).getActivityTypes().add((ActivityType) row[1]);
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,79 @@
+package com.springvuegradle.seng302team600.Utilities;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuleSetTest {
+
+    private static final TextRule NAME = TextRule.required("Name is missing")
+            .maxLength(10, "Name is too long")
+            .matches("[a-z]+", "Name '%s' is not lower case")
+            .build();
+
+    private static final RuleSet<String[]> PAIR_RULES = RuleSet.<String[]>builder()
+            .text(pair -> pair[0], NAME)
+            .text(pair -> pair[1], NAME)
+            .eachText(pair -> Arrays.asList(pair).subList(2, pair.length), NAME)
+            .build();
+
+    @Test
+    public void textRuleChecksInOrder() {
+        assertNull(NAME.check("bob"));
+        assertEquals("Name is missing", NAME.check(null));
+        assertEquals("Name 'Bob' is not lower case", NAME.check("Bob"));
+    }
+
+    @Test
+    public void lengthIsCheckedBeforePatterns() {
+        // The pattern was added first, but a value that is too long never reaches it
+        TextRule rule = TextRule.optional()
+                .matches("[a-z]+", "Not lower case")
+                .maxLength(3, "Too long")
+                .build();
+        assertEquals("Too long", rule.check("ABCDEF"));
+        assertEquals("Not lower case", rule.check("ABC"));
+        assertNull(rule.check(null));
+    }
+
+    @Test
+    public void emptyValueCanSkipPatterns() {
+        TextRule rule = TextRule.optional()
+                .emptyMatchesPatterns()
+                .matches("[a-z]+", "Not lower case")
+                .build();
+        assertNull(rule.check(""));
+        assertEquals("Not lower case", rule.check("A"));
+    }
+
+    @Test
+    public void validateStopsAtFirstError() {
+        assertTrue(PAIR_RULES.validate(new String[]{"ann", "bob"}));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> PAIR_RULES.validate(new String[]{"Ann", "bobbobbobbob"}));
+        assertEquals("Name 'Ann' is not lower case", exception.getReason());
+    }
+
+    @Test
+    public void onlyTheFirstBadValueOfACollectionIsReported() {
+        assertTrue(PAIR_RULES.validate(new String[]{"ann", "bob", "cat"}));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> PAIR_RULES.validate(new String[]{"ann", "bob", "Cat", "Dog"}));
+        assertEquals("Name 'Cat' is not lower case", exception.getReason());
+    }
+
+    @Test
+    public void conditionalRulesOnlyApplyWhenTheConditionHolds() {
+        RuleSet<String> rules = RuleSet.<String>builder()
+                .when(value -> value.startsWith("x"), RuleSet.<String>builder()
+                        .rule(value -> value.length() > 1, "Too short")
+                        .build())
+                .build();
+        assertTrue(rules.validate("a"));
+        assertTrue(rules.validate("xy"));
+        assertThrows(ResponseStatusException.class, () -> rules.validate("x"));
+    }
+}
@@ -4,6 +4,8 @@ import com.springvuegradle.seng302team600.model.ActivityType;
 import com.springvuegradle.seng302team600.model.Email;
 import com.springvuegradle.seng302team600.model.User;
 import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
+import com.springvuegradle.seng302team600.service.ActivityTypeRegistry;
+import com.springvuegradle.seng302team600.service.UserAuthenticationService;
 import io.cucumber.java.en.When;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,7 +38,9 @@ public class UserValidatorTest {
     final static public String NAME_ERROR = "Name must contain at least one letter and no non-letter characters";
 
     @MockBean
-    private ActivityTypeRepository repo;
+    private UserAuthenticationService userAuthenticationService;
+    @MockBean
+    private ActivityTypeRegistry registry;
     private UserValidator userValidator;
     private User testUser;
     private User nullUser;
@@ -52,12 +56,12 @@ public class UserValidatorTest {
         ActivityType activityType2 = new ActivityType("Test type 2");
         activityTypeList.add(activityType1);
         activityTypeList.add(activityType2);
-        when(repo.findAll()).thenAnswer(i -> { return activityTypeList; });
+        when(registry.getActivityTypes()).thenAnswer(i -> { return activityTypeList; });
 
         MockitoAnnotations.initMocks(this);
 
         activityTypeSet = new HashSet<>(activityTypeList);
-        userValidator  = new UserValidator(repo);
+        userValidator  = new UserValidator(registry);
         testUser = new User();
         // create valid user here
         testUser.setFirstName("mc'John");
@@ -5,15 +5,25 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.springvuegradle.seng302team600.model.Activity;
+import com.springvuegradle.seng302team600.model.ActivityType;
+import com.springvuegradle.seng302team600.model.ActivityTypeMask;
 import com.springvuegradle.seng302team600.model.Email;
 import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.model.UserPrincipal;
 import com.springvuegradle.seng302team600.model.UserRole;
 import com.springvuegradle.seng302team600.model.UserRole;
+import com.springvuegradle.seng302team600.payload.ActivityResponse;
 import com.springvuegradle.seng302team600.payload.UserRegisterRequest;
 import com.springvuegradle.seng302team600.repository.ActivityParticipantRepository;
 import com.springvuegradle.seng302team600.repository.ActivityRepository;
 import com.springvuegradle.seng302team600.repository.EmailRepository;
 import com.springvuegradle.seng302team600.repository.UserRepository;
+import com.springvuegradle.seng302team600.service.ActivityActivityTypeIndex;
+import com.springvuegradle.seng302team600.service.ActivityTypeIndex;
+import com.springvuegradle.seng302team600.service.ActivityIntervalIndex;
+import com.springvuegradle.seng302team600.service.ActivityExporter;
+import com.springvuegradle.seng302team600.service.ActivityResponseAssembler;
+import com.springvuegradle.seng302team600.service.ActivityTypeRegistry;
 import com.springvuegradle.seng302team600.service.ActivityTypeService;
 import com.springvuegradle.seng302team600.service.FeedEventService;
 import com.springvuegradle.seng302team600.service.UserAuthenticationService;
@@ -24,8 +34,11 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -33,16 +46,25 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ActivityController.class)
+@Import({ActivityActivityTypeIndex.class, ActivityIntervalIndex.class})
 class ActivityControllerTest {
 
     @MockBean
@@ -59,6 +81,18 @@ class ActivityControllerTest {
     private ActivityTypeService activityTypeService;
     @MockBean
     private ActivityParticipantRepository activityParticipantRepository;
+    @MockBean
+    private ActivityTypeRegistry activityTypeRegistry;
+    @MockBean
+    private ActivityExporter activityExporter;
+    @MockBean
+    private JdbcTemplate jdbcTemplate;
+    @MockBean
+    private ActivityResponseAssembler activityResponseAssembler;
+    @Autowired
+    private ActivityActivityTypeIndex activityActivityTypeIndex;
+    @Autowired
+    private ActivityIntervalIndex activityIntervalIndex;
     @Autowired
     private MockMvc mvc;
 
@@ -84,19 +118,19 @@ class ActivityControllerTest {
     void setUp() {
         MockitoAnnotations.initMocks(this);
         dummyUser1 = new User();
-        dummyUser1.setToken(validToken);
         ReflectionTestUtils.setField(dummyUser1, "userId", DEFAULT_USER_ID);
 
         dummyUser2 = new User();
-        dummyUser2.setToken(forbiddenToken);
         ReflectionTestUtils.setField(dummyUser2, "userId", DEFAULT_USER_ID_2);
 
         dummyUser3 = new User();
-        dummyUser3.setToken(anotherValidToken);
         ReflectionTestUtils.setField(dummyUser3, "userId", DEFAULT_USER_ID_3);
 
         // Mocking ActivityTypeService
         when(activityTypeService.getMatchingEntitiesFromRepository(Mockito.any())).thenAnswer(i -> i.getArgument(0));
+        // The indices are shared by every test, building them from the mocked JdbcTemplate empties them
+        activityActivityTypeIndex.build();
+        activityIntervalIndex.build();
         when(activityRepository.findAllByUserId(Mockito.any(Long.class))).thenAnswer(i -> new ArrayList<>(activityMockTable));
         // Mocking userAuthenticationService
         when(userAuthenticationService.findByUserId(Mockito.any(String.class), Mockito.any(Long.class))).thenAnswer(i -> {
@@ -133,20 +167,28 @@ class ActivityControllerTest {
         });
         when(userAuthenticationService.hasAdminPrivileges(Mockito.any())).thenAnswer(i ->
                 ((User) i.getArgument(0)).getRole() >= UserRole.ADMIN);
-        when(userAuthenticationService.findByToken(Mockito.any())).thenAnswer(i -> {
-            String token = i.getArgument(0);
-            if (token.equals(validToken)) {
-                return dummyUser1;
-            } else if (token.equals(forbiddenToken)) {
-                return dummyUser2;
-            } else if (token.equals(anotherValidToken)) {
-                return dummyUser3;
-            } else {
-                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
-            }
+        when(userAuthenticationService.findByToken(Mockito.any())).thenAnswer(i -> findUserByToken(i.getArgument(0)));
+        when(userAuthenticationService.authenticate(Mockito.any())).thenAnswer(i -> {
+            User user = findUserByToken(i.getArgument(0));
+            return new UserPrincipal(user.getUserId(), user.getRole());
         });
     }
 
+    /**
+     * The logged in user each token belongs to, as the mocked UserAuthenticationService finds them
+     */
+    private User findUserByToken(String token) {
+        if (token.equals(validToken)) {
+            return dummyUser1;
+        } else if (token.equals(forbiddenToken)) {
+            return dummyUser2;
+        } else if (token.equals(anotherValidToken)) {
+            return dummyUser3;
+        } else {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+    }
+
     /**
      * Mock ActivityType repository actions
      */
@@ -399,6 +441,8 @@ class ActivityControllerTest {
 
         mvc.perform(httpReq)
                 .andExpect(status().isOk());
+        // Only the session is checked, the user isn't loaded
+        verify(userAuthenticationService, never()).findByToken(Mockito.any());
     }
 
 
@@ -445,4 +489,323 @@ class ActivityControllerTest {
             assertEquals(participant.toString(), expectedParticipants.get(i).toString());
         }
     }
+
+
+    /**
+     * Rows as read by ActivityRepository.findPage, each activity id paired with whether it matched
+     */
+    private static List<Object[]> scanned(Object... activityIdsAndMatches) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < activityIdsAndMatches.length; i += 2) {
+            rows.add(new Object[]{((Number) activityIdsAndMatches[i]).longValue(), activityIdsAndMatches[i + 1]});
+        }
+        return rows;
+    }
+
+    /**
+     * Checks a page finds one more activity than its limit, and gives the cursor of the next page if it was there.
+     */
+    @Test
+    void getActivitiesPage() throws Exception {
+        when(activityRepository.findPage(5L, DEFAULT_USER_ID, true, 0L, 0L, PageRequest.of(0, 3)))
+                .thenReturn(scanned(6, true, 8, true, 9, true));
+        mvc.perform(MockMvcRequestBuilders.get("/activities")
+                .param("creator", DEFAULT_USER_ID.toString())
+                .param("continuous", "true")
+                .param("limit", "2")
+                .param("after", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "8"));
+        verify(activityResponseAssembler).assemble(Arrays.asList(6L, 8L));
+
+        when(activityRepository.findPage(8L, null, null, 0L, 0L, PageRequest.of(0, 3)))
+                .thenReturn(scanned(9, true));
+        mvc.perform(MockMvcRequestBuilders.get("/activities").param("limit", "2").param("after", "8"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+        verify(activityResponseAssembler).assemble(Collections.singletonList(9L));
+    }
+
+    /**
+     * Checks activities are read in growing batches until the page is full, or there are none left, so only the
+     * last page is ever short.
+     */
+    @Test
+    void getActivitiesReadsUntilThePageIsFull() throws Exception {
+        when(activityTypeRegistry.findMaskByIds(Collections.singletonList(1L))).thenReturn(ActivityTypeMask.EMPTY.with(0));
+        when(activityRepository.findPage(0L, null, null, 1L, 0L, PageRequest.of(0, 3)))
+                .thenReturn(scanned(1, false, 2, true, 3, false));
+        when(activityRepository.findPage(3L, null, null, 1L, 0L, PageRequest.of(0, 6)))
+                .thenReturn(scanned(4, false, 5, false, 6, true, 7, false, 8, true, 9, true));
+        mvc.perform(MockMvcRequestBuilders.get("/activities").param("activityTypeIds", "1").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "6"));
+        verify(activityResponseAssembler).assemble(Arrays.asList(2L, 6L));
+
+        when(activityRepository.findPage(6L, null, null, 1L, 0L, PageRequest.of(0, 3)))
+                .thenReturn(scanned(7, false, 8, true));
+        mvc.perform(MockMvcRequestBuilders.get("/activities").param("activityTypeIds", "1").param("limit", "2")
+                .param("after", "6"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+        verify(activityResponseAssembler).assemble(Collections.singletonList(8L));
+        verify(activityRepository, never()).findPage(Mockito.eq(8L), Mockito.any(), Mockito.any(),
+                Mockito.anyLong(), Mockito.anyLong(), Mockito.any());
+    }
+
+    /**
+     * Checks activity type ids are filtered on as a mask, and an unknown one can match no activity.
+     */
+    @Test
+    void getActivitiesWithActivityTypes() throws Exception {
+        when(activityTypeRegistry.findMaskByIds(Arrays.asList(1L, 2L))).thenReturn(ActivityTypeMask.EMPTY.with(0).with(64));
+        when(activityRepository.findPage(0L, null, null, 1L, 1L, PageRequest.of(0, 51)))
+                .thenReturn(scanned(4, true));
+        mvc.perform(MockMvcRequestBuilders.get("/activities").param("activityTypeIds", "1,2"))
+                .andExpect(status().isOk());
+        verify(activityResponseAssembler).assemble(Collections.singletonList(4L));
+
+        when(activityTypeRegistry.findMaskByIds(Arrays.asList(1L, 99L))).thenReturn(ActivityTypeMask.EMPTY.with(0));
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/activities").param("activityTypeIds", "1,99"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals("[]", result.getResponse().getContentAsString());
+        verify(activityRepository, never()).findPage(0L, null, null, 1L, 0L, PageRequest.of(0, 51));
+    }
+
+    /**
+     * Checks a search missing half of its parameters, or mixing searches, is rejected rather than answered with
+     * every activity.
+     */
+    @Test
+    void getActivitiesRejectsIncompleteOrMixedSearches() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/activities").param("types", "Golf"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(MockMvcRequestBuilders.get("/activities").param("method", "or"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(MockMvcRequestBuilders.get("/activities").param("from", "1970-01-01T00:00:00+0000"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(MockMvcRequestBuilders.get("/activities")
+                .param("types", "Golf").param("method", "or")
+                .param("from", "1970-01-01T00:00:00+0000").param("to", "1970-01-02T00:00:00+0000"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(MockMvcRequestBuilders.get("/activities")
+                .param("creator", DEFAULT_USER_ID.toString()).param("types", "Golf").param("method", "or"))
+                .andExpect(status().isBadRequest());
+        verify(activityRepository, never()).findPage(Mockito.anyLong(), Mockito.any(), Mockito.any(),
+                Mockito.anyLong(), Mockito.anyLong(), Mockito.any());
+        verify(activityResponseAssembler, never()).assemble(Mockito.anyCollection());
+    }
+
+    @Test
+    void getActivitiesLimitOutOfRange() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/activities").param("limit", "201"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(MockMvcRequestBuilders.get("/activities").param("after", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Checks only admins can export activities, and the export is written straight to the response.
+     */
+    @Test
+    void exportActivitiesAsAdmin() throws Exception {
+        when(userAuthenticationService.authenticate(validToken)).thenReturn(new UserPrincipal(DEFAULT_USER_ID, UserRole.ADMIN));
+        when(userAuthenticationService.authenticate(forbiddenToken)).thenReturn(new UserPrincipal(DEFAULT_USER_ID_2, UserRole.USER));
+        doAnswer(i -> {
+            ((OutputStream) i.getArgument(0)).write("{\"id\":1}\n".getBytes());
+            return 1L;
+        }).when(activityExporter).export(Mockito.any());
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/activities/export").header("Token", validToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andReturn();
+        assertEquals("{\"id\":1}\n", result.getResponse().getContentAsString());
+
+        mvc.perform(MockMvcRequestBuilders.get("/activities/export").header("Token", forbiddenToken))
+                .andExpect(status().isForbidden());
+    }
+
+    private Activity activityWithTypes(long activityId, String... names) {
+        Set<ActivityType> activityTypes = new HashSet<>();
+        for (String name : names) {
+            ActivityType activityType = new ActivityType(name);
+            activityType.setActivityTypeId((long) name.length());
+            activityTypes.add(activityType);
+        }
+        Activity activity = new Activity();
+        ReflectionTestUtils.setField(activity, "activityId", activityId);
+        activity.setActivityTypes(activityTypes);
+        return activity;
+    }
+
+    /**
+     * Checks activities are searched by activity type from the index, one page at a time.
+     */
+    @Test
+    void getActivitiesByActivityType() throws Exception {
+        // Activity type ids are the lengths of their names
+        when(activityTypeRegistry.findIdsByNames(Arrays.asList("Hiking", "Golf"))).thenReturn(Arrays.asList(6L, 4L));
+        when(activityTypeRegistry.findIdsByNames(Arrays.asList("Golf", "Water Polo"))).thenReturn(Collections.singletonList(4L));
+        Activity hikingAndGolf = activityWithTypes(11, "Hiking", "Golf");
+        activityActivityTypeIndex.update(11L, hikingAndGolf.getActivityTypes());
+        activityActivityTypeIndex.update(12L, activityWithTypes(12, "Golf").getActivityTypes());
+        activityActivityTypeIndex.update(13L, activityWithTypes(13, "Hiking").getActivityTypes());
+        when(activityResponseAssembler.assemble(Mockito.any())).thenAnswer(i -> {
+            List<ActivityResponse> responses = new ArrayList<>();
+            for (Long activityId : (List<Long>) i.getArgument(0)) {
+                responses.add(new ActivityResponse(activityId, DEFAULT_USER_ID, "Activity", null, true, null, null, "Here"));
+            }
+            return responses;
+        });
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/activities")
+                .param("types", "Hiking Golf").param("method", "or").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andExpect(header().string("X-Next-Cursor", "12"))
+                .andReturn();
+        JsonNode activities = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertEquals(11, activities.get(0).get("id").asLong());
+        assertEquals(12, activities.get(1).get("id").asLong());
+
+        result = mvc.perform(MockMvcRequestBuilders.get("/activities")
+                .param("types", "Hiking Golf").param("method", "AND"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "1"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andReturn();
+        assertEquals(11, objectMapper.readTree(result.getResponse().getContentAsString()).get(0).get("id").asLong());
+
+        // Water Polo doesn't exist, so no activity has it
+        mvc.perform(MockMvcRequestBuilders.get("/activities")
+                .param("types", "Golf Water-Polo").param("method", "and"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "0"));
+        mvc.perform(MockMvcRequestBuilders.get("/activities")
+                .param("types", "Golf").param("method", "xor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Checks creating, editing and deleting an activity keep the activity type index in step.
+     */
+    @Test
+    void activityTypeIndexFollowsActivities() throws Exception {
+        List<Long> golf = Collections.singletonList(4L);
+        List<Long> hiking = Collections.singletonList(6L);
+        when(activityTypeService.getMatchingEntitiesFromRepository(Mockito.any())).thenAnswer(i -> {
+            Set<ActivityType> activityTypes = i.getArgument(0);
+            return activityWithTypes(0, activityTypes.stream().map(ActivityType::getName).toArray(String[]::new))
+                    .getActivityTypes();
+        });
+        mvc.perform(MockMvcRequestBuilders.post("/profiles/{profileId}/activities", DEFAULT_USER_ID)
+                .header("Token", validToken)
+                .content("{\"activity_name\":\"Round\",\"description\":\"A round\",\"activity_type\":[{\"name\":\"Golf\"}]," +
+                        "\"continuous\":true,\"location\":\"Christchurch\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        Long activityId = activityMockTable.iterator().next().getActivityId();
+        assertEquals(Collections.singletonList(activityId),
+                ActivityTypeIndex.page(activityActivityTypeIndex.findWithAny(golf), null, 10));
+
+        // The mocked save numbers every activity it is given, an edited one keeps its id
+        when(activityRepository.save(Mockito.any(Activity.class))).thenAnswer(i -> i.getArgument(0));
+        mvc.perform(MockMvcRequestBuilders.put("/profiles/{profileId}/activities/{activityId}", DEFAULT_USER_ID, activityId)
+                .header("Token", validToken)
+                .content("{\"activity_name\":\"Walk\",\"description\":\"A walk\",\"activity_type\":[{\"name\":\"Hiking\"}]," +
+                        "\"continuous\":true,\"location\":\"Christchurch\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        assertTrue(activityActivityTypeIndex.findWithAny(golf).isEmpty());
+        assertEquals(Collections.singletonList(activityId),
+                ActivityTypeIndex.page(activityActivityTypeIndex.findWithAny(hiking), null, 10));
+
+        mvc.perform(MockMvcRequestBuilders.delete("/profiles/{profileId}/activities/{activityId}", DEFAULT_USER_ID, activityId)
+                .header("Token", validToken))
+                .andExpect(status().isOk());
+        assertTrue(activityActivityTypeIndex.findWithAny(hiking).isEmpty());
+    }
+
+    @Test
+    void getActivitiesBetweenPagesOverlappingActivities() throws Exception {
+        for (long activityId = 1; activityId <= 3; activityId++) {
+            Activity activity = new Activity();
+            activity.setContinuous(false);
+            activity.setStartTime(new Date(activityId * 1000));
+            activity.setEndTime(new Date(activityId * 1000 + 500));
+            activityIntervalIndex.update(activityId, activity);
+        }
+        when(activityResponseAssembler.assemble(Mockito.anyCollection())).thenReturn(new ArrayList<>());
+        mvc.perform(MockMvcRequestBuilders.get("/activities")
+                .param("from", "1970-01-01T00:00:01+0000")
+                .param("to", "1970-01-01T00:00:03+0000")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2"));
+        verify(activityResponseAssembler).assemble(Arrays.asList(1L, 2L));
+
+        mvc.perform(MockMvcRequestBuilders.get("/activities")
+                .param("from", "1970-01-01T00:00:01+0000")
+                .param("to", "1970-01-01T00:00:03+0000")
+                .param("limit", "2")
+                .param("after", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+        verify(activityResponseAssembler).assemble(Collections.singletonList(3L));
+    }
+
+    @Test
+    void getActivitiesBetweenRejectsBadTimes() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/activities")
+                .param("from", "1970-01-02T00:00:00+0000")
+                .param("to", "1970-01-01T00:00:00+0000"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(MockMvcRequestBuilders.get("/activities")
+                .param("from", "yesterday")
+                .param("to", "1970-01-01T00:00:00+0000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void intervalIndexFollowsActivities() throws Exception {
+        long day = 24 * 60 * 60 * 1000L;
+        mvc.perform(MockMvcRequestBuilders.post("/profiles/{profileId}/activities", DEFAULT_USER_ID)
+                .header("Token", validToken)
+                .content("{\"activity_name\":\"Run\",\"description\":\"A run\",\"activity_type\":[{\"name\":\"Running\"}]," +
+                        "\"continuous\":false,\"start_time\":\"1970-01-02T00:00:00+0000\"," +
+                        "\"end_time\":\"1970-01-03T00:00:00+0000\",\"location\":\"Christchurch\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        Long activityId = activityMockTable.iterator().next().getActivityId();
+        assertEquals(Collections.singletonList(activityId),
+                activityIntervalIndex.findActivitiesBetween(day, day, null, 10));
+
+        // The mocked save numbers every activity it is given, an edited one keeps its id
+        when(activityRepository.save(Mockito.any(Activity.class))).thenAnswer(i -> i.getArgument(0));
+        mvc.perform(MockMvcRequestBuilders.put("/profiles/{profileId}/activities/{activityId}", DEFAULT_USER_ID, activityId)
+                .header("Token", validToken)
+                .content("{\"activity_name\":\"Run\",\"description\":\"A run\",\"activity_type\":[{\"name\":\"Running\"}]," +
+                        "\"continuous\":true,\"location\":\"Christchurch\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        assertTrue(activityIntervalIndex.findActivitiesBetween(day, day, null, 10).isEmpty());
+
+        mvc.perform(MockMvcRequestBuilders.put("/profiles/{profileId}/activities/{activityId}", DEFAULT_USER_ID, activityId)
+                .header("Token", validToken)
+                .content("{\"activity_name\":\"Run\",\"description\":\"A run\",\"activity_type\":[{\"name\":\"Running\"}]," +
+                        "\"continuous\":false,\"start_time\":\"1970-01-05T00:00:00+0000\"," +
+                        "\"end_time\":\"1970-01-06T00:00:00+0000\",\"location\":\"Christchurch\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        assertTrue(activityIntervalIndex.findActivitiesBetween(day, day, null, 10).isEmpty());
+        assertEquals(Collections.singletonList(activityId),
+                activityIntervalIndex.findActivitiesBetween(5 * day, 5 * day, null, 10));
+
+        mvc.perform(MockMvcRequestBuilders.delete("/profiles/{profileId}/activities/{activityId}", DEFAULT_USER_ID, activityId)
+                .header("Token", validToken))
+                .andExpect(status().isOk());
+        assertTrue(activityIntervalIndex.findActivitiesBetween(5 * day, 5 * day, null, 10).isEmpty());
+    }
 }
@@ -4,6 +4,10 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.springvuegradle.seng302team600.model.ActivityType;
 import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
+import com.springvuegradle.seng302team600.service.ActivityTypePayload;
+import com.springvuegradle.seng302team600.service.ActivityTypeRegistry;
+import com.springvuegradle.seng302team600.service.ServiceBusyException;
+import com.springvuegradle.seng302team600.service.UserAuthenticationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -11,27 +15,44 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ActivityTypeController.class)
+@Import({ActivityTypeRegistry.class, ActivityTypePayload.class})
 class ActivityTypeControllerTest {
 
+    @MockBean
+    private UserAuthenticationService userAuthenticationService;
     @MockBean
     private ActivityTypeRepository activityTypeRepository;
     @Autowired
+    private ActivityTypeRegistry activityTypeRegistry;
+    @Autowired
     private MockMvc mvc;
 
 
@@ -84,6 +105,7 @@ class ActivityTypeControllerTest {
         activityTypeTestList.add(new ActivityType("Biking"));
 
         activityTypeRepository.saveAll(activityTypeTestList);
+        activityTypeRegistry.reload();
     }
 
 
@@ -110,4 +132,126 @@ class ActivityTypeControllerTest {
 
         assertEquals(new HashSet<>(activityTypeRepository.findAll()), receivedActivityTypeList);
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks the response has a strong ETag, and a request with it is answered with an empty 304.
+     */
+    @Test
+    void currentETagIsNotModified() throws Exception {
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/activity-types"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "public, max-age=86400"))
+                .andReturn();
+        String eTag = result.getResponse().getHeader("ETag");
+        assertEquals('"', eTag.charAt(0));
+
+        MvcResult notModified = mvc.perform(MockMvcRequestBuilders.get("/activity-types").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andReturn();
+        assertEquals(0, notModified.getResponse().getContentAsByteArray().length);
+    }
+
+    /**
+     * Checks clients accepting gzip get the same list gzipped, under its own ETag.
+     */
+    @Test
+    void gzippedWhenAccepted() throws Exception {
+        MvcResult identity = mvc.perform(MockMvcRequestBuilders.get("/activity-types"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn();
+        String json = identity.getResponse().getContentAsString();
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/activity-types").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+        byte[] gzipped = result.getResponse().getContentAsByteArray();
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertEquals(json, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        String eTag = identity.getResponse().getHeader("ETag");
+        String gzippedETag = result.getResponse().getHeader("ETag");
+        assertNotEquals(eTag, gzippedETag);
+        assertTrue(gzippedETag.endsWith("-gzip\""));
+    }
+
+    /**
+     * Checks either body's ETag is answered with a 304 naming the ETag that matched, whatever the encoding asked for.
+     */
+    @Test
+    void eitherETagIsNotModified() throws Exception {
+        String eTag = mvc.perform(MockMvcRequestBuilders.get("/activity-types"))
+                .andReturn().getResponse().getHeader("ETag");
+        String gzippedETag = mvc.perform(MockMvcRequestBuilders.get("/activity-types").header("Accept-Encoding", "gzip"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(MockMvcRequestBuilders.get("/activity-types").header("Accept-Encoding", "gzip")
+                .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+        mvc.perform(MockMvcRequestBuilders.get("/activity-types").header("If-None-Match", gzippedETag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", gzippedETag));
+    }
+
+    /**
+     * Checks If-None-Match is read as a list of whole entity tags, weak or strong, or "*".
+     */
+    @Test
+    void ifNoneMatchComparesWholeEntityTags() throws Exception {
+        String eTag = mvc.perform(MockMvcRequestBuilders.get("/activity-types"))
+                .andReturn().getResponse().getHeader("ETag");
+        String gzippedETag = mvc.perform(MockMvcRequestBuilders.get("/activity-types").header("Accept-Encoding", "gzip"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(MockMvcRequestBuilders.get("/activity-types").header("If-None-Match", "\"other\", W/" + eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+        mvc.perform(MockMvcRequestBuilders.get("/activity-types").header("Accept-Encoding", "gzip")
+                .header("If-None-Match", "*"))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", gzippedETag));
+        // Holding the ETag isn't enough, it has to be a whole entity tag of its own
+        mvc.perform(MockMvcRequestBuilders.get("/activity-types").header("If-None-Match", "stale" + eTag))
+                .andExpect(status().isOk());
+        mvc.perform(MockMvcRequestBuilders.get("/activity-types")
+                .header("If-None-Match", eTag.substring(0, eTag.length() - 1) + "-old\""))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Checks nothing is sent to be cached before the registry has loaded the activity types at startup.
+     */
+    @Test
+    void unavailableUntilTheRegistryHasLoaded() throws Exception {
+        ActivityTypeRegistry unloaded = new ActivityTypeRegistry(activityTypeRepository);
+        ActivityTypeController controller = new ActivityTypeController(new ActivityTypePayload(unloaded, objectMapper));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ServiceBusyException exception = assertThrows(ServiceBusyException.class,
+                () -> controller.getAllActivityTypes(new MockHttpServletRequest("GET", "/activity-types"), response));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertNull(response.getHeader("Cache-Control"));
+
+        unloaded.reload();
+        controller.getAllActivityTypes(new MockHttpServletRequest("GET", "/activity-types"), response);
+        assertEquals(3, objectMapper.readTree(response.getContentAsString()).size());
+    }
+
+    /**
+     * Checks the list and its ETag change once the registry is reloaded with a new activity type.
+     */
+    @Test
+    void reloadedRegistryChangesTheETag() throws Exception {
+        String eTag = mvc.perform(MockMvcRequestBuilders.get("/activity-types"))
+                .andReturn().getResponse().getHeader("ETag");
+        activityTypeRepository.save(new ActivityType("Rowing"));
+        activityTypeRegistry.reload();
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/activity-types").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals(eTag, result.getResponse().getHeader("ETag"));
+        assertEquals(4, objectMapper.readTree(result.getResponse().getContentAsString()).size());
+    }
+}
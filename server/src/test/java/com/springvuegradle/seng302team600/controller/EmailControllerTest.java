@@ -5,11 +5,14 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.springvuegradle.seng302team600.model.Email;
 import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.model.UserPrincipal;
 import com.springvuegradle.seng302team600.model.UserRole;
 import com.springvuegradle.seng302team600.payload.LoginResponse;
 import com.springvuegradle.seng302team600.payload.UserRegisterRequest;
 import com.springvuegradle.seng302team600.repository.EmailRepository;
 import com.springvuegradle.seng302team600.repository.UserRepository;
+import com.springvuegradle.seng302team600.service.ProfileVersionService;
+import com.springvuegradle.seng302team600.service.RegisteredEmailFilter;
 import com.springvuegradle.seng302team600.service.UserAuthenticationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,8 +21,10 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -28,13 +33,17 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(EmailController.class)
+@Import({RegisteredEmailFilter.class, ProfileVersionService.class})
 class EmailControllerTest {
 
     @MockBean
@@ -43,6 +52,10 @@ class EmailControllerTest {
     private EmailRepository emailRepository;
     @MockBean
     private UserAuthenticationService userAuthenticationService;
+    @MockBean
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private RegisteredEmailFilter registeredEmailFilter;
     @Autowired
     private MockMvc mvc;
 
@@ -78,6 +91,11 @@ class EmailControllerTest {
         when(emailRepository.existsEmailByEmail(Mockito.anyString())).thenAnswer(i -> {
             return i.getArgument(0).equals(dummyEmail.getEmail());
         });
+        when(emailRepository.findRegisteredEmails(Mockito.anyCollection())).thenAnswer(i -> {
+            Collection<String> emails = i.getArgument(0);
+            return emails.stream().filter(email -> email.equals(dummyEmail.getEmail())).collect(Collectors.toList());
+        });
+        registeredEmailFilter.add(dummyEmail.getEmail());
     }
     private void setupMockingNoEmail(String json) throws JsonProcessingException {
         UserRegisterRequest regReq;
@@ -95,10 +113,22 @@ class EmailControllerTest {
         when(emailRepository.findByEmail(Mockito.matches(dummyEmail.getEmail()))).thenReturn(dummyEmail);
         when(emailRepository.getOne(Mockito.anyLong())).thenReturn(dummyEmail);
         when(userAuthenticationService.findByToken(Mockito.anyString())).thenAnswer(i -> {
-            if (i.getArgument(0).equals(dummyUser1.getToken())) return dummyUser1;
+            if (i.getArgument(0).equals(validToken)) return dummyUser1;
             else throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
         });
         when(userRepository.findByUserId(Mockito.anyLong())).thenReturn(dummyUser1);
+        when(userAuthenticationService.authenticate(Mockito.anyString())).thenAnswer(i -> {
+            if (i.getArgument(0).equals(validToken)) return new UserPrincipal(dummyUser1.getUserId(), dummyUser1.getRole());
+            else throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        });
+        when(userAuthenticationService.authorizeUser(Mockito.anyString(), Mockito.anyLong())).thenAnswer(i -> {
+            if (i.getArgument(0).equals(validToken) && i.getArgument(1).equals(dummyUser1.getUserId()))
+                return new UserPrincipal(dummyUser1.getUserId(), dummyUser1.getRole());
+            else if ((i.getArgument(0).equals(validToken)) && !(i.getArgument(1).equals(dummyUser1.getUserId())))
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+            else
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        });
         when(userRepository.existsUserByRole(Mockito.anyInt())).thenAnswer(i -> {
             if (((int)i.getArgument(0) == UserRole.DEFAULT_ADMIN) && !defaultAdminIsRegistered) {
                 return false;
@@ -106,10 +136,11 @@ class EmailControllerTest {
             return true;
         });
         when(emailRepository.existsEmailByEmail(Mockito.anyString())).thenReturn(false);
+        when(emailRepository.findRegisteredEmails(Mockito.anyCollection())).thenReturn(Collections.emptyList());
         when(userAuthenticationService.findByUserId(Mockito.anyString(), Mockito.anyLong())).thenAnswer(i -> {
-            if (i.getArgument(0).equals(dummyUser1.getToken()) && i.getArgument(1).equals(dummyUser1.getUserId()))
+            if (i.getArgument(0).equals(validToken) && i.getArgument(1).equals(dummyUser1.getUserId()))
                 return dummyUser1;
-            else if ((i.getArgument(0).equals(dummyUser1.getToken())) && !(i.getArgument(1).equals(dummyUser1.getUserId())))
+            else if ((i.getArgument(0).equals(validToken)) && !(i.getArgument(1).equals(dummyUser1.getUserId())))
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN);
             else
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
@@ -120,12 +151,6 @@ class EmailControllerTest {
             if (i.getArgument(0).equals(dummyEmail.getEmail()) && dummyUser1.checkPassword(i.getArgument(1))) return new LoginResponse("ValidToken", dummyUser1.getUserId());
             else throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
         });
-        Mockito.doAnswer(i -> {
-            if (i.getArgument(0).equals(dummyUser1.getToken())) dummyUser1.setToken(null);
-            return null;
-        }).when(userAuthenticationService).logout(Mockito.anyString());
-        dummyUser1.setToken(validToken);
-        dummyUser1.setTokenTime();
 
         // Second user
         regReq = objectMapper.treeToValue(objectMapper.readTree(createUserJsonViewUser2), UserRegisterRequest.class);
@@ -179,6 +204,30 @@ class EmailControllerTest {
         assertEquals("", jsonNode.get("additionalEmails").asText());
     }
 
+    @Test
+    public void findEmailData_NotModified_WhenEmailsAreCurrent() throws Exception {
+        setupMocking(createUser1JsonPost);
+        Long userId = dummyUser1.getUserId();
+        when(userRepository.findVersionByUserId(userId)).thenReturn(2L);
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/profiles/{profileId}/emails", userId)
+                .header("Token", validToken)
+                .header("If-None-Match", "\"emails-1-2\"");
+        mvc.perform(request)
+                .andExpect(status().isNotModified());
+        verify(userAuthenticationService, never()).findByUserId(anyString(), anyLong());
+    }
+
+    @Test
+    public void findEmailData_Forbidden_BeforeCheckingVersion() throws Exception {
+        setupMocking(createUser1JsonPost);
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/profiles/{profileId}/emails", 2L)
+                .header("Token", validToken)
+                .header("If-None-Match", "\"emails-2-0\"");
+        mvc.perform(request)
+                .andExpect(status().isForbidden());
+        verify(userRepository, never()).findVersionByUserId(anyLong());
+    }
+
 
     private final String addEmailsJsonPostAdditionalEmails = JsonConverter.toJson(true,
             "additional_email", new Object[]{
@@ -486,4 +535,68 @@ class EmailControllerTest {
         mvc.perform(checkEmailRequest)
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    public void checkIfEmailIsInUse_SkipsDatabase_WhenEmailWasNeverRegistered() throws Exception {
+        setupMocking(createUser1JsonPost);
+        clearInvocations(userRepository, emailRepository);
+        MockHttpServletRequestBuilder checkEmailRequest = MockMvcRequestBuilders.get("/email")
+                .header("Token", validToken)
+                .header("email", "neverregistered@yahoo.com");
+        mvc.perform(checkEmailRequest)
+                .andExpect(status().isOk());
+        verify(emailRepository, never()).existsEmailByEmail("neverregistered@yahoo.com");
+        // Only the session is checked, the caller isn't loaded either
+        verify(userAuthenticationService, never()).findByToken(anyString());
+        verifyNoInteractions(userRepository, emailRepository);
+    }
+
+    private final String addEmailsJsonPostTwoEmailsInUse = JsonConverter.toJson(true,
+            "additional_email", new Object[]{
+                    "sillybilly@yahoo.com", "takenone@yahoo.com", "takentwo@yahoo.com"});
+    /**
+     * Tests addEmails checks every submitted email in one query, and reports every email that is in use.
+     */
+    @Test
+    public void addAdditionalEmails_Failure_ReportsEveryEmailInUse() throws Exception {
+        setupMocking(createUser1JsonPost);
+        registeredEmailFilter.add("takenone@yahoo.com");
+        registeredEmailFilter.add("takentwo@yahoo.com");
+        when(emailRepository.findRegisteredEmails(Mockito.anyCollection())).thenAnswer(i -> {
+            Collection<String> emails = i.getArgument(0);
+            return emails.stream().filter(email -> email.startsWith("taken")).collect(Collectors.toList());
+        });
+        MockHttpServletRequestBuilder addEmailsRequest = MockMvcRequestBuilders.post("/profiles/{profileId}/emails", DEFAULT_USER_ID)
+                .content(addEmailsJsonPostTwoEmailsInUse)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("Token", validToken);
+        MvcResult result = mvc.perform(addEmailsRequest)
+                .andExpect(status().isBadRequest())
+                .andReturn();
+        String reason = result.getResponse().getErrorMessage();
+        assertTrue(reason.contains("takenone@yahoo.com") && reason.contains("takentwo@yahoo.com"));
+        verify(emailRepository, times(1)).findRegisteredEmails(Mockito.anyCollection());
+        verify(emailRepository, never()).existsEmailByEmail(Mockito.anyString());
+    }
+
+    /**
+     * Tests addEmails checks the database for an address the filter has never seen, such as one registered on
+     * another node since the filter was built.
+     */
+    @Test
+    public void addAdditionalEmails_Failure_WhenEmailUnknownToFilterIsInUse() throws Exception {
+        setupMocking(createUser1JsonPost);
+        when(emailRepository.findRegisteredEmails(Mockito.anyCollection())).thenAnswer(i -> {
+            Collection<String> emails = i.getArgument(0);
+            return emails.stream().filter(email -> email.startsWith("taken")).collect(Collectors.toList());
+        });
+        MockHttpServletRequestBuilder addEmailsRequest = MockMvcRequestBuilders.post("/profiles/{profileId}/emails", DEFAULT_USER_ID)
+                .content(addEmailsJsonPostTwoEmailsInUse)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("Token", validToken);
+        mvc.perform(addEmailsRequest)
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -5,6 +5,7 @@ import com.springvuegradle.seng302team600.enumeration.UnitType;
 import com.springvuegradle.seng302team600.model.Activity;
 import com.springvuegradle.seng302team600.model.Outcome;
 import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.model.UserPrincipal;
 import com.springvuegradle.seng302team600.repository.ActivityRepository;
 import com.springvuegradle.seng302team600.repository.OutcomeRepository;
 import com.springvuegradle.seng302team600.repository.ResultRepository;
@@ -70,11 +71,9 @@ public class OutcomeControllerTest {
         MockitoAnnotations.initMocks(this);
         dummyUser1 = new User();
         dummyUser1.setFirstName("John");
-        dummyUser1.setToken(validToken);
         ReflectionTestUtils.setField(dummyUser1, "userId", USER_ID_1);
         dummyUser2 = new User();
         dummyUser2.setFirstName("Douglas");
-        dummyUser2.setToken(validToken2);
         ReflectionTestUtils.setField(dummyUser2, "userId", USER_ID_2);
 
         dummyOutcome1 = new Outcome();
@@ -113,15 +112,10 @@ public class OutcomeControllerTest {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN);
             }
         });
-        when(userAuthenticationService.findByToken(Mockito.any())).thenAnswer(i -> {
-            String token = i.getArgument(0);
-            if (token.equals(validToken)) {
-                return dummyUser1;
-            } else if (token.equals(validToken2)) {
-                return dummyUser2;
-            } else {
-                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
-            }
+        when(userAuthenticationService.findByToken(Mockito.any())).thenAnswer(i -> findUserByToken(i.getArgument(0)));
+        when(userAuthenticationService.authenticate(Mockito.any())).thenAnswer(i -> {
+            User user = findUserByToken(i.getArgument(0));
+            return new UserPrincipal(user.getUserId(), user.getRole());
         });
 
         // Mocking OutcomeRepository
@@ -163,6 +157,19 @@ public class OutcomeControllerTest {
         });
     }
 
+    /**
+     * The logged in user each token belongs to, as the mocked UserAuthenticationService finds them
+     */
+    private User findUserByToken(String token) {
+        if (token.equals(validToken)) {
+            return dummyUser1;
+        } else if (token.equals(validToken2)) {
+            return dummyUser2;
+        } else {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+    }
+
     /**
      * Check that Activity Outcomes can be retrieved.
      */
@@ -71,11 +71,9 @@ public class ResultControllerTest {
         MockitoAnnotations.initMocks(this);
         dummyUser1 = new User();
         dummyUser1.setFirstName("John");
-        dummyUser1.setToken(validToken);
         ReflectionTestUtils.setField(dummyUser1, "userId", USER_ID_1);
         dummyUser2 = new User();
         dummyUser2.setFirstName("Douglas");
-        dummyUser2.setToken(validToken2);
         ReflectionTestUtils.setField(dummyUser2, "userId", USER_ID_2);
 
         dummyActivity = new Activity();
@@ -116,15 +114,10 @@ public class ResultControllerTest {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN);
             }
         });
-        when(userAuthenticationService.findByToken(Mockito.any())).thenAnswer(i -> {
-            String token = i.getArgument(0);
-            if (token.equals(validToken)) {
-                return dummyUser1;
-            } else if (token.equals(validToken2)) {
-                return dummyUser2;
-            } else {
-                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
-            }
+        when(userAuthenticationService.findByToken(Mockito.any())).thenAnswer(i -> findUserByToken(i.getArgument(0)));
+        when(userAuthenticationService.authenticate(Mockito.any())).thenAnswer(i -> {
+            User user = findUserByToken(i.getArgument(0));
+            return new UserPrincipal(user.getUserId(), user.getRole());
         });
         when(userAuthenticationService.hasAdminPrivileges(Mockito.any())).thenAnswer(i ->
                 ((User) i.getArgument(0)).getRole() >= 10);
@@ -176,6 +169,19 @@ public class ResultControllerTest {
         });
     }
 
+    /**
+     * The logged in user each token belongs to, as the mocked UserAuthenticationService finds them
+     */
+    private User findUserByToken(String token) {
+        if (token.equals(validToken)) {
+            return dummyUser1;
+        } else if (token.equals(validToken2)) {
+            return dummyUser2;
+        } else {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+    }
+
     private final String newResultJson = JsonConverter.toJson(true,
             "user_id", USER_ID_1,
             "value", "someValue",
@@ -9,8 +9,15 @@ import com.springvuegradle.seng302team600.payload.LoginResponse;
 import com.springvuegradle.seng302team600.payload.UserRegisterRequest;
 import com.springvuegradle.seng302team600.payload.UserResponse;
 import com.springvuegradle.seng302team600.repository.*;
+import com.springvuegradle.seng302team600.service.ActivityTypeRegistry;
 import com.springvuegradle.seng302team600.service.ActivityTypeService;
+import com.springvuegradle.seng302team600.service.ProfileVersionService;
+import com.springvuegradle.seng302team600.service.ServiceBusyException;
+import com.springvuegradle.seng302team600.service.RegisteredEmailFilter;
+import com.springvuegradle.seng302team600.service.UserActivityTypeIndex;
+import com.springvuegradle.seng302team600.service.UserNameIndex;
 import com.springvuegradle.seng302team600.service.UserAuthenticationService;
+import com.springvuegradle.seng302team600.service.UserResponseAssembler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -19,8 +26,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -33,10 +42,12 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
 @WebMvcTest(UserController.class)
+@Import({ActivityTypeRegistry.class, UserActivityTypeIndex.class, UserNameIndex.class, RegisteredEmailFilter.class, ProfileVersionService.class})
 class UserControllerTest {
     @MockBean
     private UserRepository userRepository;
@@ -47,7 +58,17 @@ class UserControllerTest {
     @MockBean
     private ActivityTypeRepository activityTypeRepository;
     @MockBean
-    private UserActivityTypeRepository userActivityTypeRepository;
+    private JdbcTemplate jdbcTemplate;
+    @MockBean
+    private UserResponseAssembler userResponseAssembler;
+    @Autowired
+    private ActivityTypeRegistry activityTypeRegistry;
+    @Autowired
+    private UserActivityTypeIndex userActivityTypeIndex;
+    @Autowired
+    private UserNameIndex userNameIndex;
+    @Autowired
+    private RegisteredEmailFilter registeredEmailFilter;
     @MockBean
     private UserAuthenticationService userAuthenticationService;
     @MockBean
@@ -86,6 +107,7 @@ class UserControllerTest {
         when(emailRepository.existsEmailByEmail(Mockito.anyString())).thenAnswer(i -> {
             return i.getArgument(0).equals(dummyEmail.getEmail());
         });
+        registeredEmailFilter.add(dummyEmail.getEmail());
     }
 
     private void setupMockingNoEmail(String json) throws JsonProcessingException {
@@ -104,10 +126,14 @@ class UserControllerTest {
         when(emailRepository.findByEmail(Mockito.matches(dummyEmail.getEmail()))).thenReturn(dummyEmail);
         when(emailRepository.getOne(Mockito.anyLong())).thenReturn(dummyEmail);
         when(userAuthenticationService.findByToken(Mockito.anyString())).thenAnswer(i -> {
-            if (i.getArgument(0).equals(dummyUser1.getToken())) return dummyUser1;
+            if (i.getArgument(0).equals(validToken)) return dummyUser1;
             else throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
         });
         when(userRepository.findByUserId(Mockito.anyLong())).thenReturn(dummyUser1);
+        when(userAuthenticationService.authenticate(Mockito.anyString())).thenAnswer(i -> {
+            if (i.getArgument(0).equals(validToken)) return new UserPrincipal(dummyUser1.getUserId(), dummyUser1.getRole());
+            else throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        });
         when(userRepository.existsUserByRole(Mockito.anyInt())).thenAnswer(i -> {
             if (((int)i.getArgument(0) == UserRole.DEFAULT_ADMIN) && !defaultAdminIsRegistered) {
                 return false;
@@ -116,9 +142,9 @@ class UserControllerTest {
                 });
         when(emailRepository.existsEmailByEmail(Mockito.anyString())).thenReturn(false);
         when(userAuthenticationService.findByUserId(Mockito.anyString(), Mockito.anyLong())).thenAnswer(i -> {
-            if (i.getArgument(0).equals(dummyUser1.getToken()) && i.getArgument(1).equals(dummyUser1.getUserId()))
+            if (i.getArgument(0).equals(validToken) && i.getArgument(1).equals(dummyUser1.getUserId()))
                 return dummyUser1;
-            else if ((i.getArgument(0).equals(dummyUser1.getToken())) && !(i.getArgument(1).equals(dummyUser1.getUserId())))
+            else if ((i.getArgument(0).equals(validToken)) && !(i.getArgument(1).equals(dummyUser1.getUserId())))
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN);
             else
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
@@ -129,12 +155,8 @@ class UserControllerTest {
                 if (i.getArgument(0).equals(dummyEmail.getEmail()) && dummyUser1.checkPassword(i.getArgument(1))) return new LoginResponse("ValidToken", dummyUser1.getUserId());
                 else throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
         });
-        Mockito.doAnswer(i -> {
-            if (i.getArgument(0).equals(dummyUser1.getToken())) dummyUser1.setToken(null);
-            return null;
-        }).when(userAuthenticationService).logout(Mockito.anyString());
-        dummyUser1.setToken(validToken);
-        dummyUser1.setTokenTime();
+        when(userAuthenticationService.startSession(Mockito.any(UserPrincipal.class))).thenAnswer(i ->
+                new LoginResponse("ValidToken", ((UserPrincipal) i.getArgument(0)).getUserId()));
 
         // Second user
         regReq = objectMapper.treeToValue(objectMapper.readTree(createUserJsonViewUser2), UserRegisterRequest.class);
@@ -148,63 +170,30 @@ class UserControllerTest {
         });
 
         // Mock ActivityType repository for only dummyUser1
-        Map<String, Long> activityNameToIdMap = new HashMap<>(4);
         Collection<ActivityType> activityTypes = dummyUser1.getActivityTypes();  // Get ActivityTypes from user
         activityTypes = activityTypes == null ? new HashSet<>() : activityTypes;  // If null set to empty set
+        Set<ActivityType> indexedActivityTypes = new HashSet<>();
         long id = 1;
         for (ActivityType activityType: activityTypes) {
-            activityNameToIdMap.put(activityType.getName().toLowerCase(), id);
+            ActivityType indexedActivityType = new ActivityType(activityType.getName());
+            indexedActivityType.setActivityTypeId(id);
+            indexedActivityTypes.add(indexedActivityType);
             id++;
         }
         /**
-         * Mock the AND function of UserController
-         */
-        when(userActivityTypeRepository.findByAllActivityTypeIds(Mockito.anyList(), Mockito.anyInt())).thenAnswer(i -> {
-            List<Long> activityTypeIdsToMatch = i.getArgument(0);
-
-            Collection<Long> allActivityTypeIds = activityNameToIdMap.values();
-            if (allActivityTypeIds.containsAll(activityTypeIdsToMatch)) {   // Contains all
-                return Arrays.asList(dummyUser1.getUserId());
-            } else {
-                return null;
-            }
-        });
-        /**
-         * Mock the OR function of UserController
+         * Index dummyUser1's ActivityTypes, for the AND and OR functions of UserController
          */
-        when(userActivityTypeRepository.findBySomeActivityTypeIds(Mockito.anyList())).thenAnswer(i -> {
-            List<Long> activityTypeIdsToMatch = i.getArgument(0);
-            boolean matched = false;
-
-            Collection<Long> allActivityTypeIds = activityNameToIdMap.values();
-            if (!Collections.disjoint(allActivityTypeIds, activityTypeIdsToMatch)) {  // Contains any
-                return Arrays.asList(dummyUser1.getUserId());
-            } else {
-                return null;
+        userActivityTypeIndex.update(dummyUser1.getUserId(), indexedActivityTypes);
+        // The registry converts ActivityType names to the mocked ids, unknown names have no id
+        when(activityTypeRepository.findAll()).thenReturn(new ArrayList<>(indexedActivityTypes));
+        activityTypeRegistry.reload();
+        when(userResponseAssembler.assemble(Mockito.anyCollection())).thenAnswer(i -> {
+            List<UserResponse> responses = new ArrayList<>();
+            if (((Collection<?>) i.getArgument(0)).contains(dummyUser1.getUserId())) {
+                dummyUser1.setTransientEmailStrings();
+                responses.add(new UserResponse(dummyUser1));
             }
-        });
-        /**
-         * Use a hash map to convert ActivityType names to mocked ids
-         */
-        when(activityTypeRepository.findActivityTypeIdsByNames(Mockito.anyList())).thenAnswer(i -> {
-            List<String> activityTypeNames = i.getArgument(0);
-            List<Long> activityTypeIdList = new ArrayList<>();
-            for (String name: activityTypeNames) {
-                activityTypeIdList.add(activityNameToIdMap.get(name.toLowerCase()));
-            }
-            return activityTypeIdList;
-        });
-        when(userRepository.getUsersByIds(Mockito.anyList())).thenAnswer(i -> {
-            List<Long> checkId = new ArrayList<>();
-            checkId.add(dummyUser1.getUserId());
-            if (i.getArguments()[0].equals(checkId)) {
-                List<User> users = new ArrayList<>();
-                users.add(dummyUser1);
-                return users;
-            } else {
-                return null;
-            }
-
+            return responses;
         });
     }
 
@@ -288,6 +277,25 @@ class UserControllerTest {
         assertNotNull(result.getResponse());
     }
 
+    /**
+     * Test a new user is logged in even when logins to their email are being throttled, as the user is already saved
+     */
+    @Test
+    public void newUserWhenLoginThrottled() throws Exception {
+        setupMockingNoEmail(newUserJson);
+        when(userAuthenticationService.login(Mockito.anyString(), Mockito.anyString()))
+                .thenThrow(new ServiceBusyException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts", 30));
+
+        MockHttpServletRequestBuilder httpReq = MockMvcRequestBuilders.post("/profiles")
+                .content(newUserJson)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(httpReq)
+                .andExpect(status().isCreated());
+        Mockito.verify(userAuthenticationService, Mockito.never()).login(Mockito.anyString(), Mockito.anyString());
+    }
+
 
     private final String findUserDataJson = JsonConverter.toJson(true,
             "lastname", "Kim",
@@ -330,6 +338,62 @@ class UserControllerTest {
     }
 
 
+    /**
+     * Test the profile is sent with an ETag of the user's version
+     */
+    @Test
+    public void findUserDataHasETag() throws Exception {
+        setupMocking(findUserDataJson);
+        when(userRepository.findVersionByUserId(DEFAULT_USER_ID)).thenReturn(0L);
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/profiles")
+                .header("Token", validToken);
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"profile-1-0\""));
+    }
+
+    /**
+     * Test a current profile is answered with a 304 without loading the user
+     */
+    @Test
+    public void findUserDataNotModified() throws Exception {
+        setupMocking(findUserDataJson);
+        when(userRepository.findVersionByUserId(DEFAULT_USER_ID)).thenReturn(3L);
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/profiles")
+                .header("Token", validToken)
+                .header("If-None-Match", "\"profile-1-3\"");
+        MvcResult result = mvc.perform(request)
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertTrue(result.getResponse().getContentAsString().isEmpty());
+        Mockito.verify(userAuthenticationService, Mockito.never()).findByToken(Mockito.anyString());
+
+        // An old version is sent the profile again
+        request = MockMvcRequestBuilders.get("/profiles")
+                .header("Token", validToken)
+                .header("If-None-Match", "\"profile-1-2\"");
+        mvc.perform(request)
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Test searching users by activity type only checks the login, without loading the user
+     */
+    @Test
+    public void getUsersByActivityTypeOnlyAuthenticates() throws Exception {
+        setupMocking(findUserDataJson);
+        mvc.perform(MockMvcRequestBuilders.get("/profiles")
+                .header("Token", "not-a-token")
+                .param("activity", "Underwater-Chess").param("method", "or"))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(MockMvcRequestBuilders.get("/profiles")
+                .header("Token", validToken)
+                .param("activity", "Underwater-Chess").param("method", "or"))
+                .andExpect(status().isNotFound());
+        Mockito.verify(userAuthenticationService, Mockito.never()).findByToken(Mockito.any());
+    }
+
+
     /**
      * Helper function that creates a mock request to login a user
      * @param jsonLoginDetails a json string of login details with keys email: password:
@@ -402,6 +466,21 @@ class UserControllerTest {
     }
 
 
+    /**
+     * Test login is turned away with a Retry-After when passwords can't be hashed right now
+     */
+    @Test
+    public void busyLoginIsRetriedLater() throws Exception {
+        setupMocking(createUserForLoginJson);
+        Mockito.doThrow(new ServiceBusyException("Too many logins at once, please try again shortly", 2))
+                .when(userAuthenticationService).login(Mockito.anyString(), Mockito.anyString());
+        MockHttpServletRequestBuilder request = buildLoginRequest(loginAuthorizedUserJson);
+
+        mvc.perform(request)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+
     /**
      * Logout fails when token not found (is null)
      */
@@ -558,6 +637,23 @@ class UserControllerTest {
     }
 
 
+    /**
+     * Tests another users current profile is answered with a 304 without loading them
+     */
+    @Test
+    public void viewProfileNotModified() throws Exception {
+        setupMocking(createUserJsonViewUser1);
+        long userId = dummyUser2.getUserId();
+        when(userRepository.findVersionByUserId(userId)).thenReturn(5L);
+        MockHttpServletRequestBuilder getRequest = MockMvcRequestBuilders.get("/profiles/{id}", userId)
+                .header("Token", validToken)
+                .header("If-None-Match", "\"profile-10-5\"");
+        mvc.perform(getRequest)
+                .andExpect(status().isNotModified());
+        Mockito.verify(userAuthenticationService, Mockito.never()).viewUserById(Mockito.anyLong(), Mockito.anyString());
+    }
+
+
     /**
      * Successful test to check if a token is logged in with given user id
      */
@@ -856,6 +952,102 @@ class UserControllerTest {
 
     }
 
+    /**
+     * Tests that the total number of matching users is given, and that a page after the last user is empty
+     */
+    @Test
+    void getUserByActivityTypesIsPaged() throws Exception {
+        setupMocking(newUserWithActivityTypes);
+
+        MockHttpServletRequestBuilder httpReq = MockMvcRequestBuilders.get(new URI("/profiles?activity=Hiking&method=or&limit=1"))
+                .header("Token", validToken);
+        MvcResult result = mvc.perform(httpReq).andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "1"))
+                .andExpect(header().doesNotExist("X-Next-Cursor")).andReturn();
+        assertEquals(1, objectMapper.readTree(result.getResponse().getContentAsString()).size());
+
+        httpReq = MockMvcRequestBuilders.get(new URI("/profiles?activity=Hiking&method=or&limit=1&after=" + DEFAULT_USER_ID))
+                .header("Token", validToken);
+        result = mvc.perform(httpReq).andExpect(status().isOk()).andReturn();
+        assertEquals(0, objectMapper.readTree(result.getResponse().getContentAsString()).size());
+    }
+
+    /**
+     * Tests that the cursor of the next page is given when there are more users
+     */
+    @Test
+    void getUserByActivityTypesGivesNextCursor() throws Exception {
+        setupMocking(newUserWithActivityTypes);
+        ActivityType hiking = new ActivityType("Hiking");
+        hiking.setActivityTypeId(1L);
+        userActivityTypeIndex.update(5L, Collections.singleton(hiking));
+
+        MockHttpServletRequestBuilder httpReq = MockMvcRequestBuilders.get(new URI("/profiles?activity=Hiking&method=or&limit=1"))
+                .header("Token", validToken);
+        mvc.perform(httpReq).andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "2"))
+                .andExpect(header().string("X-Next-Cursor", String.valueOf(DEFAULT_USER_ID)));
+        userActivityTypeIndex.update(5L, null);
+    }
+
+    /**
+     * Tests that a limit out of range is rejected
+     */
+    @Test
+    void getUserByActivityTypesWithBadLimit() throws Exception {
+        setupMocking(newUserWithActivityTypes);
+
+        MockHttpServletRequestBuilder httpReq = MockMvcRequestBuilders.get(new URI("/profiles?activity=Hiking&method=or&limit=0"))
+                .header("Token", validToken);
+
+        mvc.perform(httpReq).andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that users can be found by the start of their name
+     */
+    @Test
+    void searchUsersByName() throws Exception {
+        setupMocking(newUserWithActivityTypes);
+        userNameIndex.update(dummyUser1.getUserId(), dummyUser1.getFirstName(), dummyUser1.getLastName(),
+                dummyUser1.getNickName());
+
+        MockHttpServletRequestBuilder httpReq = MockMvcRequestBuilders.get(
+                new URI("/profiles/search?q=" + dummyUser1.getFirstName().substring(0, 2)))
+                .header("Token", validToken);
+        MvcResult result = mvc.perform(httpReq).andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "1")).andReturn();
+
+        JsonNode responseArray = objectMapper.readTree(result.getResponse().getContentAsString());
+        assertEquals(1, responseArray.size());
+        assertEquals(DEFAULT_USER_ID, responseArray.get(0).get("id").asLong());
+    }
+
+    /**
+     * Tests that a blank name search is rejected
+     */
+    @Test
+    void searchUsersByBlankName() throws Exception {
+        setupMocking(newUserWithActivityTypes);
+
+        MockHttpServletRequestBuilder httpReq = MockMvcRequestBuilders.get(new URI("/profiles/search?q=%20"))
+                .header("Token", validToken);
+        mvc.perform(httpReq).andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that a name search past the deepest allowed page is rejected rather than overflowing
+     */
+    @Test
+    void searchUsersByNameWithHugeOffset() throws Exception {
+        setupMocking(newUserWithActivityTypes);
+
+        MockHttpServletRequestBuilder httpReq = MockMvcRequestBuilders.get(
+                new URI("/profiles/search?q=pocket&offset=" + Integer.MAX_VALUE))
+                .header("Token", validToken);
+        mvc.perform(httpReq).andExpect(status().isBadRequest());
+    }
+
     private final String newUserWithSpacedActivityTypes = JsonConverter.toJson(true,
             "lastname", "Pocket",
             "firstname", "Poly",
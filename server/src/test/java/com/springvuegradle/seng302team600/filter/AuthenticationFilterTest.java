@@ -0,0 +1,39 @@
+package com.springvuegradle.seng302team600.filter;
+
+import com.springvuegradle.seng302team600.service.RequestAuthentication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthenticationFilterTest {
+
+    private AuthenticationFilter filter;
+    private MockFilterChain filterChain;
+
+    @BeforeEach
+    void setUp() {
+        filter = new AuthenticationFilter();
+        filterChain = new MockFilterChain();
+    }
+
+    @Test
+    void tokenIsAttachedWithoutBeingAuthenticated() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Token", "valid");
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+        assertTrue(request.getAttribute(RequestAuthentication.ATTRIBUTE) instanceof RequestAuthentication);
+        assertNotNull(filterChain.getRequest());
+    }
+
+    @Test
+    void requestWithoutTokenIsNotAuthenticated() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+        assertNull(request.getAttribute(RequestAuthentication.ATTRIBUTE));
+        assertNotNull(filterChain.getRequest());
+    }
+}
@@ -0,0 +1,54 @@
+package com.springvuegradle.seng302team600.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityTypeMaskTest {
+
+    private static ActivityType activityType(String name, Integer ordinal) {
+        ActivityType activityType = new ActivityType(name);
+        activityType.setOrdinal(ordinal);
+        return activityType;
+    }
+
+    @Test
+    void ordinalsSetTheirBits() {
+        ActivityTypeMask mask = ActivityTypeMask.of(new HashSet<>(Arrays.asList(
+                activityType("Hiking", 0), activityType("Golf", 63), activityType("Gliding", 64),
+                activityType("Unsaved", null))));
+        assertEquals(1L | Long.MIN_VALUE, mask.getLow());
+        assertEquals(1L, mask.getHigh());
+        assertEquals(3, mask.size());
+        assertTrue(mask.contains(63));
+        assertFalse(mask.contains(1));
+        assertEquals(ActivityTypeMask.EMPTY, ActivityTypeMask.of(null));
+    }
+
+    @Test
+    void containsAllAndAny() {
+        ActivityTypeMask mask = ActivityTypeMask.EMPTY.with(3).with(70);
+        assertTrue(mask.containsAll(ActivityTypeMask.EMPTY.with(70)));
+        assertTrue(mask.containsAll(ActivityTypeMask.EMPTY));
+        assertFalse(mask.containsAll(ActivityTypeMask.EMPTY.with(3).with(4)));
+        assertTrue(mask.containsAny(ActivityTypeMask.EMPTY.with(3).with(4)));
+        assertFalse(mask.containsAny(ActivityTypeMask.EMPTY.with(4).with(71)));
+        assertFalse(mask.containsAny(ActivityTypeMask.EMPTY));
+    }
+
+    @Test
+    void ordinalMustFitTheMask() {
+        assertThrows(IllegalArgumentException.class, () -> ActivityTypeMask.EMPTY.with(ActivityTypeMask.MAX_ACTIVITY_TYPES));
+        assertThrows(IllegalArgumentException.class, () -> ActivityTypeMask.EMPTY.with(-1));
+    }
+
+    @Test
+    void settingActivityTypesKeepsTheMaskInStep() {
+        Activity activity = new Activity();
+        activity.setActivityTypes(new HashSet<>(Arrays.asList(activityType("Hiking", 2), activityType("Golf", 100))));
+        assertEquals(ActivityTypeMask.EMPTY.with(2).with(100), activity.getActivityTypeMask());
+    }
+}
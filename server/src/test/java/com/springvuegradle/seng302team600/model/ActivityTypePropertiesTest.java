@@ -0,0 +1,74 @@
+package com.springvuegradle.seng302team600.model;
+
+import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ActivityTypePropertiesTest {
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+    @Autowired
+    private ActivityTypeRepository activityTypeRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private void seed(String... names) {
+        List<ActivityType> activityTypes = new ArrayList<>();
+        for (String name : names) {
+            activityTypes.add(new ActivityType(name));
+        }
+        ActivityTypeProperties properties = new ActivityTypeProperties(activityTypes);
+        beanFactory.autowireBean(properties);
+        properties.run();
+    }
+
+    private Map<String, Integer> ordinalsByName() {
+        return activityTypeRepository.findAll().stream()
+                .collect(Collectors.toMap(ActivityType::getName, ActivityType::getOrdinal));
+    }
+
+    @Test
+    void seedsMissingActivityTypesAlphabeticallyWithOrdinals() {
+        seed("Skiing", "Archery", "Gliding");
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("Archery", 0);
+        expected.put("Gliding", 1);
+        expected.put("Skiing", 2);
+        assertEquals(expected, ordinalsByName());
+
+        // A changed file only adds the new types, and never renumbers the old ones
+        seed("Skiing", "Archery", "Gliding", "Biking");
+        expected.put("Biking", 3);
+        assertEquals(expected, ordinalsByName());
+    }
+
+    @Test
+    void unchangedFileIsNotSeededAgain() {
+        seed("Skiing", "Archery");
+        jdbcTemplate.update("DELETE FROM activity_type WHERE name = 'Skiing'");
+        seed("Skiing", "Archery");
+        assertEquals(Collections.singleton("Archery"), ordinalsByName().keySet());
+
+        seed("Archery", "Skiing");
+        assertEquals(new HashSet<>(Arrays.asList("Archery", "Skiing")), ordinalsByName().keySet());
+    }
+
+    @Test
+    void activityTypesWithoutOrdinalsAreNumbered() {
+        jdbcTemplate.update("INSERT INTO activity_type (name, ordinal) VALUES ('Archery', 4)");
+        jdbcTemplate.update("INSERT INTO activity_type (name) VALUES ('Skiing')");
+        seed("Archery", "Biking");
+        assertEquals(Integer.valueOf(5), ordinalsByName().get("Skiing"));
+        assertEquals(Integer.valueOf(6), ordinalsByName().get("Biking"));
+    }
+}
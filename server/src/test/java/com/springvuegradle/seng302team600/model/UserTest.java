@@ -1,7 +1,7 @@
 package com.springvuegradle.seng302team600.model;
 
 import com.springvuegradle.seng302team600.Utilities.UserValidator;
-import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
+import com.springvuegradle.seng302team600.service.ActivityTypeRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -31,8 +31,8 @@ public class UserTest {
         userTest.setFirstName("Jimmy");
         userTest.setLastName("Jones");
         userTest.setDateOfBirth(getAgeDate(50));
-        ActivityTypeRepository mockActivityTypeRepository = mock(ActivityTypeRepository.class);
-        validator = new UserValidator(mockActivityTypeRepository);
+        ActivityTypeRegistry mockActivityTypeRegistry = mock(ActivityTypeRegistry.class);
+        validator = new UserValidator(mockActivityTypeRegistry);
     }
 
     @Test
@@ -0,0 +1,99 @@
+package com.springvuegradle.seng302team600.repository;
+
+import com.springvuegradle.seng302team600.model.Activity;
+import com.springvuegradle.seng302team600.model.ActivityType;
+import com.springvuegradle.seng302team600.model.ActivityTypeMask;
+import com.springvuegradle.seng302team600.service.ActivityTypeMaskBackfill;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks activities are matched on their activity types through the join table, and that missing
+ * ActivityTypeMasks are filled in from it, including the sign bit of each column.
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=com.springvuegradle.seng302team600.repository.BitwiseH2Dialect")
+@Import(ActivityTypeMaskBackfill.class)
+class ActivityActivityTypeRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private ActivityActivityTypeRepository activityActivityTypeRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ActivityTypeMaskBackfill activityTypeMaskBackfill;
+
+    private ActivityType hiking;
+    private ActivityType golf;
+    private ActivityType gliding;
+    private Long hikingAndGolf;
+    private Long golfAndGliding;
+    private Long gliding2;
+
+    private ActivityType saveActivityType(String name, int ordinal) {
+        ActivityType activityType = new ActivityType(name);
+        activityType.setOrdinal(ordinal);
+        return entityManager.persist(activityType);
+    }
+
+    private Long saveActivity(ActivityType... activityTypes) {
+        Activity activity = new Activity();
+        activity.setName("Activity");
+        activity.setLocation("Christchurch");
+        activity.setContinuous(true);
+        activity.setActivityTypes(new HashSet<>(Arrays.asList(activityTypes)));
+        return entityManager.persist(activity).getActivityId();
+    }
+
+    @BeforeEach
+    void setUp() {
+        hiking = saveActivityType("Hiking", 0);
+        golf = saveActivityType("Golf", 63);
+        gliding = saveActivityType("Gliding", 127);
+        hikingAndGolf = saveActivity(hiking, golf);
+        golfAndGliding = saveActivity(golf, gliding);
+        gliding2 = saveActivity(gliding);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static ActivityTypeMask mask(ActivityType... activityTypes) {
+        return ActivityTypeMask.of(Arrays.asList(activityTypes));
+    }
+
+    private Set<Long> findByActivityTypes(ActivityType... activityTypes) {
+        List<Long> activityTypeIds = new ArrayList<>();
+        for (ActivityType activityType : activityTypes) {
+            activityTypeIds.add(activityType.getActivityTypeId());
+        }
+        return new HashSet<>(activityActivityTypeRepository.findByActivityTypeIds(activityTypeIds,
+                activityTypeIds.size()));
+    }
+
+    @Test
+    void findsActivitiesWithAllActivityTypes() {
+        assertEquals(new HashSet<>(Arrays.asList(hikingAndGolf, golfAndGliding)), findByActivityTypes(golf));
+        assertEquals(Collections.singleton(golfAndGliding), findByActivityTypes(golf, gliding));
+        assertEquals(new HashSet<>(Arrays.asList(golfAndGliding, gliding2)), findByActivityTypes(gliding));
+        assertEquals(Collections.emptySet(), findByActivityTypes(hiking, gliding));
+    }
+
+    @Test
+    void backfillFillsInMissingMasksFromTheJoinTable() {
+        jdbcTemplate.update("UPDATE activity SET activity_type_mask_low = NULL, activity_type_mask_high = NULL " +
+                "WHERE activity_id = ?", golfAndGliding);
+        activityTypeMaskBackfill.backfill();
+        Activity activity = entityManager.find(Activity.class, golfAndGliding);
+        assertEquals(mask(golf, gliding), activity.getActivityTypeMask());
+    }
+}
@@ -0,0 +1,121 @@
+package com.springvuegradle.seng302team600.repository;
+
+import com.springvuegradle.seng302team600.model.Activity;
+import com.springvuegradle.seng302team600.model.ActivityType;
+import com.springvuegradle.seng302team600.model.ActivityTypeMask;
+import com.springvuegradle.seng302team600.payload.ActivityResponse;
+import com.springvuegradle.seng302team600.service.ActivityResponseAssembler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=com.springvuegradle.seng302team600.repository.BitwiseH2Dialect")
+class ActivityRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private ActivityRepository activityRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ActivityType hiking;
+    private ActivityType golf;
+    private final List<Long> activityIds = new ArrayList<>();
+
+    private ActivityType saveActivityType(String name, int ordinal) {
+        ActivityType activityType = new ActivityType(name);
+        activityType.setOrdinal(ordinal);
+        return entityManager.persist(activityType);
+    }
+
+    private void saveActivity(Long creatorUserId, boolean continuous, ActivityType... activityTypes) {
+        Activity activity = new Activity();
+        activity.setName("Activity");
+        activity.setLocation("Christchurch");
+        activity.setCreatorUserId(creatorUserId);
+        activity.setContinuous(continuous);
+        activity.setActivityTypes(new HashSet<>(Arrays.asList(activityTypes)));
+        activityIds.add(entityManager.persist(activity).getActivityId());
+    }
+
+    @BeforeEach
+    void setUp() {
+        hiking = saveActivityType("Hiking", 0);
+        golf = saveActivityType("Golf", 100);
+        saveActivity(1L, true, hiking);
+        saveActivity(2L, false, hiking, golf);
+        saveActivity(1L, false, golf);
+        saveActivity(1L, true, hiking, golf);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private List<Long> findPage(long after, Long creatorUserId, Boolean continuous, ActivityTypeMask mask, int size) {
+        return activityRepository.findPage(after, creatorUserId, continuous, mask.getLow(), mask.getHigh(),
+                PageRequest.of(0, size)).stream().filter(row -> (Boolean) row[1]).map(row -> (Long) row[0])
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> activities(int... indexes) {
+        return Arrays.stream(indexes).mapToObj(activityIds::get).collect(Collectors.toList());
+    }
+
+    @Test
+    void pagesInOrderOfActivityId() {
+        assertEquals(activities(0, 1), findPage(0, null, null, ActivityTypeMask.EMPTY, 2));
+        assertEquals(activities(2, 3), findPage(activityIds.get(1), null, null, ActivityTypeMask.EMPTY, 2));
+        assertEquals(Collections.emptyList(), findPage(activityIds.get(3), null, null, ActivityTypeMask.EMPTY, 2));
+    }
+
+    @Test
+    void readsActivitiesNotMatchingTheMask() {
+        ActivityTypeMask mask = ActivityTypeMask.of(Arrays.asList(hiking, golf));
+        List<Object[]> rows = activityRepository.findPage(0, null, null, mask.getLow(), mask.getHigh(), PageRequest.of(0, 3));
+        assertEquals(activities(0, 1, 2), rows.stream().map(row -> (Long) row[0]).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(false, true, false), rows.stream().map(row -> (Boolean) row[1]).collect(Collectors.toList()));
+    }
+
+    @Test
+    void filtersOnCreatorAndContinuous() {
+        assertEquals(activities(0, 2, 3), findPage(0, 1L, null, ActivityTypeMask.EMPTY, 10));
+        assertEquals(activities(1, 2), findPage(0, null, false, ActivityTypeMask.EMPTY, 10));
+        assertEquals(activities(2), findPage(0, 1L, false, ActivityTypeMask.EMPTY, 10));
+    }
+
+    @Test
+    void listsActivitiesWithoutAMaskWhenNotFilteringOnActivityTypes() {
+        jdbcTemplate.update("UPDATE activity SET activity_type_mask_low = NULL, activity_type_mask_high = NULL " +
+                "WHERE activity_id = ?", activityIds.get(1));
+        assertEquals(activities(0, 1, 2, 3), findPage(0, null, null, ActivityTypeMask.EMPTY, 10));
+        assertEquals(activities(2, 3), findPage(0, null, null, ActivityTypeMask.of(Collections.singleton(golf)), 10));
+    }
+
+    @Test
+    void filtersOnActivityTypes() {
+        assertEquals(activities(1, 2, 3), findPage(0, null, null, ActivityTypeMask.of(Collections.singleton(golf)), 10));
+        assertEquals(activities(3), findPage(0, 1L, true, ActivityTypeMask.of(Arrays.asList(hiking, golf)), 10));
+    }
+
+    @Test
+    void assemblesActivityResponsesWithoutLoadingActivities() {
+        List<ActivityResponse> responses = new ActivityResponseAssembler(activityRepository)
+                .assemble(Arrays.asList(activityIds.get(3), activityIds.get(0), 999L));
+        assertEquals(activities(0, 3), responses.stream().map(ActivityResponse::getActivityId).collect(Collectors.toList()));
+        assertEquals(Collections.singleton("Hiking"), names(responses.get(0)));
+        assertEquals(new HashSet<>(Arrays.asList("Hiking", "Golf")), names(responses.get(1)));
+    }
+
+    private static Set<String> names(ActivityResponse response) {
+        return response.getActivityTypes().stream().map(ActivityType::getName).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,38 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The searches themselves are covered by UserActivityTypeIndexTest, this checks the activity join table is read.
+ */
+class ActivityActivityTypeIndexTest {
+
+    @Test
+    void buildLoadsTheActivityJoinTable() throws Exception {
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        ActivityActivityTypeIndex index = new ActivityActivityTypeIndex(jdbcTemplate);
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.getLong("activity_id")).thenReturn(1L, 3L);
+        when(resultSet.getLong("activity_type_id")).thenReturn(2L, 2L);
+        doAnswer(i -> {
+            RowCallbackHandler handler = i.getArgument(1);
+            handler.processRow(resultSet);
+            handler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(Mockito.eq("SELECT activity_id, activity_type_id FROM activity_activity_type"),
+                Mockito.any(RowCallbackHandler.class));
+        index.build();
+        assertEquals(Arrays.asList(1L, 3L),
+                ActivityTypeIndex.page(index.findWithAny(Collections.singletonList(2L)), null, 10));
+    }
+}
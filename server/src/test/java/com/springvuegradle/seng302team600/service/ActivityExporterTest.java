@@ -0,0 +1,96 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.springvuegradle.seng302team600.model.Activity;
+import com.springvuegradle.seng302team600.model.ActivityType;
+import com.springvuegradle.seng302team600.payload.ActivityResponse;
+import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ActivityExporterTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private ActivityTypeRepository activityTypeRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ActivityExporter activityExporter;
+    private final List<Activity> activities = new ArrayList<>();
+
+    private ActivityType saveActivityType(String name, int ordinal) {
+        ActivityType activityType = new ActivityType(name);
+        activityType.setOrdinal(ordinal);
+        return entityManager.persist(activityType);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ActivityType hiking = saveActivityType("Hiking", 0);
+        ActivityType golf = saveActivityType("Golf", 70);
+        Activity continuous = new Activity();
+        continuous.setName("Walk");
+        continuous.setDescription("A \"quoted\" walk");
+        continuous.setLocation("Christchurch");
+        continuous.setCreatorUserId(3L);
+        continuous.setContinuous(true);
+        continuous.setActivityTypes(new HashSet<>(Arrays.asList(hiking, golf)));
+        activities.add(entityManager.persist(continuous));
+        Activity duration = new Activity();
+        duration.setName("Round");
+        duration.setLocation("Auckland");
+        duration.setContinuous(false);
+        duration.setStartTime(new Date(1582142400000L));
+        duration.setEndTime(new Date(1582146000000L));
+        duration.setActivityTypes(Collections.singleton(golf));
+        activities.add(entityManager.persist(duration));
+        entityManager.flush();
+
+        ActivityTypeRegistry activityTypeRegistry = new ActivityTypeRegistry(activityTypeRepository);
+        activityTypeRegistry.reload();
+        activityExporter = new ActivityExporter(jdbcTemplate, activityTypeRegistry, objectMapper);
+    }
+
+    /**
+     * Checks each activity is written on its own line, just as GET /activities would write it.
+     */
+    @Test
+    void exportsOneActivityResponsePerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(2, activityExporter.export(out));
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        for (int i = 0; i < activities.size(); i++) {
+            JsonNode expected = objectMapper.readTree(objectMapper.writeValueAsString(new ActivityResponse(activities.get(i))));
+            JsonNode exported = objectMapper.readTree(lines[i]);
+            // Activity types may be in any order in a set
+            assertEquals(typeIds(expected), typeIds(exported));
+            ((ObjectNode) expected).remove("activity_type");
+            ((ObjectNode) exported).remove("activity_type");
+            assertEquals(expected, exported);
+        }
+    }
+
+    private static Set<Long> typeIds(JsonNode activity) {
+        Set<Long> ids = new HashSet<>();
+        activity.get("activity_type").forEach(type -> ids.add(type.get("activityTypeId").asLong()));
+        return ids;
+    }
+}
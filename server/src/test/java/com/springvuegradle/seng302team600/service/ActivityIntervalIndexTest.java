@@ -0,0 +1,125 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.Activity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityIntervalIndexTest {
+
+    private ActivityIntervalIndex index;
+
+    private Activity activity(long start, long end) {
+        Activity activity = new Activity();
+        activity.setContinuous(false);
+        activity.setStartTime(new Date(start));
+        activity.setEndTime(new Date(end));
+        return activity;
+    }
+
+    private List<Long> between(long from, long to) {
+        return index.findActivitiesBetween(from, to, null, Integer.MAX_VALUE);
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new ActivityIntervalIndex(Mockito.mock(JdbcTemplate.class));
+        index.update(1L, activity(0, 10));
+        index.update(2L, activity(5, 15));
+        index.update(3L, activity(20, 30));
+    }
+
+    @Test
+    void overlappingActivitiesAreFound() {
+        assertEquals(Arrays.asList(1L, 2L), between(8, 12));
+        assertEquals(Arrays.asList(2L, 3L), between(12, 25));
+        assertEquals(Arrays.asList(1L, 2L, 3L), between(-5, 100));
+        assertTrue(between(16, 19).isEmpty());
+        assertTrue(between(31, 40).isEmpty());
+    }
+
+    @Test
+    void touchingActivitiesAreFound() {
+        assertEquals(Arrays.asList(1L), between(-5, 0));
+        assertEquals(Arrays.asList(2L, 3L), between(15, 20));
+        assertEquals(Arrays.asList(3L), between(30, 30));
+    }
+
+    @Test
+    void pagesAfterTheCursor() {
+        index.update(4L, activity(25, 26));
+        assertEquals(Arrays.asList(1L, 2L), index.findActivitiesBetween(-5, 100, null, 2));
+        assertEquals(Arrays.asList(3L, 4L), index.findActivitiesBetween(-5, 100, 2L, 2));
+        assertEquals(Collections.singletonList(4L), index.findActivitiesBetween(12, 25, 2L, 1));
+        assertTrue(index.findActivitiesBetween(-5, 100, 4L, 2).isEmpty());
+    }
+
+    @Test
+    void backwardsTimesFindNothing() {
+        assertTrue(between(25, 5).isEmpty());
+    }
+
+    @Test
+    void editsAndDeletesAreKeptInStep() {
+        index.update(1L, activity(40, 50));
+        assertEquals(Collections.singletonList(2L), between(0, 9));
+        assertEquals(Collections.singletonList(1L), between(45, 45));
+
+        Activity continuous = activity(0, 100);
+        continuous.setContinuous(true);
+        index.update(2L, continuous);
+        assertTrue(between(5, 15).isEmpty());
+
+        index.remove(3L);
+        assertEquals(Collections.singletonList(1L), between(0, 100));
+    }
+
+    @Test
+    void matchesAScanOfManyActivities() {
+        Random random = new Random(302);
+        long[][] times = new long[500][];
+        for (int i = 0; i < times.length; i++) {
+            long start = random.nextInt(10000);
+            times[i] = new long[]{start, start + random.nextInt(500)};
+            index.update((long) i, activity(times[i][0], times[i][1]));
+        }
+        // Move and delete some, so the tree has been reshaped by updates as well as inserts
+        for (int i = 0; i < times.length; i += 7) {
+            if (i % 2 == 0) {
+                index.remove((long) i);
+                times[i] = new long[]{Long.MAX_VALUE, Long.MIN_VALUE};
+            } else {
+                long start = random.nextInt(10000);
+                times[i] = new long[]{start, start + random.nextInt(500)};
+                index.update((long) i, activity(times[i][0], times[i][1]));
+            }
+        }
+        for (int query = 0; query < 200; query++) {
+            long from = random.nextInt(11000) - 500;
+            long to = from + random.nextInt(1000);
+            List<Long> expected = new ArrayList<>();
+            for (int i = 0; i < times.length; i++) {
+                if (times[i][0] <= to && times[i][1] >= from) {
+                    expected.add((long) i);
+                }
+            }
+            assertEquals(expected, between(from, to));
+            // Paged through in order of id, each page taken after the last id of the one before
+            int pageSize = 1 + random.nextInt(5);
+            List<Long> paged = new ArrayList<>();
+            Long after = null;
+            List<Long> page;
+            do {
+                page = index.findActivitiesBetween(from, to, after, pageSize);
+                paged.addAll(page);
+                after = page.isEmpty() ? after : page.get(page.size() - 1);
+            } while (page.size() == pageSize);
+            assertEquals(expected, paged);
+        }
+    }
+}
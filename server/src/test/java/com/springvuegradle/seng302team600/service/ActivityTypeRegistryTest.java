@@ -0,0 +1,82 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.ActivityType;
+import com.springvuegradle.seng302team600.model.ActivityTypeMask;
+import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ActivityTypeRegistryTest {
+
+    private ActivityTypeRepository activityTypeRepository;
+    private ActivityTypeRegistry registry;
+    private List<ActivityType> activityTypeTable;
+
+    private static ActivityType activityType(long id, String name) {
+        ActivityType activityType = new ActivityType(name);
+        activityType.setActivityTypeId(id);
+        activityType.setOrdinal((int) id - 1);
+        return activityType;
+    }
+
+    @BeforeEach
+    void setUp() {
+        activityTypeTable = new ArrayList<>(Arrays.asList(activityType(2L, "Trail Running"), activityType(1L, "Skiing")));
+        activityTypeRepository = Mockito.mock(ActivityTypeRepository.class);
+        when(activityTypeRepository.findAll()).thenAnswer(i -> new ArrayList<>(activityTypeTable));
+        registry = new ActivityTypeRegistry(activityTypeRepository);
+        registry.reload();
+    }
+
+    @Test
+    void findsActivityTypesByNameAndId() {
+        assertEquals(1L, registry.findByName("Skiing").getActivityTypeId());
+        assertEquals(2L, registry.findByName("trail running").getActivityTypeId());
+        assertEquals("Trail Running", registry.findById(2L).getName());
+        assertNull(registry.findByName("Biking"));
+        assertNull(registry.findByName(null));
+        assertNull(registry.findById(3L));
+    }
+
+    @Test
+    void findsIdsOfKnownNamesOnly() {
+        assertEquals(Arrays.asList(2L, 1L),
+                registry.findIdsByNames(Arrays.asList("Trail Running", "Biking", "SKIING", "skiing")));
+    }
+
+    @Test
+    void activityTypesAreOrderedById() {
+        assertEquals(Arrays.asList(1L, 2L), Arrays.asList(registry.getActivityTypes().get(0).getActivityTypeId(),
+                registry.getActivityTypes().get(1).getActivityTypeId()));
+        assertThrows(UnsupportedOperationException.class, () -> registry.getActivityTypes().add(activityType(3L, "Biking")));
+    }
+
+    @Test
+    void lookupsMakeNoQueriesUntilReloaded() {
+        activityTypeTable.add(activityType(3L, "Biking"));
+        registry.findByName("Skiing");
+        registry.findIdsByNames(Arrays.asList("Skiing", "Biking"));
+        assertNull(registry.findByName("Biking"));
+        verify(activityTypeRepository, times(1)).findAll();
+
+        registry.reload();
+        assertEquals(3L, registry.findByName("Biking").getActivityTypeId());
+    }
+
+    @Test
+    void mapsBetweenIdsAndMasks() {
+        ActivityTypeMask mask = registry.findMaskByIds(Arrays.asList(2L, 3L));
+        assertEquals(ActivityTypeMask.EMPTY.with(1), mask);
+        assertEquals(Collections.singletonList(registry.findById(2L)), registry.findByMask(mask));
+        assertEquals(registry.getActivityTypes(), registry.findByMask(registry.findMaskByIds(Arrays.asList(2L, 1L))));
+    }
+}
@@ -8,7 +8,10 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -19,8 +22,11 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(ActivityTypeService.class)
+@Import(ActivityTypeRegistry.class)
 class ActivityTypeServiceTest {
 
+    @MockBean
+    private UserAuthenticationService userAuthenticationService;
     @MockBean
     private ActivityTypeRepository activityTypeRepository;
 
@@ -83,7 +89,9 @@ class ActivityTypeServiceTest {
         activityTypeTestList.add(new ActivityType("Biking"));
 
         activityTypeRepository.saveAll(activityTypeTestList);
-        activityTypeService = new ActivityTypeService(activityTypeRepository);
+        ActivityTypeRegistry activityTypeRegistry = new ActivityTypeRegistry(activityTypeRepository);
+        activityTypeRegistry.reload();
+        activityTypeService = new ActivityTypeService(activityTypeRegistry);
     }
 
 
@@ -114,5 +122,18 @@ class ActivityTypeServiceTest {
         assertEquals(2L, trailRunning.getActivityTypeId());
     }
 
+    @Test
+    void unknownEntityIsRejected() {
+        Set<ActivityType> detachedActivityTypes = new HashSet<>();
+        detachedActivityTypes.add(new ActivityType("Skiing"));
+        detachedActivityTypes.add(new ActivityType("Underwater Hockey"));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> activityTypeService.getMatchingEntitiesFromRepository(detachedActivityTypes));
+        assertEquals(HttpStatus.EXPECTATION_FAILED, exception.getStatus());
+        // Entities come from the registry, the repository is never asked for them
+        Mockito.verify(activityTypeRepository, Mockito.never()).findActivityTypeByName(Mockito.anyString());
+    }
+
 
 }
\ No newline at end of file
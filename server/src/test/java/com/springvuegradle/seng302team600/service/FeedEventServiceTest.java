@@ -23,6 +23,8 @@ import static org.mockito.Mockito.when;
 @WebMvcTest(FeedEventService.class)
 public class FeedEventServiceTest {
 
+    @MockBean
+    private UserAuthenticationService userAuthenticationService;
     @MockBean
     private FeedEventRepository feedEventRepository;
 
@@ -0,0 +1,63 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LastSeenRecorderTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private LastSeenRecorder lastSeenRecorder;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        lastSeenRecorder = new LastSeenRecorder(jdbcTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> captureBatch() {
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(Mockito.anyString(), batch.capture());
+        return batch.getValue();
+    }
+
+    @Test
+    void repeatedTouchesAreMergedIntoOneRow() {
+        lastSeenRecorder.touch(1L);
+        lastSeenRecorder.touch(1L);
+        lastSeenRecorder.touch(2L);
+        lastSeenRecorder.flush();
+        assertEquals(2, captureBatch().size());
+    }
+
+    @Test
+    void flushClearsPendingTouches() {
+        lastSeenRecorder.touch(1L);
+        assertNotNull(lastSeenRecorder.getPendingLastSeen(1L));
+        lastSeenRecorder.flush();
+        assertNull(lastSeenRecorder.getPendingLastSeen(1L));
+    }
+
+    @Test
+    void emptyFlushDoesNotWrite() {
+        lastSeenRecorder.flush();
+        verify(jdbcTemplate, never()).batchUpdate(Mockito.anyString(), Mockito.<List<Object[]>>any());
+    }
+
+    @Test
+    void failedFlushIsRetried() {
+        when(jdbcTemplate.batchUpdate(Mockito.anyString(), Mockito.<List<Object[]>>any()))
+                .thenThrow(new RuntimeException("Database unavailable"));
+        lastSeenRecorder.touch(1L);
+        lastSeenRecorder.flush();
+        assertNotNull(lastSeenRecorder.getPendingLastSeen(1L));
+    }
+}
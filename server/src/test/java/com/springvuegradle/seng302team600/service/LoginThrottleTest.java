@@ -0,0 +1,89 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private LoginThrottle throttle(boolean enabled) {
+        return new LoginThrottle(enabled, 3, Duration.ofMinutes(1), 5, Duration.ofMinutes(1), 1000);
+    }
+
+    @Test
+    void bucketAllowsBurstThenRefills() {
+        TokenBucket bucket = new TokenBucket(3, SECOND, 0);
+        assertEquals(0, bucket.tryTake(0));
+        assertEquals(0, bucket.tryTake(0));
+        assertEquals(0, bucket.tryTake(0));
+        assertEquals(SECOND, bucket.tryTake(0));
+        assertEquals(0, bucket.tryTake(SECOND));
+        assertTrue(bucket.tryTake(SECOND) > 0);
+    }
+
+    @Test
+    void idleBucketDoesNotOverfill() {
+        TokenBucket bucket = new TokenBucket(2, SECOND, 0);
+        long later = 100 * SECOND;
+        assertEquals(0, bucket.tryTake(later));
+        assertEquals(0, bucket.tryTake(later));
+        assertTrue(bucket.tryTake(later) > 0);
+    }
+
+    @Test
+    void concurrentTakesNeverExceedCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket(100, SECOND * 1000, 0);
+        AtomicInteger taken = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            threads.submit(() -> {
+                if (bucket.tryTake(1) == 0) {
+                    taken.incrementAndGet();
+                }
+            });
+        }
+        threads.shutdown();
+        assertTrue(threads.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(100, taken.get());
+    }
+
+    @Test
+    void repeatedEmailIsThrottled() {
+        LoginThrottle throttle = throttle(true);
+        for (int i = 0; i < 3; i++) {
+            throttle.attempt("bob@email.com", "10.0.0." + i);
+        }
+        ServiceBusyException exception = assertThrows(ServiceBusyException.class,
+                () -> throttle.attempt("BOB@email.com", "10.0.0.9"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatus());
+        assertEquals(60, exception.getRetryAfterSeconds());
+        throttle.attempt("alice@email.com", "10.0.0.9");
+    }
+
+    @Test
+    void repeatedAddressIsThrottled() {
+        LoginThrottle throttle = throttle(true);
+        for (int i = 0; i < 5; i++) {
+            throttle.attempt("user" + i + "@email.com", "10.0.0.1");
+        }
+        assertThrows(ServiceBusyException.class, () -> throttle.attempt("other@email.com", "10.0.0.1"));
+        throttle.attempt("other@email.com", "10.0.0.2");
+    }
+
+    @Test
+    void disabledThrottleAllowsEverything() {
+        LoginThrottle throttle = throttle(false);
+        for (int i = 0; i < 10; i++) {
+            throttle.attempt("bob@email.com", "10.0.0.1");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.springvuegradle.seng302team600.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private MeterRegistry meterRegistry;
+    private CountDownLatch release;
+    private CountDownLatch started;
+    private ExecutorService callers;
+
+    /**
+     * Stands in for BCrypt, blocking each hash until released
+     */
+    private final PasswordEncoder blockingEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        release = new CountDownLatch(1);
+        started = new CountDownLatch(1);
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void hashesOnThePool() {
+        release.countDown();
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(blockingEncoder, 1, 1, Duration.ofSeconds(1), Duration.ofSeconds(5), meterRegistry);
+        assertEquals("hashed:password", executor.encode("password"));
+        assertTrue(executor.matches("password", "hashed:password"));
+        assertFalse(executor.matches("wrong", "hashed:password"));
+        assertEquals(3, meterRegistry.get("password.hashing.latency").timer().count());
+        executor.shutdown();
+    }
+
+    @Test
+    void saturatedQueueIsRejected() throws Exception {
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(blockingEncoder, 1, 1, Duration.ofSeconds(3), Duration.ofSeconds(5), meterRegistry);
+        // One hash runs and one waits in the queue
+        callers.submit(() -> executor.encode("running"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> executor.encode("queued"));
+        while (meterRegistry.get("password.hashing.queue.depth").gauge().value() < 1) {
+            Thread.sleep(1);
+        }
+        ServiceBusyException exception = assertThrows(ServiceBusyException.class, () -> executor.encode("rejected"));
+        assertEquals(3, exception.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+        executor.shutdown();
+    }
+
+    @Test
+    void slowHashTimesOut() throws Exception {
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(blockingEncoder, 1, 1, Duration.ofSeconds(2),
+                Duration.ofMillis(50), meterRegistry);
+        ServiceBusyException exception = assertThrows(ServiceBusyException.class, () -> executor.encode("slow"));
+        assertEquals(2, exception.getRetryAfterSeconds());
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,75 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.Email;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RegisteredEmailFilterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private RegisteredEmailFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        filter = new RegisteredEmailFilter(jdbcTemplate, 0.01);
+    }
+
+    @Test
+    void addedEmailMightBeRegistered() {
+        assertFalse(filter.mightBeRegistered("tim@gmail.com"));
+        filter.add("tim@gmail.com");
+        assertTrue(filter.mightBeRegistered("tim@gmail.com"));
+        assertTrue(filter.mightBeRegistered("Tim@Gmail.com"));
+        assertFalse(filter.mightBeRegistered((String) null));
+    }
+
+    @Test
+    void emailSavedThroughRepositoryIsAdded() {
+        filter.added(new Email("tim@gmail.com", false, null));
+        assertTrue(filter.mightBeRegistered("tim@gmail.com"));
+    }
+
+    @Test
+    void falsePositivesAreRare() {
+        for (int i = 0; i < 10000; i++) {
+            filter.add("user" + i + "@gmail.com");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightBeRegistered("user" + i + "@gmail.com"));
+            if (filter.mightBeRegistered("other" + i + "@gmail.com")) {
+                falsePositives++;
+            }
+        }
+        // 1% expected, allowing for chance
+        assertTrue(falsePositives < 200, falsePositives + " false positives");
+    }
+
+    @Test
+    void buildLoadsRegisteredEmailsAndDropsRemovedOnes() throws Exception {
+        filter.add("removed@gmail.com");
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.getString("email")).thenReturn("tim@gmail.com");
+        when(jdbcTemplate.queryForObject(Mockito.anyString(), Mockito.eq(Integer.class))).thenReturn(1);
+        doAnswer(i -> {
+            RowCallbackHandler handler = i.getArgument(1);
+            handler.processRow(resultSet);
+            // An email saved while the filter is being built
+            filter.add("during@gmail.com");
+            return null;
+        }).when(jdbcTemplate).query(Mockito.anyString(), Mockito.any(RowCallbackHandler.class));
+        filter.build();
+        assertTrue(filter.mightBeRegistered("tim@gmail.com"));
+        assertTrue(filter.mightBeRegistered("during@gmail.com"));
+        assertFalse(filter.mightBeRegistered("removed@gmail.com"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.springvuegradle.seng302team600.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SessionReaperTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private LastSeenRecorder lastSeenRecorder;
+    private MeterRegistry meterRegistry;
+    private SessionReaper sessionReaper;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        lastSeenRecorder = Mockito.mock(LastSeenRecorder.class);
+        meterRegistry = new SimpleMeterRegistry();
+        sessionReaper = new SessionReaper(jdbcTemplate, lastSeenRecorder, meterRegistry, 2, 10000);
+    }
+
+    @Test
+    void expiredSessionsAreDeletedInChunks() {
+        when(jdbcTemplate.queryForList(Mockito.anyString(), Mockito.eq(Long.class), Mockito.any(), Mockito.any()))
+                .thenReturn(Arrays.asList(1L, 2L), Arrays.asList(3L, 4L), Collections.singletonList(5L));
+        when(jdbcTemplate.update(Mockito.anyString(), Mockito.<Object[]>any())).thenReturn(2, 2, 1);
+        assertEquals(5, sessionReaper.reap());
+        verify(jdbcTemplate, times(3)).update(Mockito.anyString(), Mockito.<Object[]>any());
+        assertEquals(5, meterRegistry.get("session.reaper.reaped").counter().count());
+        assertEquals(1, meterRegistry.get("session.reaper.runs").timer().count());
+    }
+
+    @Test
+    void pendingTouchesAreWrittenFirst() {
+        when(jdbcTemplate.queryForList(Mockito.anyString(), Mockito.eq(Long.class), Mockito.any(), Mockito.any()))
+                .thenReturn(Collections.emptyList());
+        sessionReaper.reap();
+        InOrder inOrder = inOrder(lastSeenRecorder, jdbcTemplate);
+        inOrder.verify(lastSeenRecorder).flush();
+        inOrder.verify(jdbcTemplate).queryForList(Mockito.anyString(), Mockito.eq(Long.class), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void nothingToReapDoesNotWrite() {
+        when(jdbcTemplate.queryForList(Mockito.anyString(), Mockito.eq(Long.class), Mockito.any(), Mockito.any()))
+                .thenReturn(Collections.emptyList());
+        assertEquals(0, sessionReaper.reap());
+        verify(jdbcTemplate, never()).update(Mockito.anyString(), Mockito.<Object[]>any());
+        assertEquals(1, meterRegistry.get("session.reaper.runs").timer().count());
+    }
+}
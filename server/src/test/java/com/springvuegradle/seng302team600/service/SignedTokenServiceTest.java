@@ -0,0 +1,128 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.TokenRevocation;
+import com.springvuegradle.seng302team600.model.UserPrincipal;
+import com.springvuegradle.seng302team600.repository.TokenRevocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SignedTokenServiceTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private SignedTokenService signedTokenService;
+    /** Stands in for the token_revocation table shared by every node */
+    private List<TokenRevocation> revocationTable;
+    private TokenRevocationRepository revocationRepository;
+
+    @BeforeEach
+    void setUp() {
+        revocationTable = new ArrayList<>();
+        revocationRepository = mock(TokenRevocationRepository.class);
+        when(revocationRepository.save(any(TokenRevocation.class))).thenAnswer(invocation -> {
+            revocationTable.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(revocationRepository.findLiveRevokedSince(anyLong(), anyLong()))
+                .thenAnswer(invocation -> new ArrayList<>(revocationTable));
+        signedTokenService = newService(KEY, Duration.ofHours(1));
+    }
+
+    private SignedTokenService newService(String key, Duration lifetime) {
+        return new SignedTokenService(key, lifetime, revocationRepository);
+    }
+
+    @Test
+    void issuedTokenIsVerified() {
+        String token = signedTokenService.issue(new UserPrincipal(3L, 10));
+        UserPrincipal principal = signedTokenService.verify(token);
+        assertNotNull(principal);
+        assertEquals(3L, principal.getUserId());
+        assertEquals(10, principal.getRole());
+    }
+
+    @Test
+    void tokenIsVerifiedByAnotherInstanceWithTheSameKey() {
+        String token = signedTokenService.issue(new UserPrincipal(3L, 0));
+        assertNotNull(newService(KEY, Duration.ofHours(1)).verify(token));
+    }
+
+    @Test
+    void tokenSignedWithAnotherKeyIsRejected() {
+        String token = newService("", Duration.ofHours(1)).issue(new UserPrincipal(3L, 0));
+        assertNull(signedTokenService.verify(token));
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = signedTokenService.issue(new UserPrincipal(3L, 0));
+        String[] parts = token.split("\\.");
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = new String(decoder.decode(parts[0])).replaceFirst("^3\\.0\\.", "3.20.");
+        assertNull(signedTokenService.verify(encoder.encodeToString(payload.getBytes()) + "." + parts[1]));
+    }
+
+    @Test
+    void malformedTokenIsRejected() {
+        assertNull(signedTokenService.verify("notAToken"));
+        assertNull(signedTokenService.verify("not.a.token"));
+        assertNull(signedTokenService.verify(".abc"));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        SignedTokenService expired = newService(KEY, Duration.ofMillis(-1));
+        assertNull(expired.verify(expired.issue(new UserPrincipal(3L, 0))));
+    }
+
+    @Test
+    void revokedTokenIsRejected() {
+        String token = signedTokenService.issue(new UserPrincipal(3L, 0));
+        String otherToken = signedTokenService.issue(new UserPrincipal(3L, 0));
+        signedTokenService.revoke(token);
+        assertNull(signedTokenService.verify(token));
+        assertNotNull(signedTokenService.verify(otherToken));
+    }
+
+    @Test
+    void revokedUserTokensAreRejected() {
+        String token = signedTokenService.issue(new UserPrincipal(3L, 0));
+        String otherUserToken = signedTokenService.issue(new UserPrincipal(4L, 0));
+        signedTokenService.revokeUser(3L);
+        assertNull(signedTokenService.verify(token));
+        assertNotNull(signedTokenService.verify(otherUserToken));
+    }
+
+    @Test
+    void pruningKeepsLiveRevocations() {
+        String token = signedTokenService.issue(new UserPrincipal(3L, 0));
+        signedTokenService.revoke(token);
+        signedTokenService.pruneRevocations();
+        assertNull(signedTokenService.verify(token));
+    }
+
+    @Test
+    void revocationsReachOtherNodesOnSync() {
+        SignedTokenService otherNode = newService(KEY, Duration.ofHours(1));
+        String token = signedTokenService.issue(new UserPrincipal(3L, 0));
+        String userToken = signedTokenService.issue(new UserPrincipal(4L, 0));
+        signedTokenService.revoke(token);
+        signedTokenService.revokeUser(4L);
+        assertNotNull(otherNode.verify(token));
+        otherNode.syncRevocations();
+        assertNull(otherNode.verify(token));
+        assertNull(otherNode.verify(userToken));
+    }
+}
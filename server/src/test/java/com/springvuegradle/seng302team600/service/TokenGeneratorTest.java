@@ -0,0 +1,88 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenGeneratorTest {
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = new TokenGenerator(24, 1024).generate();
+        assertEquals(32, token.length());
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+        assertEquals(24, Base64.getUrlDecoder().decode(token).length);
+    }
+
+    @Test
+    void tokenLengthIsConfigurable() {
+        assertEquals(43, new TokenGenerator(32, 1024).generate().length());
+    }
+
+    @Test
+    void shortTokensAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenGenerator(8, 1024));
+    }
+
+    @Test
+    void tokensAreUniqueAcrossPoolRefills() {
+        TokenGenerator tokenGenerator = new TokenGenerator(new SecureRandom(), 16, 64);
+        Set<String> tokens = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(tokens.add(tokenGenerator.generate()));
+        }
+    }
+
+    @Test
+    void tokensAreUniqueAcrossThreads() throws Exception {
+        TokenGenerator tokenGenerator = new TokenGenerator(24, 256);
+        Set<String> tokens = ConcurrentHashMap.newKeySet();
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4000; i++) {
+            threads.submit(() -> tokens.add(tokenGenerator.generate()));
+        }
+        threads.shutdown();
+        assertTrue(threads.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(4000, tokens.size());
+    }
+
+    @Test
+    void noPoolTakesEachTokenFromTheDrbg() {
+        List<Integer> requests = new ArrayList<>();
+        SecureRandom random = new SecureRandom() {
+            @Override
+            public void nextBytes(byte[] bytes) {
+                requests.add(bytes.length);
+                super.nextBytes(bytes);
+            }
+        };
+        TokenGenerator tokenGenerator = new TokenGenerator(random, 24, 0);
+        tokenGenerator.generate();
+        tokenGenerator.generate();
+        assertEquals(Arrays.asList(24, 24), requests);
+    }
+
+    @Test
+    void negativePoolSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenGenerator(24, -1));
+    }
+
+    @Test
+    void bytesLargerThanThePoolAreFilled() {
+        byte[] bytes = new byte[128];
+        new TokenGenerator(new SecureRandom(), 16, 32).nextBytes(bytes);
+        assertNotEquals(0, bytes[0] | bytes[1] | bytes[2] | bytes[3] | bytes[127]);
+    }
+}
@@ -0,0 +1,110 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.ActivityType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserActivityTypeIndexTest {
+
+    private static final Long HIKING = 1L;
+    private static final Long BIKING = 2L;
+    private static final Long SWIMMING = 3L;
+
+    private JdbcTemplate jdbcTemplate;
+    private UserActivityTypeIndex index;
+
+    private Set<ActivityType> activityTypes(Long... activityTypeIds) {
+        Set<ActivityType> activityTypes = new HashSet<>();
+        for (Long activityTypeId : activityTypeIds) {
+            ActivityType activityType = new ActivityType("Type " + activityTypeId);
+            activityType.setActivityTypeId(activityTypeId);
+            activityTypes.add(activityType);
+        }
+        return activityTypes;
+    }
+
+    private List<Long> ids(RoaringBitmap users) {
+        return ActivityTypeIndex.page(users, null, Integer.MAX_VALUE);
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        index = new UserActivityTypeIndex(jdbcTemplate);
+        index.update(1L, activityTypes(HIKING, BIKING));
+        index.update(2L, activityTypes(HIKING));
+        index.update(3L, activityTypes(BIKING, SWIMMING));
+    }
+
+    @Test
+    void andIsIntersection() {
+        assertEquals(Collections.singletonList(1L), ids(index.findWithAll(Arrays.asList(HIKING, BIKING))));
+        assertTrue(index.findWithAll(Arrays.asList(HIKING, SWIMMING)).isEmpty());
+    }
+
+    @Test
+    void orIsUnion() {
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(index.findWithAny(Arrays.asList(HIKING, SWIMMING))));
+    }
+
+    @Test
+    void unknownActivityTypeMatchesNobody() {
+        assertTrue(index.findWithAll(Arrays.asList(HIKING, 99L)).isEmpty());
+        assertEquals(Arrays.asList(1L, 2L), ids(index.findWithAny(Arrays.asList(HIKING, 99L))));
+        assertTrue(index.findWithAll(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    void updateReplacesActivityTypes() {
+        index.update(1L, activityTypes(SWIMMING));
+        assertEquals(Collections.singletonList(2L), ids(index.findWithAny(Collections.singletonList(HIKING))));
+        assertEquals(Arrays.asList(1L, 3L), ids(index.findWithAny(Collections.singletonList(SWIMMING))));
+        index.remove(1L);
+        assertEquals(Collections.singletonList(3L), ids(index.findWithAny(Collections.singletonList(SWIMMING))));
+    }
+
+    @Test
+    void searchResultIsNotChangedByLaterUpdates() {
+        RoaringBitmap hikers = index.findWithAny(Collections.singletonList(HIKING));
+        index.update(4L, activityTypes(HIKING));
+        assertEquals(Arrays.asList(1L, 2L), ids(hikers));
+    }
+
+    @Test
+    void resultsArePagedInOrderOfUserId() {
+        RoaringBitmap users = new RoaringBitmap();
+        users.add(5, 7, 9, 11, 13);
+        assertEquals(Arrays.asList(5L, 7L), ActivityTypeIndex.page(users, null, 2));
+        assertEquals(Arrays.asList(9L, 11L), ActivityTypeIndex.page(users, 7L, 2));
+        assertEquals(Arrays.asList(11L, 13L), ActivityTypeIndex.page(users, 10L, 2));
+        assertEquals(Collections.singletonList(13L), ActivityTypeIndex.page(users, 11L, 2));
+        assertTrue(ActivityTypeIndex.page(users, 13L, 2).isEmpty());
+        assertTrue(ActivityTypeIndex.hasAfter(users, 11L));
+        assertFalse(ActivityTypeIndex.hasAfter(users, 13L));
+    }
+
+    @Test
+    void buildLoadsEveryRow() throws Exception {
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        when(resultSet.getLong("user_id")).thenReturn(7L, 8L);
+        when(resultSet.getLong("activity_type_id")).thenReturn(SWIMMING, SWIMMING);
+        doAnswer(i -> {
+            RowCallbackHandler handler = i.getArgument(1);
+            handler.processRow(resultSet);
+            handler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(Mockito.anyString(), Mockito.any(RowCallbackHandler.class));
+        index.build();
+        assertEquals(Arrays.asList(7L, 8L), ids(index.findWithAny(Arrays.asList(HIKING, SWIMMING))));
+    }
+}
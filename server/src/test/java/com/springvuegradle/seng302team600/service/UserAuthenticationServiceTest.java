@@ -1,35 +1,63 @@
 package com.springvuegradle.seng302team600.service;
 
 import com.springvuegradle.seng302team600.model.Email;
+import com.springvuegradle.seng302team600.model.Session;
 import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.model.UserCredentials;
+import com.springvuegradle.seng302team600.model.UserPrincipal;
 import com.springvuegradle.seng302team600.payload.UserRegisterRequest;
 import com.springvuegradle.seng302team600.payload.LoginResponse;
 import com.springvuegradle.seng302team600.repository.EmailRepository;
+import com.springvuegradle.seng302team600.repository.SessionRepository;
+import com.springvuegradle.seng302team600.repository.TokenRevocationRepository;
 import com.springvuegradle.seng302team600.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(UserAuthenticationService.class)
+@Import({SessionCache.class, SignedTokenService.class, TokenGenerator.class})
 class UserAuthenticationServiceTest {
 
     @MockBean
     private UserRepository userRepository;
     @MockBean
     private EmailRepository emailRepository;
+    @MockBean
+    private SessionRepository sessionRepository;
+    @MockBean
+    private LastSeenRecorder lastSeenRecorder;
+    @MockBean
+    private LoginThrottle loginThrottle;
+    @MockBean
+    private TokenRevocationRepository tokenRevocationRepository;
 
     @Autowired
     private UserAuthenticationService userService;
+    @Autowired
+    private SessionCache sessionCache;
 
     private UserRegisterRequest userData;
 
@@ -38,6 +66,20 @@ class UserAuthenticationServiceTest {
     private Email dummyEmail;
     private Email dummyEmail1;
 
+    /** Stands in for the session table, by token hash */
+    private Map<String, Session> sessionTable;
+    private long sessionCount;
+
+    /**
+     * Starts a session for a user as if they had logged in
+     * @param token the session's token
+     * @param user the user logging in
+     * @return the session
+     */
+    private Session startSession(String token, User user) {
+        return sessionRepository.save(new Session(token, user));
+    }
+
     /**
      * A function which can be used to set up dummyUser1, the second test user
      * There are minimal test cases where this is required so it is only sometimes needed
@@ -61,6 +103,9 @@ class UserAuthenticationServiceTest {
 
     @BeforeEach
     public void setUp() {
+        // The cache outlives each test, and tests reuse the same tokens for different users
+        sessionCache.invalidateAll();
+        ReflectionTestUtils.setField(userService, "sessionMode", "database");
         dummyUser1 = new User();
         userData = new UserRegisterRequest();
         userData.setFirstName("Bill");
@@ -84,10 +129,37 @@ class UserAuthenticationServiceTest {
             if (i.getArgument(0).equals(dummyUser1.getUserId())) return dummyUser1;
             else return null;
         });
-        when(userRepository.findByToken(Mockito.anyString())).thenAnswer(i -> {
-            if (i.getArgument(0).equals(dummyUser.getToken())) return dummyUser;
-            if (i.getArgument(0).equals(dummyUser1.getToken())) return dummyUser1;
-            else return null;
+        sessionTable = new HashMap<>();
+        sessionCount = 0;
+        when(sessionRepository.save(Mockito.any(Session.class))).thenAnswer(i -> {
+            Session session = i.getArgument(0);
+            ReflectionTestUtils.setField(session, "sessionId", ++sessionCount);
+            sessionTable.put(session.getTokenHash(), session);
+            return session;
+        });
+        when(sessionRepository.findByTokenHash(Mockito.anyString())).thenAnswer(i -> sessionTable.get(i.getArgument(0)));
+        when(sessionRepository.deleteByTokenHash(Mockito.anyString())).thenAnswer(i ->
+                sessionTable.remove(i.getArgument(0)) == null ? 0 : 1);
+        Mockito.doAnswer(i -> sessionTable.remove(((Session) i.getArgument(0)).getTokenHash()))
+                .when(sessionRepository).delete(Mockito.any(Session.class));
+        when(sessionRepository.deleteOtherSessions(Mockito.anyLong(), Mockito.anyString())).thenAnswer(i -> {
+            int size = sessionTable.size();
+            sessionTable.values().removeIf(session -> session.getUserId().equals(i.getArgument(0))
+                    && !session.getTokenHash().equals(i.getArgument(1)));
+            return size - sessionTable.size();
+        });
+        when(sessionRepository.updateRoleByUserId(Mockito.anyLong(), Mockito.anyInt())).thenAnswer(i -> {
+            sessionTable.values().stream()
+                    .filter(session -> session.getUserId().equals(i.getArgument(0)))
+                    .forEach(session -> ReflectionTestUtils.setField(session, "role", i.getArgument(1)));
+            return 0;
+        });
+        when(userRepository.findCredentialsByEmail(Mockito.anyString())).thenAnswer(i -> {
+            if (i.getArgument(0).equals(dummyEmail.getEmail())) {
+                return new UserCredentials(dummyUser.getUserId(),
+                        (String) ReflectionTestUtils.getField(dummyUser, "password"), dummyUser.getRole());
+            }
+            return null;
         });
         when(emailRepository.save(Mockito.any(Email.class))).then(i -> i.getArgument(0));
         when(emailRepository.findByEmail(Mockito.anyString())).thenAnswer(i -> {
@@ -104,6 +176,21 @@ class UserAuthenticationServiceTest {
         });
     }
 
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * Binds a request to the test thread, with its token attached the way the AuthenticationFilter does it
+     * @param token the request's token
+     */
+    private void authenticateRequest(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(RequestAuthentication.ATTRIBUTE, RequestAuthentication.of(token));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
     @Test
     public void doNotLoginUnauthorizedUsers() {
         assertThrows(ResponseStatusException.class, () -> userService.login(userData.getPrimaryEmail(), "wrongPassword"));
@@ -114,22 +201,29 @@ class UserAuthenticationServiceTest {
         LoginResponse loginResponse = userService.login(userData.getPrimaryEmail(), userData.getPassword());
         assertNotNull(loginResponse);
         assertEquals(dummyUser.getUserId(), loginResponse.getUserId());
-        assertEquals(dummyUser.getToken(), loginResponse.getToken());
+        assertNotNull(sessionTable.get(Session.hashToken(loginResponse.getToken())));
+    }
+
+    @Test
+    public void loginDoesNotLoadTheUser() {
+        userService.login(userData.getPrimaryEmail(), userData.getPassword());
+        verify(emailRepository, never()).findByEmail(Mockito.anyString());
+        verify(userRepository, never()).findByUserId(Mockito.anyLong());
+        verify(userRepository, never()).save(Mockito.any(User.class));
     }
 
     @Test
-    public void tokenIsRemovedFromUser() {
+    public void sessionIsRemovedOnLogout() {
         String token = "testToken";
-        dummyUser.setToken(token);
+        startSession(token, dummyUser);
         userService.logout(token);
-        assertNull(dummyUser.getToken());
+        assertTrue(sessionTable.isEmpty());
     }
 
     @Test
     public void userFoundByTokenAuthorized() {
         String token = "testToken";
-        dummyUser.setToken(token);
-        dummyUser.setTokenTime();
+        startSession(token, dummyUser);
         User user = userService.findByToken(token);
         assertEquals(dummyUser, user);
     }
@@ -137,16 +231,14 @@ class UserAuthenticationServiceTest {
     @Test
     public void userNotFoundByTokenUnauthorized() {
         String token = "testToken";
-        dummyUser.setToken(token);
-        dummyUser.setTokenTime();
+        startSession(token, dummyUser);
         assertThrows(ResponseStatusException.class, () -> userService.findByToken("wrongToken"));
     }
 
     @Test
     public void userFoundByIdAuthorized() {
         String token = "testToken";
-        dummyUser.setToken(token);
-        dummyUser.setTokenTime();
+        startSession(token, dummyUser);
         User user = userService.findByUserId(token, dummyUser.getUserId());
         assertEquals(dummyUser, user);
     }
@@ -154,8 +246,7 @@ class UserAuthenticationServiceTest {
     @Test
     public void userNotFoundByIdUnauthorized() {
         String token = "testToken";
-        dummyUser.setToken(token);
-        dummyUser.setTokenTime();
+        startSession(token, dummyUser);
         assertThrows(ResponseStatusException.class, () -> userService.findByUserId("wrongToken", dummyUser.getUserId()));
     }
 
@@ -164,8 +255,7 @@ class UserAuthenticationServiceTest {
         String token = "testToken";
         additionalUser();
         ReflectionTestUtils.setField(dummyUser1, "role", 10);
-        dummyUser1.setToken(token);
-        dummyUser1.setTokenTime();
+        startSession(token, dummyUser1);
         User user = userService.findByUserId(token, dummyUser.getUserId());
         assertEquals(dummyUser, user);
     }
@@ -174,8 +264,7 @@ class UserAuthenticationServiceTest {
     public void adminDoesntFindUserById() {
         String token = "testToken";
         additionalUser();
-        dummyUser1.setToken(token);
-        dummyUser1.setTokenTime();
+        startSession(token, dummyUser1);
         assertThrows(ResponseStatusException.class, () -> userService.findByUserId(token, dummyUser.getUserId()));
     }
 
@@ -183,8 +272,7 @@ class UserAuthenticationServiceTest {
     public void userNotFoundByIdForbidden() {
         String token = "testToken";
         additionalUser();
-        dummyUser1.setToken(token);
-        dummyUser1.setTokenTime();
+        startSession(token, dummyUser1);
         // Try to find another user when this user is not an admin
         assertThrows(ResponseStatusException.class, () -> userService.findByUserId(token, dummyUser.getUserId()));
     }
@@ -193,8 +281,7 @@ class UserAuthenticationServiceTest {
     /**Tests that if a user has an invalid code they cannot see anything and an error is thrown*/
     public void viewUserByIdInvalidToken() {
         String token = "myToken";
-        dummyUser.setToken(token);
-        dummyUser.setTokenTime();
+        startSession(token, dummyUser);
         assertThrows(ResponseStatusException.class, () -> userService.viewUserById(dummyUser.getUserId(), "InvalidToken"));
     }
 
@@ -202,8 +289,7 @@ class UserAuthenticationServiceTest {
     /**Tests that if a user looks for a user that doesn't exist an error is thrown*/
     public void viewUserByIdInvalidId() {
         String token = "myToken";
-        dummyUser.setToken(token);
-        dummyUser.setTokenTime();
+        startSession(token, dummyUser);
         assertThrows(ResponseStatusException.class, () -> userService.viewUserById(3L, token));
     }
 
@@ -211,8 +297,7 @@ class UserAuthenticationServiceTest {
     /**Tests that if a user tries to view a user that does exist and is logged in then the user is returned*/
     public void viewUserByIdSuccess() {
         String token = "myToken";
-        dummyUser.setToken(token);
-        dummyUser.setTokenTime();
+        startSession(token, dummyUser);
         // Set up second user
         additionalUser();
         // Check viewing the user
@@ -222,4 +307,238 @@ class UserAuthenticationServiceTest {
         assertEquals("bobby@email.com", result.getPrimaryEmail());
         assertEquals(User.Gender.MALE, result.getGender());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void cachedTokenDoesNotQueryToken() {
+        String token = "testToken";
+        startSession(token, dummyUser);
+        userService.findByToken(token);
+        User user = userService.findByToken(token);
+        assertEquals(dummyUser, user);
+        verify(sessionRepository, times(1)).findByTokenHash(Session.hashToken(token));
+    }
+
+    @Test
+    public void cachedTokenViewUserDoesNotQueryToken() {
+        String token = "testToken";
+        startSession(token, dummyUser);
+        additionalUser();
+        userService.viewUserById(dummyUser1.getUserId(), token);
+        userService.viewUserById(dummyUser1.getUserId(), token);
+        verify(sessionRepository, times(1)).findByTokenHash(Session.hashToken(token));
+    }
+
+    @Test
+    public void findByTokenRecordsTouchWithoutSaving() {
+        String token = "testToken";
+        Session session = startSession(token, dummyUser);
+        userService.findByToken(token);
+        userService.findByToken(token);
+        verify(sessionRepository, times(1)).save(Mockito.any(Session.class));
+        verify(lastSeenRecorder, times(2)).touch(session.getSessionId());
+    }
+
+    @Test
+    public void pendingTouchKeepsStaleSessionValid() {
+        String token = "testToken";
+        Session session = startSession(token, dummyUser);
+        // Stored last seen time is long gone, but the token was used recently and not written yet
+        session.setLastSeen(new Date(0));
+        when(lastSeenRecorder.getPendingLastSeen(session.getSessionId())).thenReturn(System.currentTimeMillis());
+        assertEquals(dummyUser, userService.findByToken(token));
+    }
+
+    @Test
+    public void logoutInvalidatesCachedToken() {
+        String token = "testToken";
+        startSession(token, dummyUser);
+        userService.findByToken(token);
+        userService.logout(token);
+        assertThrows(ResponseStatusException.class, () -> userService.findByToken(token));
+    }
+
+    @Test
+    public void invalidatedUserIsReloaded() {
+        String token = "testToken";
+        additionalUser();
+        startSession(token, dummyUser1);
+        // Not an admin yet, so the cached session can't view another user
+        assertThrows(ResponseStatusException.class, () -> userService.findByUserId(token, dummyUser.getUserId()));
+        int previousRole = dummyUser1.getRole();
+        ReflectionTestUtils.setField(dummyUser1, "role", 10);
+        userService.refreshSessions(dummyUser1, previousRole);
+        assertEquals(dummyUser, userService.findByUserId(token, dummyUser.getUserId()));
+    }
+
+    @Test
+    public void timedOutTokenIsNotCached() {
+        String token = "testToken";
+        startSession(token, dummyUser).setLastSeen(new Date(0));
+        assertThrows(ResponseStatusException.class, () -> userService.findByToken(token));
+        assertNull(sessionCache.get(token));
+        verify(userRepository, never()).findByUserId(Mockito.anyLong());
+    }
+
+    @Test
+    public void timedOutTokenIsRejectedWithoutWriting() {
+        String token = "testToken";
+        startSession(token, dummyUser).setLastSeen(new Date(0));
+        assertThrows(ResponseStatusException.class, () -> userService.authenticate(token));
+        // The expired session is left for the SessionReaper
+        assertEquals(1, sessionTable.size());
+        verify(sessionRepository, never()).delete(Mockito.any(Session.class));
+        verify(lastSeenRecorder, never()).touch(Mockito.anyLong());
+    }
+
+    @Test
+    public void signedTokenStartsNoSession() {
+        ReflectionTestUtils.setField(userService, "sessionMode", "signed");
+        LoginResponse response = userService.login(userData.getPrimaryEmail(), userData.getPassword());
+        assertNotNull(response.getToken());
+        assertTrue(sessionTable.isEmpty());
+        assertEquals(dummyUser, userService.findByToken(response.getToken()));
+        verify(sessionRepository, never()).findByTokenHash(Mockito.anyString());
+    }
+
+    @Test
+    public void signedTokenAuthenticatesWithoutDatabase() {
+        ReflectionTestUtils.setField(userService, "sessionMode", "signed");
+        String token = userService.login(userData.getPrimaryEmail(), userData.getPassword()).getToken();
+        Mockito.clearInvocations(userRepository);
+        assertEquals(dummyUser.getUserId(), userService.authenticate(token).getUserId());
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    public void signedTokenLogoutRevokesToken() {
+        ReflectionTestUtils.setField(userService, "sessionMode", "signed");
+        String token = userService.login(userData.getPrimaryEmail(), userData.getPassword()).getToken();
+        userService.logout(token);
+        assertThrows(ResponseStatusException.class, () -> userService.findByToken(token));
+    }
+
+    @Test
+    public void signedTokenIsRevokedWhenRoleChanges() {
+        ReflectionTestUtils.setField(userService, "sessionMode", "signed");
+        String token = userService.login(userData.getPrimaryEmail(), userData.getPassword()).getToken();
+        int previousRole = dummyUser.getRole();
+        ReflectionTestUtils.setField(dummyUser, "role", previousRole + 10);
+        userService.refreshSessions(dummyUser, previousRole);
+        assertThrows(ResponseStatusException.class, () -> userService.findByToken(token));
+    }
+
+    @Test
+    public void signedTokenSurvivesUnchangedRole() {
+        ReflectionTestUtils.setField(userService, "sessionMode", "signed");
+        String token = userService.login(userData.getPrimaryEmail(), userData.getPassword()).getToken();
+        userService.refreshSessions(dummyUser, dummyUser.getRole());
+        assertEquals(dummyUser, userService.findByToken(token));
+    }
+
+    @Test
+    public void storedTokenIsRejectedInSignedMode() {
+        String token = userService.login(userData.getPrimaryEmail(), userData.getPassword()).getToken();
+        ReflectionTestUtils.setField(userService, "sessionMode", "signed");
+        assertThrows(ResponseStatusException.class, () -> userService.findByToken(token));
+    }
+
+    @Test
+    public void userCanHaveSeveralSessions() {
+        String firstToken = userService.login(userData.getPrimaryEmail(), userData.getPassword()).getToken();
+        String secondToken = userService.login(userData.getPrimaryEmail(), userData.getPassword()).getToken();
+        assertNotEquals(firstToken, secondToken);
+        userService.logout(firstToken);
+        assertThrows(ResponseStatusException.class, () -> userService.findByToken(firstToken));
+        assertEquals(dummyUser, userService.findByToken(secondToken));
+    }
+
+    @Test
+    public void authenticationLoadsOnlyTheSession() {
+        String token = "testToken";
+        startSession(token, dummyUser);
+        assertEquals(dummyUser.getUserId(), userService.authenticate(token).getUserId());
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    public void tokenIsStoredHashed() {
+        String token = userService.login(userData.getPrimaryEmail(), userData.getPassword()).getToken();
+        Session session = sessionTable.values().iterator().next();
+        assertNotEquals(token, session.getTokenHash());
+        assertEquals(Session.hashToken(token), session.getTokenHash());
+    }
+
+    @Test
+    public void passwordChangeRevokesOtherSessions() {
+        String token = "testToken";
+        String otherToken = "otherToken";
+        startSession(token, dummyUser);
+        startSession(otherToken, dummyUser);
+        userService.findByToken(otherToken);
+        userService.revokeOtherSessions(dummyUser.getUserId(), token);
+        assertEquals(dummyUser, userService.findByToken(token));
+        assertThrows(ResponseStatusException.class, () -> userService.findByToken(otherToken));
+    }
+
+    @Test
+    public void requestIsAuthenticatedOnce() {
+        String token = "testToken";
+        startSession(token, dummyUser);
+        additionalUser();
+        authenticateRequest(token);
+        sessionCache.invalidateAll();
+        userService.findByToken(token);
+        userService.findByUserId(token, dummyUser.getUserId());
+        userService.viewUserById(dummyUser1.getUserId(), token);
+        userService.viewUserById(dummyUser1.getUserId(), token);
+        verify(sessionRepository, times(1)).findByTokenHash(Session.hashToken(token));
+    }
+
+    @Test
+    public void rejectedRequestIsNotAuthenticatedAgain() {
+        String token = "testToken";
+        authenticateRequest(token);
+        assertThrows(ResponseStatusException.class, () -> userService.findByToken(token));
+        startSession(token, dummyUser);
+        assertThrows(ResponseStatusException.class, () -> userService.viewUserById(dummyUser.getUserId(), token));
+        verify(sessionRepository, times(1)).findByTokenHash(Session.hashToken(token));
+    }
+
+    @Test
+    public void requestIsOnlyAuthenticatedWhenAsked() {
+        String token = "testToken";
+        startSession(token, dummyUser);
+        sessionCache.invalidateAll();
+        authenticateRequest(token);
+        verify(sessionRepository, never()).findByTokenHash(Mockito.anyString());
+        assertEquals(dummyUser.getUserId(), userService.authenticate(token).getUserId());
+        verify(sessionRepository, times(1)).findByTokenHash(Session.hashToken(token));
+    }
+
+    @Test
+    public void requestAuthenticationIsNotReusedForAnotherToken() {
+        String token = "testToken";
+        String otherToken = "otherToken";
+        startSession(token, dummyUser);
+        authenticateRequest(token);
+        assertThrows(ResponseStatusException.class, () -> userService.findByToken(otherToken));
+    }
+
+    @Test
+    public void throttledLoginDoesNotQueryOrHash() {
+        Mockito.doThrow(new ServiceBusyException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts", 30))
+                .when(loginThrottle).attempt(Mockito.eq(userData.getPrimaryEmail()), Mockito.any());
+        assertThrows(ServiceBusyException.class, () -> userService.login(userData.getPrimaryEmail(), userData.getPassword()));
+        verify(userRepository, never()).findCredentialsByEmail(Mockito.anyString());
+    }
+
+    @Test
+    public void startSessionIsNotThrottled() {
+        Mockito.doThrow(new ServiceBusyException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts", 30))
+                .when(loginThrottle).attempt(Mockito.any(), Mockito.any());
+        LoginResponse loginResponse = userService.startSession(new UserPrincipal(dummyUser.getUserId(), dummyUser.getRole()));
+        assertEquals(dummyUser.getUserId(), loginResponse.getUserId());
+        assertNotNull(sessionTable.get(Session.hashToken(loginResponse.getToken())));
+        assertEquals(dummyUser.getUserId(), userService.authenticate(loginResponse.getToken()).getUserId());
+    }
+}
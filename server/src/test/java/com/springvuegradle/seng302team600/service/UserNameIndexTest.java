@@ -0,0 +1,85 @@
+package com.springvuegradle.seng302team600.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserNameIndexTest {
+
+    private UserNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserNameIndex(Mockito.mock(JdbcTemplate.class));
+        index.update(1L, "Annie", "Smith", null);
+        index.update(2L, "Ann", "Joanna", "Annabel");
+        index.update(3L, "Bob", "Hanna", "Bobby");
+        index.update(4L, "Zoë", "Müller", "Zo");
+    }
+
+    @Test
+    void shortQueryMatchesStartOfNames() {
+        assertEquals(Arrays.asList(1L, 2L), index.search("an", 0, 10).getUserIds());
+        assertEquals(Arrays.asList(3L), index.search("B", 0, 10).getUserIds());
+    }
+
+    @Test
+    void longerQueryMatchesAnywhereBestFirst() {
+        UserNameIndex.Page page = index.search("ann", 0, 10);
+        // Ann is a whole word, Annie starts with it, and Joanna and Hanna have it in the middle
+        assertEquals(Arrays.asList(2L, 1L, 3L), page.getUserIds());
+        assertEquals(3, page.getTotal());
+    }
+
+    @Test
+    void shortQueryRanksWholeWordsFirst() {
+        index.update(5L, "Alan", "Jones", null);
+        index.update(6L, "Al", "Jones", null);
+        assertEquals(Arrays.asList(6L, 5L), index.search("al", 0, 10).getUserIds());
+        assertEquals(Arrays.asList(6L, 5L), index.search("al jo", 0, 10).getUserIds());
+        assertEquals(Collections.singletonList(5L), index.search("al jo", 1, 10).getUserIds());
+    }
+
+    @Test
+    void everyWordHasToMatch() {
+        assertEquals(Collections.singletonList(1L), index.search("ann smi", 0, 10).getUserIds());
+        assertTrue(index.search("ann jones", 0, 10).getUserIds().isEmpty());
+    }
+
+    @Test
+    void caseAndAccentsAreIgnored() {
+        assertEquals(Collections.singletonList(4L), index.search("ZOE mull", 0, 10).getUserIds());
+    }
+
+    @Test
+    void gramsInTheWrongOrderDoNotMatch() {
+        // "nna" and "nan" are both in the index, but nobody has "nnan"
+        assertTrue(index.search("nnan", 0, 10).getUserIds().isEmpty());
+    }
+
+    @Test
+    void resultsArePaged() {
+        UserNameIndex.Page page = index.search("ann", 1, 1);
+        assertEquals(Collections.singletonList(1L), page.getUserIds());
+        assertEquals(3, page.getTotal());
+        assertTrue(index.search("ann", 3, 1).getUserIds().isEmpty());
+    }
+
+    @Test
+    void updateReplacesNames() {
+        index.update(1L, "Carol", "Smith", null);
+        assertEquals(Arrays.asList(2L, 3L), index.search("ann", 0, 10).getUserIds());
+        assertEquals(Collections.singletonList(1L), index.search("carol", 0, 10).getUserIds());
+    }
+
+    @Test
+    void blankQueryMatchesNobody() {
+        assertTrue(index.search(" - ", 0, 10).getUserIds().isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.ActivityType;
+import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.payload.UserResponse;
+import com.springvuegradle.seng302team600.repository.EmailRepository;
+import com.springvuegradle.seng302team600.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserResponseAssemblerTest {
+
+    private UserRepository userRepository;
+    private EmailRepository emailRepository;
+    private UserResponseAssembler assembler;
+
+    private UserResponse projection(Long id) {
+        return new UserResponse(id, "First" + id, null, "Last" + id, null, null, new Date(),
+                User.Gender.FEMALE, 2, 0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        userRepository = Mockito.mock(UserRepository.class);
+        emailRepository = Mockito.mock(EmailRepository.class);
+        assembler = new UserResponseAssembler(userRepository, emailRepository);
+    }
+
+    @Test
+    void collectionsAreFilledInFromOneQueryEach() {
+        List<Long> userIds = Arrays.asList(1L, 2L);
+        when(userRepository.findUserResponsesByIds(userIds)).thenReturn(Arrays.asList(projection(1L), projection(2L)));
+        when(emailRepository.findEmailsByUserIds(userIds)).thenReturn(Arrays.asList(
+                new Object[]{1L, "one@email.com", true},
+                new Object[]{2L, "two@email.com", true},
+                new Object[]{1L, "uno@email.com", false}));
+        when(userRepository.findPassportsByUserIds(userIds)).thenReturn(Collections.singletonList(
+                new Object[]{2L, "New Zealand"}));
+        when(userRepository.findActivityTypesByUserIds(userIds)).thenReturn(Collections.singletonList(
+                new Object[]{1L, new ActivityType("Hiking")}));
+
+        List<UserResponse> responses = assembler.assemble(userIds);
+
+        assertEquals(2, responses.size());
+        assertEquals("one@email.com", responses.get(0).getPrimaryEmail());
+        assertEquals(Collections.singletonList("uno@email.com"), responses.get(0).getAdditionalEmails());
+        assertTrue(responses.get(0).getPassports().isEmpty());
+        assertEquals(1, responses.get(0).getActivityTypes().size());
+        assertEquals("two@email.com", responses.get(1).getPrimaryEmail());
+        assertEquals(Collections.singletonList("New Zealand"), responses.get(1).getPassports());
+        assertTrue(responses.get(1).getActivityTypes().isEmpty());
+    }
+
+    @Test
+    void noUsersMakesNoQueries() {
+        assertTrue(assembler.assemble(Collections.emptyList()).isEmpty());
+        verifyNoInteractions(userRepository, emailRepository);
+    }
+}
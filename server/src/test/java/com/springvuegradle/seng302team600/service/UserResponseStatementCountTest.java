@@ -0,0 +1,106 @@
+package com.springvuegradle.seng302team600.service;
+
+import com.springvuegradle.seng302team600.model.ActivityType;
+import com.springvuegradle.seng302team600.model.User;
+import com.springvuegradle.seng302team600.payload.UserRegisterRequest;
+import com.springvuegradle.seng302team600.payload.UserResponse;
+import com.springvuegradle.seng302team600.repository.ActivityTypeRepository;
+import com.springvuegradle.seng302team600.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that building a list of UserResponses takes the same number of SQL statements however many
+ * users are in the list.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(UserResponseAssembler.class)
+class UserResponseStatementCountTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ActivityTypeRepository activityTypeRepository;
+    @Autowired
+    private UserResponseAssembler userResponseAssembler;
+
+    private List<Long> userIds;
+
+    @BeforeEach
+    void setUp() {
+        ActivityType hiking = activityTypeRepository.save(new ActivityType("Hiking"));
+        ActivityType golf = activityTypeRepository.save(new ActivityType("Golf"));
+        userIds = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            UserRegisterRequest userData = new UserRegisterRequest();
+            userData.setFirstName("First");
+            userData.setLastName("Last");
+            userData.setPrimaryEmail("user" + i + "@email.com");
+            userData.setPassword("password123");
+            userData.setDateOfBirth(new Calendar.Builder().setDate(1990, 1, 1).build().getTime());
+            userData.setGender(User.Gender.FEMALE);
+            userData.setPassports(Arrays.asList("New Zealand", "Australia"));
+            userData.setActivityTypes(new HashSet<>(Arrays.asList(hiking, golf)));
+            User user = userRepository.save(new User(userData));
+            user.setAdditionalEmails(Collections.singletonList("other" + i + "@email.com"));
+            userIds.add(user.getUserId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Counts the statements run to build the responses of the first n users, starting from an empty
+     * persistence context.
+     */
+    private long countStatements(int n, Supplier<List<UserResponse>> responses) {
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<UserResponse> built = responses.get();
+        assertEquals(n, built.size());
+        for (UserResponse response : built) {
+            assertNotNull(response.getPrimaryEmail());
+            assertEquals(1, response.getAdditionalEmails().size());
+            assertEquals(2, response.getPassports().size());
+            assertEquals(2, response.getActivityTypes().size());
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void projectedResponsesTakeConstantStatements() {
+        long few = countStatements(2, () -> userResponseAssembler.assemble(userIds.subList(0, 2)));
+        long many = countStatements(12, () -> userResponseAssembler.assemble(userIds));
+        assertEquals(few, many);
+    }
+
+    @Test
+    void responsesFromLoadedUsersTakeConstantStatements() {
+        long few = countStatements(2, () -> responsesOf(userRepository.findAllById(userIds.subList(0, 2))));
+        long many = countStatements(12, () -> responsesOf(userRepository.findAllById(userIds)));
+        assertEquals(few, many);
+    }
+
+    private List<UserResponse> responsesOf(List<User> users) {
+        return users.stream().map(user -> {
+            user.setTransientEmailStrings();
+            return new UserResponse(user);
+        }).collect(Collectors.toList());
+    }
+}
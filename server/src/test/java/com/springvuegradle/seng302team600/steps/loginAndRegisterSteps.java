@@ -22,10 +22,14 @@ public class loginAndRegisterSteps extends cucumberSpringBase {
 
     private String authenticationToken = "IAMLOGGEDIN";
 
+    /** The token of each logged in user, by email */
+    private Map<String, String> sessionTokens = new HashMap<>();
+
     @Given("I have a database connection")
     public void i_have_a_database_connection() {
         setup();
         this.savedUsers = new HashMap<>();
+        this.sessionTokens = new HashMap<>();
     }
 
     @Given("the database contains the following user information")
@@ -55,7 +59,7 @@ public class loginAndRegisterSteps extends cucumberSpringBase {
         when(userAuthenticationService.login(email, password)).thenAnswer(i -> {
             User user = savedUsers.get(email);
             if (user != null) {
-                user.setToken(authenticationToken);
+                sessionTokens.put(email, authenticationToken);
                 return authenticationToken;
             }
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Could not login");
@@ -64,11 +68,7 @@ public class loginAndRegisterSteps extends cucumberSpringBase {
     }
 
     private void logUserOut(String authenticate) {
-        for (User user: this.savedUsers.values()) {
-            if (user.getToken() == authenticate) {
-                user.setToken(null);
-            }
-        }
+        sessionTokens.values().removeIf(token -> token.equals(authenticate));
     }
 
     @When("I log out")
@@ -80,8 +80,8 @@ public class loginAndRegisterSteps extends cucumberSpringBase {
 
     @Then("my user \\(with email {string}) has no token")
     public void my_user_with_email_has_no_token(String email) {
-        User user = savedUsers.get(email);
-        assertNull(user.getToken());
+        assertNotNull(savedUsers.get(email));
+        assertNull(sessionTokens.get(email));
     }
 
 }